@@ -0,0 +1,228 @@
+package com.onevizion.maven.plugin.dbschema;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOCase;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+// Scripts of a zip, jar, tar or tar.gz archive, selected by their entry names before anything is decompressed.
+// Zip entries are decompressed by the parser on its own threads, tar entries can only be read in the order of the
+// archive, so the selected ones are copied to temporary files once when the archive is opened and deleted when it is
+// closed. A listed archive only has the names
+public class DdlArchive implements Closeable {
+    private static final List<String> ZIP_SUFFIXES = List.of(".zip", ".jar");
+    private static final List<String> TAR_SUFFIXES = List.of(".tar");
+    private static final List<String> TAR_GZ_SUFFIXES = List.of(".tar.gz", ".tgz");
+
+    private final File file;
+    private final FilenameFilter filter;
+    private final boolean listOnly;
+    private final List<Script> scripts = Lists.newArrayList();
+    private final Map<String, File> tarFiles = Maps.newHashMap();
+    private File tarDir;
+    private ZipFile zipFile;
+
+    // The parser, the shards and the callbacks know scripts by their files, an entry is a file with the path
+    // archive!/entry, so it goes through the same code as the extracted scripts
+    public static class Script extends File {
+        private static final long serialVersionUID = 1L;
+
+        private final transient DdlArchive archive;
+        private final String entryName;
+        private final long size;
+
+        private Script(DdlArchive archive, String entryName, long size) {
+            super(archive.file.getAbsolutePath() + "!" + File.separator + normalize(entryName).replace('/', File.separatorChar));
+            this.archive = archive;
+            this.entryName = entryName;
+            this.size = size;
+        }
+
+        public String getEntryName() {
+            return this.entryName;
+        }
+
+        public InputStream openStream() throws IOException {
+            return this.archive.openStream(this.entryName);
+        }
+
+        @Override
+        public long length() {
+            return this.size;
+        }
+
+        @Override
+        public boolean isFile() {
+            return true;
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long lastModified() {
+            return this.archive.file.lastModified();
+        }
+    }
+
+    private DdlArchive(File file, FilenameFilter filter, boolean listOnly) {
+        this.file = file;
+        this.filter = filter;
+        this.listOnly = listOnly;
+    }
+
+    // The filter gets the entries like the script folders get their files, so dbSiteObjects selects them the same way
+    public static DdlArchive open(File file, String[] includes, String[] excludes, FilenameFilter filter) throws IOException {
+        return read(new DdlArchive(file, filter, false), includes, excludes);
+    }
+
+    // Names and sizes of the selected scripts, the contents of tar entries are skipped
+    public static DdlArchive list(File file, String[] includes, String[] excludes, FilenameFilter filter) throws IOException {
+        return read(new DdlArchive(file, filter, true), includes, excludes);
+    }
+
+    private static DdlArchive read(DdlArchive archive, String[] includes, String[] excludes) throws IOException {
+        File file = archive.file;
+        String name = file.getName().toLowerCase();
+
+        try {
+            if (ZIP_SUFFIXES.stream().anyMatch(name::endsWith)) {
+                archive.readZip(includes, excludes);
+            } else if (TAR_SUFFIXES.stream().anyMatch(name::endsWith)) {
+                try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+                    archive.readTar(inputStream, includes, excludes);
+                }
+            } else if (TAR_GZ_SUFFIXES.stream().anyMatch(name::endsWith)) {
+                try (InputStream inputStream = new GZIPInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                    archive.readTar(inputStream, includes, excludes);
+                }
+            } else {
+                throw new IOException("Unsupported archive " + file.getAbsolutePath() + ", expected zip, jar, tar, tar.gz or tgz");
+            }
+        } catch (IOException e) {
+            archive.close();
+            throw e;
+        }
+        return archive;
+    }
+
+    public File getFile() {
+        return this.file;
+    }
+
+    public List<Script> getScripts() {
+        return this.scripts;
+    }
+
+    private void readZip(String[] includes, String[] excludes) throws IOException {
+        this.zipFile = new ZipFile(this.file);
+
+        // Names and sizes come from the central directory
+        Enumeration<? extends ZipEntry> entries = this.zipFile.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (!entry.isDirectory() && isIncluded(entry.getName(), includes, excludes)) {
+                this.addScript(new Script(this, entry.getName(), Math.max(entry.getSize(), 0)));
+            }
+        }
+    }
+
+    // Entries that are not selected are skipped by the tar stream, the selected ones are streamed to their files, so
+    // no more than a copy buffer of the archive is in memory
+    private void readTar(InputStream inputStream, String[] includes, String[] excludes) throws IOException {
+        TarArchiveInputStream tarInputStream = new TarArchiveInputStream(inputStream);
+        TarArchiveEntry entry;
+        while ((entry = tarInputStream.getNextTarEntry()) != null) {
+            if (entry.isFile() && isIncluded(entry.getName(), includes, excludes)
+                    && this.addScript(new Script(this, entry.getName(), entry.getSize())) && !this.listOnly) {
+                if (this.tarDir == null) {
+                    this.tarDir = Files.createTempDirectory("ddl-archive").toFile();
+                }
+                File tarFile = new File(this.tarDir, this.tarFiles.size() + ".sql");
+                Files.copy(tarInputStream, tarFile.toPath());
+                this.tarFiles.put(entry.getName(), tarFile);
+            }
+        }
+    }
+
+    private boolean addScript(Script script) {
+        if (this.filter != null && !this.filter.accept(script.getParentFile(), script.getName())) {
+            return false;
+        }
+        this.scripts.add(script);
+        return true;
+    }
+
+    private InputStream openStream(String entryName) throws IOException {
+        if (this.zipFile != null) {
+            ZipEntry entry = this.zipFile.getEntry(entryName);
+            if (entry == null) {
+                throw new IOException(entryName + " not found in " + this.file.getAbsolutePath());
+            }
+            return this.zipFile.getInputStream(entry);
+        }
+
+        File tarFile = this.tarFiles.get(entryName);
+        if (tarFile == null || this.listOnly) {
+            throw new IOException(entryName + " not found in " + this.file.getAbsolutePath());
+        }
+        return new BufferedInputStream(new FileInputStream(tarFile));
+    }
+
+    // Tar archives of a folder name the entries ./name
+    private static String normalize(String entryName) {
+        return entryName.startsWith("./") ? entryName.substring(2) : entryName;
+    }
+
+    static boolean isIncluded(String entryName, String[] includes, String[] excludes) {
+        String name = normalize(entryName);
+
+        boolean included = includes == null || includes.length == 0;
+        if (includes != null) {
+            for (String include : includes) {
+                included |= FilenameUtils.wildcardMatch(name, include, IOCase.INSENSITIVE);
+            }
+        }
+        if (included && excludes != null) {
+            for (String exclude : excludes) {
+                if (FilenameUtils.wildcardMatch(name, exclude, IOCase.INSENSITIVE)) {
+                    return false;
+                }
+            }
+        }
+        return included;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.tarFiles.clear();
+        if (this.tarDir != null) {
+            FileUtils.deleteQuietly(this.tarDir);
+            this.tarDir = null;
+        }
+        if (this.zipFile != null) {
+            this.zipFile.close();
+            this.zipFile = null;
+        }
+    }
+}
@@ -1,8 +1,15 @@
 package com.onevizion.maven.plugin.dbschema;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
+import com.onevizion.maven.plugin.dbschema.vo.DbObjectType;
 import com.onevizion.maven.plugin.dbschema.vo.FilterConfig;
 import gudusoft.gsqlparser.EConstraintType;
 import gudusoft.gsqlparser.nodes.TColumnDefinition;
@@ -32,12 +39,66 @@ public interface DdlParser {
 
     Collection<ViewColumnInfo> getViewColumnsInfos(String viewName);
 
+    Collection<ObjectDefinitionInfo> getObjectDefinitions(DbObjectType objectType);
+
+    Collection<String> getTablesWithPrimaryKeys();
+
+    Collection<String> getPrimaryKeyColumns(String tableName);
+
+    Collection<ForeignKeyInfo> getForeignKeys();
+
+    Collection<ForeignKeyInfo> getForeignKeys(String tableName);
+
+    Collection<String> getViewsWithBaseObjects();
+
+    Collection<String> getViewBaseObjects(String viewName);
+
+    Collection<String> getObjectsWithDependentViews();
+
+    Collection<String> getDependentViews(String objectName);
+
     void setFilterTables(FilterConfig filterTables);
 
     void setFilterViews(FilterConfig filterViews);
 
+    void setStreamingThreshold(long streamingThreshold);
+
+    void setGlobalLinking(boolean globalLinking);
+
+    void setReferenceScripts(Collection<File> referenceScripts);
+
+    void setParseTimeLimit(long parseTimeLimit);
+
+    void setParseExecutor(ExecutorService parseExecutor);
+
+    List<ParseTimeoutInfo> getParseTimeouts();
+
+    void setParseCosts(ParseCosts parseCosts);
+
+    ParseCosts getParseCosts();
+
+    ParseDiagnostics getDiagnostics();
+
     void doParse(Collection<File> fileCollection);
 
+    Collection<String> getTables();
+
+    Collection<String> getScriptTables(File file);
+
+    Collection<String> getScriptViews(File file);
+
+    Collection<ObjectDefinitionInfo> getScriptDefinitions(File file);
+
+    File getObjectScript(String objectName);
+
+    void removeScript(File file);
+
+    void saveShardIndex(File file) throws IOException;
+
+    void loadShardIndex(File file) throws IOException;
+
+    List<PackageInfo> parsePackageSpecs(Collection<File> fileCollection);
+
     interface ObjectInfo {
         String getObjectName();
     }
@@ -59,21 +120,26 @@ public interface DdlParser {
     }
 
     class ObjectInfoCommentInfo implements ObjectInfo, CommentInfo {
-        private TCommentOnSqlStmt commentStatement;
+        private String commentMessage;
         private final String objectName;
 
         protected ObjectInfoCommentInfo(TCommentOnSqlStmt commentStatement, String objectName) {
-            this.commentStatement = commentStatement;
+            this.setCommentStatement(commentStatement);
             this.objectName = DdlParserImpl.stripObjectName(objectName);
         }
 
         public void setCommentStatement(TCommentOnSqlStmt commentStatement) {
-            this.commentStatement = commentStatement;
+            // Only the text is kept, so the statement tree can be collected right after parsing
+            this.commentMessage = commentStatement != null ? commentStatement.getMessage().getValueToken().getTextWithoutQuoted() : null;
+        }
+
+        public void setCommentMessage(String commentMessage) {
+            this.commentMessage = commentMessage;
         }
 
         @Override
         public String getCommentMessage() {
-            return this.commentStatement != null ? this.commentStatement.getMessage().getValueToken().getTextWithoutQuoted() : "";
+            return this.commentMessage != null ? this.commentMessage : "";
         }
 
         @Override
@@ -83,23 +149,58 @@ public interface DdlParser {
     }
 
     class TableColumnInfo extends ObjectInfoCommentInfo implements ColumnInfo {
-        private final TColumnDefinition columnDefinition;
+        private final String columnName;
+        private final String dataType;
+        private final String nullable;
+        private final String dataDefault;
         private final int columnIndex;
 
         public TableColumnInfo(TCommentOnSqlStmt commentStatement, TColumnDefinition columnDefinition, int columnIndex) {
             super(commentStatement, columnDefinition.getColumnName().getSourceTable().getName());
-            this.columnDefinition = columnDefinition;
+            this.columnName = DdlParserImpl.stripObjectName(columnDefinition.getColumnName().getColumnNameOnly());
+            this.dataType = getDataType(columnDefinition);
+            this.nullable = getNullable(columnDefinition);
+            this.dataDefault = getDataDefault(columnDefinition);
+            this.columnIndex = columnIndex;
+        }
+
+        TableColumnInfo(String tableName, String columnName, String dataType, String nullable, String dataDefault,
+                        int columnIndex) {
+            super(null, tableName);
+            this.columnName = columnName;
+            this.dataType = dataType;
+            this.nullable = nullable;
+            this.dataDefault = dataDefault;
             this.columnIndex = columnIndex;
         }
 
         @Override
         public String getColumnName() {
-            return DdlParserImpl.stripObjectName(this.columnDefinition.getColumnName().getColumnNameOnly());
+            return this.columnName;
         }
 
         @Override
         public String getDataType() {
-            TTypeName typeName = this.columnDefinition.getDatatype();
+            return this.dataType;
+        }
+
+        @Override
+        public String getNullable() {
+            return this.nullable;
+        }
+
+        @Override
+        public String getDataDefault() {
+            return this.dataDefault;
+        }
+
+        @Override
+        public String getColumnId() {
+            return String.valueOf(this.columnIndex);
+        }
+
+        private static String getDataType(TColumnDefinition columnDefinition) {
+            TTypeName typeName = columnDefinition.getDatatype();
             String suffix = "";
 
             if (typeName.getLength() != null) {
@@ -112,10 +213,9 @@ public interface DdlParser {
             return DdlParserImpl.stripDataType(typeName.getDataType().name().toUpperCase()) + suffix;
         }
 
-        @Override
-        public String getNullable() {
+        private static String getNullable(TColumnDefinition columnDefinition) {
             String value = "Yes";
-            TConstraintList constraintList = this.columnDefinition.getConstraints();
+            TConstraintList constraintList = columnDefinition.getConstraints();
 
             if (constraintList != null) {
                 for (int index = 0; index < constraintList.size(); index++) {
@@ -132,46 +232,82 @@ public interface DdlParser {
             return value;
         }
 
-        @Override
-        public String getDataDefault() {
-            TExpression expression = this.columnDefinition.getDefaultExpression();
+        private static String getDataDefault(TColumnDefinition columnDefinition) {
+            TExpression expression = columnDefinition.getDefaultExpression();
             return expression != null ? expression.toString() : "null";
         }
-
-        @Override
-        public String getColumnId() {
-            return String.valueOf(this.columnIndex);
-        }
     }
 
     class ViewColumnInfo extends ObjectInfoCommentInfo implements ColumnInfo {
-        private final TViewAliasItem viewAliasItem;
+        private final String columnName;
         private final int columnIndex;
 
+        // The select list expression of a column that passes a column of one of these objects through
+        private List<String> sourceObjectNames = Collections.emptyList();
+        private String sourceColumnName;
+        private Set<String> nullableSourceKeys = Collections.emptySet();
+        private TableColumnInfo baseColumn;
+        private boolean nullable;
+
         public ViewColumnInfo(TCommentOnSqlStmt commentStatement, String viewName, TViewAliasItem viewAliasItem, int columnIndex) {
             super(commentStatement, viewName);
-            this.viewAliasItem = viewAliasItem;
+            this.columnName = DdlParserImpl.stripObjectName(viewAliasItem.getAlias().getObjectString());
             this.columnIndex = columnIndex;
         }
 
         @Override
         public String getColumnName() {
-            return DdlParserImpl.stripObjectName(this.viewAliasItem.getAlias().getObjectString());
+            return this.columnName;
+        }
+
+        public void setSource(List<String> sourceObjectNames, String sourceColumnName) {
+            this.sourceObjectNames = sourceObjectNames;
+            this.sourceColumnName = sourceColumnName;
+        }
+
+        public List<String> getSourceObjectNames() {
+            return this.sourceObjectNames;
+        }
+
+        public String getSourceColumnName() {
+            return this.sourceColumnName;
+        }
+
+        // Objects of an outer join or a union, their columns may be null in the view
+        public void setNullableSources(Set<String> nullableSourceKeys) {
+            this.nullableSourceKeys = nullableSourceKeys;
+        }
+
+        public boolean isNullableSource(String sourceObjectName) {
+            return this.nullableSourceKeys.contains(ParsedSchema.objectKey(sourceObjectName));
+        }
+
+        public TableColumnInfo getBaseColumn() {
+            return this.baseColumn;
+        }
+
+        public void setBaseColumn(TableColumnInfo baseColumn, boolean nullable) {
+            this.baseColumn = baseColumn;
+            this.nullable = nullable;
         }
 
         @Override
         public String getDataType() {
-            throw new UnsupportedOperationException();
+            return this.baseColumn != null ? this.baseColumn.getDataType() : null;
         }
 
         @Override
         public String getNullable() {
-            throw new UnsupportedOperationException();
+            if (this.baseColumn == null) {
+                return null;
+            }
+            return this.nullable ? "Yes" : this.baseColumn.getNullable();
         }
 
+        // Views have no column defaults
         @Override
         public String getDataDefault() {
-            throw new UnsupportedOperationException();
+            return null;
         }
 
         @Override
@@ -180,7 +316,175 @@ public interface DdlParser {
         }
     }
 
+    class ForeignKeyInfo {
+        private final String tableName;
+        private final List<String> columnNames;
+        private final String referencedTableName;
+        private final List<String> referencedColumnNames;
+
+        public ForeignKeyInfo(String tableName, List<String> columnNames, String referencedTableName,
+                              List<String> referencedColumnNames) {
+            this.tableName = tableName;
+            this.columnNames = columnNames;
+            this.referencedTableName = referencedTableName;
+            this.referencedColumnNames = referencedColumnNames;
+        }
+
+        public String getTableName() {
+            return this.tableName;
+        }
+
+        public List<String> getColumnNames() {
+            return this.columnNames;
+        }
+
+        public String getReferencedTableName() {
+            return this.referencedTableName;
+        }
+
+        public List<String> getReferencedColumnNames() {
+            return this.referencedColumnNames;
+        }
+    }
+
+    class ObjectDefinitionInfo implements ObjectInfo {
+        private final String objectName;
+        private final DbObjectType objectType;
+        private final String tableName;
+        private final Map<String, String> properties;
+        private final String definition;
+
+        public ObjectDefinitionInfo(String objectName, DbObjectType objectType, String tableName,
+                                    Map<String, String> properties, String definition) {
+            this.objectName = objectName;
+            this.objectType = objectType;
+            this.tableName = tableName;
+            this.properties = properties;
+            this.definition = definition;
+        }
+
+        @Override
+        public String getObjectName() {
+            return this.objectName;
+        }
+
+        public DbObjectType getObjectType() {
+            return this.objectType;
+        }
+
+        public String getTableName() {
+            return this.tableName;
+        }
+
+        public Map<String, String> getProperties() {
+            return this.properties;
+        }
+
+        public String getDefinition() {
+            return this.definition;
+        }
+    }
+
+    class PackageInfo implements ObjectInfo, CommentInfo {
+        private final String objectName;
+        private final String commentMessage;
+        private final List<PackageMemberInfo> members;
+
+        public PackageInfo(String objectName, String commentMessage, List<PackageMemberInfo> members) {
+            this.objectName = objectName;
+            this.commentMessage = commentMessage;
+            this.members = members;
+        }
+
+        @Override
+        public String getObjectName() {
+            return this.objectName;
+        }
+
+        @Override
+        public String getCommentMessage() {
+            return this.commentMessage != null ? this.commentMessage : "";
+        }
+
+        public List<PackageMemberInfo> getMembers() {
+            return this.members;
+        }
+    }
+
+    class ParseTimeoutInfo {
+        private final File file;
+        private final long fileSize;
+        private final int statementLine;
+        private final String statement;
+        private final long elapsedTime;
+
+        public ParseTimeoutInfo(File file, long fileSize, int statementLine, String statement, long elapsedTime) {
+            this.file = file;
+            this.fileSize = fileSize;
+            this.statementLine = statementLine;
+            this.statement = statement;
+            this.elapsedTime = elapsedTime;
+        }
+
+        public File getFile() {
+            return this.file;
+        }
+
+        public long getFileSize() {
+            return this.fileSize;
+        }
+
+        public int getStatementLine() {
+            return this.statementLine;
+        }
+
+        public String getStatement() {
+            return this.statement;
+        }
+
+        public long getElapsedTime() {
+            return this.elapsedTime;
+        }
+    }
+
+    class PackageMemberInfo implements CommentInfo {
+        private final String memberName;
+        private final String memberType;
+        private final String declaration;
+        private String commentMessage;
+
+        public PackageMemberInfo(String memberName, String memberType, String declaration, String commentMessage) {
+            this.memberName = memberName;
+            this.memberType = memberType;
+            this.declaration = declaration;
+            this.commentMessage = commentMessage;
+        }
+
+        public String getMemberName() {
+            return this.memberName;
+        }
+
+        public String getMemberType() {
+            return this.memberType;
+        }
+
+        public String getDeclaration() {
+            return this.declaration;
+        }
+
+        public void setCommentMessage(String commentMessage) {
+            this.commentMessage = commentMessage;
+        }
+
+        @Override
+        public String getCommentMessage() {
+            return this.commentMessage != null ? this.commentMessage : "";
+        }
+    }
+
     interface ParseFileCompleteCallback {
         void parseFileCompelete(File file);
+
+        void parseFilesComplete(Collection<File> files);
     }
 }
@@ -1,40 +1,185 @@
 package com.onevizion.maven.plugin.dbschema;
 
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.onevizion.maven.plugin.dbschema.event.ParseFileEvent;
 import com.onevizion.maven.plugin.dbschema.vo.DbObjectType;
 import com.onevizion.maven.plugin.dbschema.vo.FilterConfig;
 import gudusoft.gsqlparser.*;
 import gudusoft.gsqlparser.nodes.TColumnDefinition;
 import gudusoft.gsqlparser.nodes.TColumnDefinitionList;
+import gudusoft.gsqlparser.nodes.TCTE;
+import gudusoft.gsqlparser.nodes.TConstraint;
+import gudusoft.gsqlparser.nodes.TConstraintList;
+import gudusoft.gsqlparser.nodes.TExpression;
+import gudusoft.gsqlparser.nodes.TJoin;
+import gudusoft.gsqlparser.nodes.TJoinItem;
+import gudusoft.gsqlparser.nodes.TObjectName;
+import gudusoft.gsqlparser.nodes.TObjectNameList;
+import gudusoft.gsqlparser.nodes.TOrderByItemList;
+import gudusoft.gsqlparser.nodes.TPTNodeList;
+import gudusoft.gsqlparser.nodes.TResultColumnList;
+import gudusoft.gsqlparser.nodes.TTable;
 import gudusoft.gsqlparser.nodes.TViewAliasItem;
 import gudusoft.gsqlparser.nodes.TViewAliasItemList;
 import gudusoft.gsqlparser.stmt.TCommentOnSqlStmt;
+import gudusoft.gsqlparser.stmt.TCreateIndexSqlStatement;
+import gudusoft.gsqlparser.stmt.TCreateSequenceStmt;
 import gudusoft.gsqlparser.stmt.TCreateTableSqlStatement;
 import gudusoft.gsqlparser.stmt.TCreateViewSqlStatement;
+import gudusoft.gsqlparser.stmt.TSelectSqlStatement;
+import gudusoft.gsqlparser.stmt.oracle.TPlsqlCreatePackage;
+import gudusoft.gsqlparser.stmt.oracle.TPlsqlCreateTrigger;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOCase;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 public class DdlParserImpl implements DdlParser {
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
-    private final Multimap<String, TableColumnInfo> tableColumnsInfos = ArrayListMultimap.create();
-    private final Multimap<String, ViewColumnInfo> viewColumnsInfos = ArrayListMultimap.create();
+    private static final Pattern PACKAGE_BODY_PATTERN = Pattern.compile(
+            "^\\s*CREATE\\s+(OR\\s+REPLACE\\s+)?((NON)?EDITIONABLE\\s+)?PACKAGE\\s+BODY\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PACKAGE_MEMBER_PATTERN = Pattern.compile(
+            "^(PROCEDURE|FUNCTION|TYPE|SUBTYPE|CURSOR|PRAGMA)\\s+(\"[^\"]+\"|[\\w$#]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PACKAGE_DECLARATION_PATTERN = Pattern.compile(
+            "^(\"[^\"]+\"|[\\w$#]+)\\s+(CONSTANT|EXCEPTION)?", Pattern.CASE_INSENSITIVE);
+    private static final Pattern INDEX_TYPE_PATTERN = Pattern.compile(
+            "^\\s*CREATE\\s+(UNIQUE|BITMAP)?", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SEQUENCE_OPTION_PATTERN = Pattern.compile(
+            "\\b(START\\s+WITH|INCREMENT\\s+BY|MINVALUE|MAXVALUE|CACHE|NOCACHE|CYCLE|NOCYCLE|ORDER|NOORDER)\\b(?:\\s+(-?\\d+))?",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern TRIGGER_HEADER_PATTERN = Pattern.compile(
+            "\\b(BEFORE|AFTER|INSTEAD\\s+OF|FOR)\\s+(.+?)\\s+ON\\s+((?:\"[^\"]+\"|[\\w$#]+)(?:\\.(?:\"[^\"]+\"|[\\w$#]+))?)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern SOURCE_COMMENT_PATTERN = Pattern.compile("/\\*(.*?)\\*/|--([^\\n]*)", Pattern.DOTALL);
+    private static final Pattern CREATE_OBJECT_PATTERN = Pattern.compile(
+            "^(?:\\s|--[^\\n]*+|/\\*.*?\\*/)*+CREATE\\s+(OR\\s+REPLACE\\s+)?((GLOBAL|PRIVATE)\\s+TEMPORARY\\s+|(NO\\s+)?FORCE\\s+|"
+                    + "(NON)?EDITIONABLE\\s+|EDITIONING\\s+)*(TABLE|VIEW)\\s+((\"[^\"]+\"|[\\w$#]+)\\s*\\.\\s*)?(\"[^\"]+\"|[\\w$#]+)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern ORACLE_OUTER_JOIN_PATTERN = Pattern.compile(
+            "(\"[^\"]+\"|[\\w$#]+)\\s*\\.\\s*(?:\"[^\"]+\"|[\\w$#]+)\\s*\\(\\s*\\+\\s*\\)");
 
-    private final Map<String, ObjectInfoCommentInfo> tablesComments = Maps.newHashMap();
-    private final Map<String, ObjectInfoCommentInfo> viewsComments = Maps.newHashMap();
+    private static final Set<EJoinType> LEFT_JOIN_TYPES = EnumSet.of(EJoinType.left, EJoinType.leftouter,
+            EJoinType.natural_left, EJoinType.natural_leftouter, EJoinType.outerapply);
+    private static final Set<EJoinType> RIGHT_JOIN_TYPES = EnumSet.of(EJoinType.right, EJoinType.rightouter,
+            EJoinType.natural_right, EJoinType.natural_rightouter);
+    private static final Set<EJoinType> FULL_JOIN_TYPES = EnumSet.of(EJoinType.full, EJoinType.fullouter,
+            EJoinType.natural_full, EJoinType.natural_fullouter);
+
+    // Keys are kept for the whole run, foreign keys usually point to tables from other scripts
+    private static final String SHARD_PRIMARY_KEY = "PK";
+    private static final String SHARD_FOREIGN_KEY = "FK";
+    private static final String SHARD_BASE_OBJECT = "BASE";
+    private static final String SHARD_TABLE = "TABLE";
+
+    private final ParsedSchema schema = new ParsedSchema();
+    private ParsedSchema current = new ParsedSchema();
+
+    // Objects by the script that defined them, a script that is parsed again or deleted takes its old objects along
+    private final Multimap<File, String> scriptTables = LinkedHashMultimap.create();
+    private final Multimap<File, String> scriptViews = LinkedHashMultimap.create();
+    private final Multimap<File, ObjectDefinitionInfo> scriptDefinitions = ArrayListMultimap.create();
+    private final Map<String, File> objectScripts = Maps.newHashMap();
+
+    // Scripts that are not parsed, e.g. of the other shards, only the tables and views that views of the parsed
+    // scripts are over are taken from them. Indexed by object on the first view column they are needed for
+    private Collection<File> referenceScripts = Collections.emptyList();
+    private Multimap<String, File> referenceObjectScripts;
 
     private FilterConfig filterTables = null;
     private FilterConfig filterViews = null;
     private ParseFileCompleteCallback parseFileCompleteCallback;
+    private long streamingThreshold = Long.MAX_VALUE;
+    private boolean globalLinking = false;
+    private long parseTimeLimit = 0;
+    private ParseCosts parseCosts = new ParseCosts();
+
+    // Scripts of the last doParse that ran out of the parse time limit. Their parser threads are abandoned, the
+    // parser can not be stopped in the middle of a statement. The pool is bounded, so scripts that hang the parser
+    // again and again in watch or serve can not pile up threads, the abandoned ones are counted until they end
+    private final List<ParseTimeoutInfo> parseTimeouts = Collections.synchronizedList(Lists.newArrayList());
+    private final ParseDiagnostics diagnostics = new ParseDiagnostics(ParseDiagnostics.DEFAULT_MAX_DETAILS);
+    private final AtomicInteger abandonedParseCount = new AtomicInteger();
+    private ExecutorService parseExecutor = newParseExecutor(Runtime.getRuntime().availableProcessors() + 1);
+
+    private static final int MAX_REPORTED_STATEMENT_LENGTH = 2000;
+    private static final int MAX_ABANDONED_PARSES = 8;
+    private static final int PARSE_AHEAD_SCRIPTS_PER_THREAD = 2;
+
+    private static class ParseProgress {
+        private static final int RUNNING = 0;
+        private static final int DONE = 1;
+        private static final int ABANDONED = 2;
+
+        private volatile int statementLine = 1;
+        private volatile String statement;
+        private final AtomicInteger state = new AtomicInteger(RUNNING);
+    }
+
+    private interface StatementHandler {
+        void handle(TCustomSqlStatement statement, ParsedSchema script);
+    }
+
+    // Every statement of a script goes through this table once, the handlers collect all documented object types
+    private final Map<Class<?>, StatementHandler> statementHandlers = new ConcurrentHashMap<>();
+
+    public DdlParserImpl() {
+        this.statementHandlers.put(TCreateTableSqlStatement.class,
+                (statement, script) -> this.parseCreateTable((TCreateTableSqlStatement) statement, script));
+        this.statementHandlers.put(TCreateViewSqlStatement.class,
+                (statement, script) -> this.parseCreateView((TCreateViewSqlStatement) statement, script));
+        this.statementHandlers.put(TCommentOnSqlStmt.class,
+                (statement, script) -> this.parseComment((TCommentOnSqlStmt) statement, script));
+        this.statementHandlers.put(TCreateIndexSqlStatement.class,
+                (statement, script) -> this.parseCreateIndex((TCreateIndexSqlStatement) statement, script));
+        this.statementHandlers.put(TCreateSequenceStmt.class,
+                (statement, script) -> this.parseCreateSequence((TCreateSequenceStmt) statement, script));
+        this.statementHandlers.put(TPlsqlCreateTrigger.class,
+                (statement, script) -> this.parseCreateTrigger((TPlsqlCreateTrigger) statement, script));
+    }
 
     @Override
     public void setParseFileCompleteCallback(ParseFileCompleteCallback callback) {
@@ -53,71 +198,743 @@ public class DdlParserImpl implements DdlParser {
 
     @Override
     public Collection<ObjectInfoCommentInfo> getTablesComments() {
-        return this.tablesComments.values();
+        return this.current.tablesComments.values();
     }
 
     @Override
     public ObjectInfoCommentInfo getTableComment(String tableName) {
-        return this.tablesComments.get(tableName);
+        return this.current.tablesComments.get(tableName);
     }
 
     @Override
     public Collection<ObjectInfoCommentInfo> getViewsComments() {
-        return this.viewsComments.values();
+        return this.current.viewsComments.values();
     }
 
     @Override
     public ObjectInfoCommentInfo getViewComment(String viewName) {
-        return this.viewsComments.get(viewName);
+        return this.current.viewsComments.get(viewName);
     }
 
     @Override
     public Collection<TableColumnInfo> getTablesColumnsInfos() {
-        return this.tableColumnsInfos.values();
+        return this.current.tableColumnsInfos.values();
     }
 
     @Override
     public Collection<TableColumnInfo> getTableColumnsInfos(String tableName) {
-        return this.tableColumnsInfos.get(tableName);
+        return this.current.tableColumnsInfos.get(tableName);
     }
 
     @Override
     public Collection<ViewColumnInfo> getViewsColumnsInfos() {
-        return this.viewColumnsInfos.values();
+        return this.current.viewColumnsInfos.values();
     }
 
     @Override
     public Collection<ViewColumnInfo> getViewColumnsInfos(String viewName) {
-        return this.viewColumnsInfos.get(viewName);
+        return this.current.viewColumnsInfos.get(viewName);
+    }
+
+    @Override
+    public Collection<ObjectDefinitionInfo> getObjectDefinitions(DbObjectType objectType) {
+        return this.current.objectDefinitions.row(objectType).values();
+    }
+
+    @Override
+    public Collection<String> getTablesWithPrimaryKeys() {
+        return this.schema.primaryKeyColumns.keySet();
+    }
+
+    @Override
+    public Collection<String> getPrimaryKeyColumns(String tableName) {
+        return this.schema.primaryKeyColumns.get(tableName);
+    }
+
+    @Override
+    public Collection<ForeignKeyInfo> getForeignKeys() {
+        return this.schema.foreignKeys.values();
+    }
+
+    @Override
+    public Collection<ForeignKeyInfo> getForeignKeys(String tableName) {
+        return this.schema.foreignKeys.get(tableName);
+    }
+
+    @Override
+    public Collection<String> getViewsWithBaseObjects() {
+        return this.schema.viewBaseObjects.keySet();
+    }
+
+    @Override
+    public Collection<String> getViewBaseObjects(String viewName) {
+        return this.schema.viewBaseObjects.get(ParsedSchema.objectKey(viewName));
+    }
+
+    @Override
+    public Collection<String> getObjectsWithDependentViews() {
+        return this.schema.dependentViews.keySet();
+    }
+
+    @Override
+    public Collection<String> getDependentViews(String objectName) {
+        return this.schema.dependentViews.get(ParsedSchema.objectKey(objectName));
+    }
+
+    @Override
+    public void setStreamingThreshold(long streamingThreshold) {
+        this.streamingThreshold = streamingThreshold;
+    }
+
+    @Override
+    public void setReferenceScripts(Collection<File> referenceScripts) {
+        this.referenceScripts = referenceScripts;
+    }
+
+    @Override
+    public void setGlobalLinking(boolean globalLinking) {
+        this.globalLinking = globalLinking;
+    }
+
+    @Override
+    public void setParseTimeLimit(long parseTimeLimit) {
+        this.parseTimeLimit = parseTimeLimit;
+    }
+
+    // Callers that parse several schemas at once share one pool, so the bound holds for all of them
+    @Override
+    public void setParseExecutor(ExecutorService parseExecutor) {
+        this.parseExecutor = parseExecutor;
+    }
+
+    public static ExecutorService newParseExecutor(int parallelism) {
+        return new ThreadPoolExecutor(0, parallelism + MAX_ABANDONED_PARSES, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "ddl-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void setParseCosts(ParseCosts parseCosts) {
+        this.parseCosts = parseCosts;
+    }
+
+    @Override
+    public ParseCosts getParseCosts() {
+        return this.parseCosts;
+    }
+
+    @Override
+    public ParseDiagnostics getDiagnostics() {
+        return this.diagnostics;
+    }
+
+    @Override
+    public List<ParseTimeoutInfo> getParseTimeouts() {
+        synchronized (this.parseTimeouts) {
+            return new ArrayList<>(this.parseTimeouts);
+        }
+    }
+
+    // Tables of all parsed scripts, mergeSite gets them from the shard indexes
+    @Override
+    public Collection<String> getTables() {
+        return Sets.newLinkedHashSet(this.scriptTables.values());
+    }
+
+    @Override
+    public Collection<String> getScriptTables(File file) {
+        return this.scriptTables.get(file);
+    }
+
+    @Override
+    public Collection<String> getScriptViews(File file) {
+        return this.scriptViews.get(file);
+    }
+
+    @Override
+    public Collection<ObjectDefinitionInfo> getScriptDefinitions(File file) {
+        return this.scriptDefinitions.get(file);
+    }
+
+    @Override
+    public File getObjectScript(String objectName) {
+        return this.objectScripts.get(ParsedSchema.objectKey(objectName));
+    }
+
+    @Override
+    public void removeScript(File file) {
+        for (String objectName : Sets.newLinkedHashSet(this.scriptTables.removeAll(file))) {
+            this.removeScriptObject(file, objectName);
+        }
+        for (String objectName : Sets.newLinkedHashSet(this.scriptViews.removeAll(file))) {
+            this.removeScriptObject(file, objectName);
+        }
+        for (ObjectDefinitionInfo definitionInfo : this.scriptDefinitions.removeAll(file)) {
+            this.schema.objectDefinitions.remove(definitionInfo.getObjectType(), definitionInfo.getObjectName());
+        }
+    }
+
+    // An object that moved to another script stays
+    private void removeScriptObject(File file, String objectName) {
+        if (file.equals(this.objectScripts.get(ParsedSchema.objectKey(objectName)))) {
+            this.objectScripts.remove(ParsedSchema.objectKey(objectName));
+            this.schema.dropObject(objectName);
+        }
+    }
+
+    private void addScriptObjects(File file, ParsedSchema script) {
+        this.removeScript(file);
+        this.scriptTables.putAll(file, script.tableColumnsInfos.keySet());
+        this.scriptViews.putAll(file, script.viewColumnsInfos.keySet());
+        this.scriptDefinitions.putAll(file, script.objectDefinitions.values());
+        for (String objectName : Sets.union(script.tableColumnsInfos.keySet(), script.viewColumnsInfos.keySet())) {
+            this.objectScripts.put(ParsedSchema.objectKey(objectName), file);
+        }
+    }
+
+    // Keys and lineage of the scripts of one shard, mergeSite joins them for the parts of the site that need all scripts
+    @Override
+    public void saveShardIndex(File file) throws IOException {
+        List<String> lines = Lists.newArrayList();
+        for (String tableName : this.getTables()) {
+            lines.add(String.join("\t", SHARD_TABLE, tableName));
+        }
+        for (Map.Entry<String, Collection<String>> entry : this.schema.primaryKeyColumns.asMap().entrySet()) {
+            lines.add(String.join("\t", SHARD_PRIMARY_KEY, entry.getKey(), String.join(",", entry.getValue())));
+        }
+        for (ForeignKeyInfo foreignKeyInfo : this.schema.foreignKeys.values()) {
+            lines.add(String.join("\t", SHARD_FOREIGN_KEY, foreignKeyInfo.getTableName(),
+                    String.join(",", foreignKeyInfo.getColumnNames()), foreignKeyInfo.getReferencedTableName(),
+                    String.join(",", foreignKeyInfo.getReferencedColumnNames())));
+        }
+        for (Map.Entry<String, String> entry : this.schema.viewBaseObjects.entries()) {
+            lines.add(String.join("\t", SHARD_BASE_OBJECT, entry.getKey(), entry.getValue()));
+        }
+        FileUtils.writeLines(file, StandardCharsets.UTF_8.name(), lines, "\n");
+    }
+
+    @Override
+    public void loadShardIndex(File file) throws IOException {
+        for (String line : FileUtils.readLines(file, StandardCharsets.UTF_8)) {
+            String[] parts = line.split("\t");
+            if (parts.length == 3 && SHARD_PRIMARY_KEY.equals(parts[0])) {
+                this.schema.primaryKeyColumns.putAll(parts[1], Arrays.asList(parts[2].split(",")));
+            } else if (parts.length == 5 && SHARD_FOREIGN_KEY.equals(parts[0])) {
+                this.schema.foreignKeys.put(parts[1], new ForeignKeyInfo(parts[1], Arrays.asList(parts[2].split(",")),
+                        parts[3], Arrays.asList(parts[4].split(","))));
+            } else if (parts.length == 3 && SHARD_BASE_OBJECT.equals(parts[0])) {
+                this.schema.addViewBaseObject(parts[1], parts[2]);
+            } else if (parts.length == 2 && SHARD_TABLE.equals(parts[0])) {
+                this.scriptTables.put(file, parts[1]);
+            }
+        }
     }
 
     @Override
     public void doParse(Collection<File> fileCollection) {
-        for (File file : fileCollection) {
-            logger.debug("Parsing ddl script: " + file.getAbsolutePath());
+        this.parseTimeouts.clear();
 
-            TGSqlParser parser = new TGSqlParser(EDbVendor.dbvoracle);
+        if (this.globalLinking) {
+            this.doParseGlobal(new ArrayList<>(fileCollection));
+            return;
+        }
 
-            parser.setSqlfilename(file.getAbsolutePath());
+        // The next window of scripts is parsed on the pool while the scripts of the current one are linked and handed
+        // to the callback in their order, so no more than two windows of parsed scripts are held at a time
+        List<File> files = new ArrayList<>(fileCollection);
+        int window = Math.max(1, (ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool() : ForkJoinPool.commonPool())
+                .getParallelism() * PARSE_AHEAD_SCRIPTS_PER_THREAD);
 
-            if (parser.parse() != 0) {
-                TSyntaxError syntaxError = parser.getSyntaxErrors().get(0);
-                logger.error("Syntax error near \"{}\", line {}, column {} at {}", syntaxError.tokentext, syntaxError.lineNo, syntaxError.columnNo, file.getAbsolutePath());
+        // Scripts with view columns over objects of scripts not parsed yet are held back until the last script
+        Map<File, ParsedSchema> unresolvedScripts = Maps.newLinkedHashMap();
+        int unresolvedCount = 0;
+        ForkJoinTask<List<ParsedSchema>> nextScripts = this.parseAhead(files, 0, window);
+        try {
+            for (int start = 0; start < files.size(); start += window) {
+                List<ParsedSchema> scripts = nextScripts.join();
+                nextScripts = this.parseAhead(files, start + window, window);
 
-                continue;
+                for (int index = 0; index < scripts.size(); index++) {
+                    File file = files.get(start + index);
+                    ParsedSchema script = scripts.get(index);
+
+                    if (script != null) {
+                        this.addScriptObjects(file, script);
+                        script.linkColumnComments(this.diagnostics);
+                        this.schema.mergeIndexes(script);
+
+                        int count = this.schema.resolveViewColumns(script);
+                        if (count > 0) {
+                            unresolvedScripts.put(file, script);
+                            unresolvedCount += count;
+                        } else {
+                            this.notifyParseFileComplete(file, script);
+                        }
+                    }
+                }
             }
+        } finally {
+            // A callback that failed leaves the next window parsing, it is done before the caller closes the scripts
+            if (nextScripts != null) {
+                nextScripts.quietlyJoin();
+            }
+        }
+
+        // Retried while they resolve more columns, views over views of later scripts take several rounds
+        unresolvedCount = this.resolveViewColumns(unresolvedScripts.values(), unresolvedCount);
+
+        // The rest may be over objects of the reference scripts, their columns are the same as in a run over all
+        // scripts once the definitions of these objects and of the objects they are over in turn are parsed
+        this.referenceObjectScripts = null;
+        List<ParsedSchema> referencedObjects = Lists.newArrayList();
+        while (unresolvedCount > 0 && this.parseReferencedObjects(
+                Iterables.concat(unresolvedScripts.values(), referencedObjects), referencedObjects)) {
+            this.resolveViewColumns(referencedObjects, Integer.MAX_VALUE);
+            unresolvedCount = this.resolveViewColumns(unresolvedScripts.values(), Integer.MAX_VALUE);
+        }
+
+        for (Map.Entry<File, ParsedSchema> entry : unresolvedScripts.entrySet()) {
+            this.notifyParseFileComplete(entry.getKey(), entry.getValue());
+        }
+    }
 
-            this.parseStatements(parser.getSqlstatements());
+    private int resolveViewColumns(Collection<ParsedSchema> scripts, int unresolvedCount) {
+        while (!scripts.isEmpty()) {
+            int count = 0;
+            for (ParsedSchema script : scripts) {
+                count += this.schema.resolveViewColumns(script);
+            }
+            if (count == 0 || count >= unresolvedCount) {
+                return count;
+            }
+            unresolvedCount = count;
+        }
+        return 0;
+    }
 
+    private boolean parseReferencedObjects(Iterable<ParsedSchema> scripts, List<ParsedSchema> referencedObjects) {
+        if (this.referenceObjectScripts == null) {
+            this.referenceObjectScripts = this.indexReferenceScripts();
+        }
+
+        // Every object is taken once, so the rounds end when no script has anything left to give
+        Multimap<File, String> fileObjectKeys = LinkedHashMultimap.create();
+        for (ParsedSchema script : scripts) {
+            for (String objectKey : script.getUnresolvedSourceObjects()) {
+                for (File file : this.referenceObjectScripts.removeAll(objectKey)) {
+                    fileObjectKeys.put(file, objectKey);
+                }
+            }
+        }
+        for (Map.Entry<File, Collection<String>> entry : fileObjectKeys.asMap().entrySet()) {
+            referencedObjects.add(this.parseReferencedObjects(entry.getKey(), entry.getValue()));
+        }
+        return !fileObjectKeys.isEmpty();
+    }
+
+    // The statements are only split, not parsed, so this costs a read of the scripts
+    private Multimap<String, File> indexReferenceScripts() {
+        Multimap<String, File> objectScripts = LinkedHashMultimap.create();
+        for (File file : this.referenceScripts) {
+            try (DdlStatementReader reader = openStatementReader(file)) {
+                String statement;
+                while ((statement = reader.nextStatement()) != null) {
+                    String objectKey = getCreatedObjectKey(statement);
+                    if (objectKey != null) {
+                        objectScripts.put(objectKey, file);
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Can not read {} for the objects it creates: {}", file.getAbsolutePath(), e.getLocalizedMessage());
+            }
+        }
+        logger.debug("{} tables and views in {} reference scripts", objectScripts.keySet().size(), this.referenceScripts.size());
+        return objectScripts;
+    }
+
+    // Only the definitions of the objects are parsed. Errors and costs are those of the run that parses the script
+    private ParsedSchema parseReferencedObjects(File file, Collection<String> objectKeys) {
+        logger.debug("Parsing {} of reference script: {}", objectKeys, file.getAbsolutePath());
+
+        ParsedSchema script = new ParsedSchema();
+        script.file = file;
+        TGSqlParser parser = new TGSqlParser(EDbVendor.dbvoracle);
+        try (DdlStatementReader reader = openStatementReader(file)) {
+            String statement;
+            while ((statement = reader.nextStatement()) != null) {
+                if (objectKeys.contains(getCreatedObjectKey(statement))) {
+                    parser.sqltext = statement;
+                    if (parser.parse() == 0) {
+                        this.parseStatements(parser.getSqlstatements(), script);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Can not read {} for the objects it creates: {}", file.getAbsolutePath(), e.getLocalizedMessage());
+        }
+        return script;
+    }
+
+    private static String getCreatedObjectKey(String statement) {
+        Matcher matcher = CREATE_OBJECT_PATTERN.matcher(statement);
+        return matcher.lookingAt() ? ParsedSchema.objectKey(stripObjectName(matcher.group(9))) : null;
+    }
+
+    private static DdlStatementReader openStatementReader(File file) throws IOException {
+        return file instanceof DdlArchive.Script
+                ? new DdlStatementReader(((DdlArchive.Script) file).openStream()) : new DdlStatementReader(file);
+    }
+
+    // Parsing only touches the script it builds, so it runs beside the linking of the scripts before it
+    private ForkJoinTask<List<ParsedSchema>> parseAhead(List<File> files, int start, int window) {
+        if (start >= files.size()) {
+            return null;
+        }
+        List<File> windowFiles = files.subList(start, Math.min(start + window, files.size()));
+        ForkJoinTask<List<ParsedSchema>> task = ForkJoinTask.adapt(() -> this.parseScheduled(windowFiles, this::parseFile));
+        return ForkJoinTask.inForkJoinPool() ? task.fork() : ForkJoinPool.commonPool().submit(task);
+    }
+
+    private void notifyParseFileComplete(File file, ParsedSchema script) {
+        this.current = script;
+
+        // Notifying
+        this.parseFileCompleteCallback.parseFileCompelete(file);
+
+        // Clear data
+        this.current = new ParsedSchema();
+    }
+
+    // All scripts are collected before comments are linked, so a comment may come before its object or from
+    // another script, and the scripts can be parsed in parallel
+    private void doParseGlobal(List<File> files) {
+        List<ParsedSchema> scripts = this.parseScheduled(files, this::parseFile);
+
+        List<File> parsedFiles = Lists.newArrayList();
+        for (int index = 0; index < files.size(); index++) {
+            if (scripts.get(index) != null) {
+                this.addScriptObjects(files.get(index), scripts.get(index));
+                this.schema.merge(scripts.get(index));
+                parsedFiles.add(files.get(index));
+            }
+        }
+
+        this.schema.linkColumnComments(this.diagnostics);
+        this.schema.clearBaseColumns();
+        this.schema.resolveViewColumns(this.schema);
+        this.current = this.schema;
+
+        if (!parsedFiles.isEmpty()) {
             // Notifying
-            this.parseFileCompleteCallback.parseFileCompelete(file);
+            this.parseFileCompleteCallback.parseFilesComplete(parsedFiles);
+        }
+    }
+
+    @Override
+    public List<PackageInfo> parsePackageSpecs(Collection<File> fileCollection) {
+        // Specs do not depend on each other, every script gets its own parser
+        return this.parseScheduled(new ArrayList<>(fileCollection), this::parsePackageSpec)
+                   .stream()
+                   .flatMap(List::stream)
+                   .sorted(Comparator.comparing(PackageInfo::getObjectName))
+                   .collect(Collectors.toList());
+    }
+
+    // Scripts are started largest estimated cost first and a worker takes the next script as soon as it is done, so
+    // the longest script does not start last and keep one thread busy after the others are done. The workers run on
+    // the pool of the caller, the results come back in the order of the files
+    private <T> List<T> parseScheduled(List<File> files, Function<File, T> parser) {
+        ToLongFunction<File> estimator = this.parseCosts.estimator();
+        long[] estimates = files.stream().mapToLong(estimator).toArray();
+        List<Integer> order = Lists.newArrayList();
+        for (int index = 0; index < files.size(); index++) {
+            order.add(index);
+        }
+        order.sort(Comparator.comparingLong((Integer index) -> estimates[index]).reversed());
+
+        ForkJoinPool pool = ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool() : ForkJoinPool.commonPool();
+        int workerCount = Math.min(files.size(), pool.getParallelism() + (ForkJoinTask.inForkJoinPool() ? 0 : 1));
+        AtomicReferenceArray<T> results = new AtomicReferenceArray<>(files.size());
+        AtomicInteger next = new AtomicInteger();
+
+        List<RecursiveAction> workers = Lists.newArrayList();
+        for (int worker = 0; worker < workerCount; worker++) {
+            workers.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    int position;
+                    while ((position = next.getAndIncrement()) < order.size()) {
+                        int index = order.get(position);
+                        results.set(index, parser.apply(files.get(index)));
+                    }
+                }
+            });
+        }
+        logger.debug("Parsing {} scripts on {} workers, largest first", files.size(), workerCount);
+        ForkJoinTask.invokeAll(workers);
+
+        List<T> orderedResults = Lists.newArrayListWithCapacity(files.size());
+        for (int index = 0; index < files.size(); index++) {
+            orderedResults.add(results.get(index));
+        }
+        return orderedResults;
+    }
+
+    private List<PackageInfo> parsePackageSpec(File file) {
+        logger.debug("Parsing package script: " + file.getAbsolutePath());
+
+        long start = System.nanoTime();
+        try {
+            return this.parsePackageSpecStatements(file);
+        } finally {
+            this.parseCosts.record(file, System.nanoTime() - start);
+        }
+    }
+
+    private List<PackageInfo> parsePackageSpecStatements(File file) {
+        TGSqlParser parser = new TGSqlParser(EDbVendor.dbvoracle);
+        parser.setSqlfilename(file.getAbsolutePath());
 
-            // Clear data
-            this.tableColumnsInfos.clear();
-            this.viewColumnsInfos.clear();
-            this.tablesComments.clear();
-            this.viewsComments.clear();
+        if (parser.parse() != 0) {
+            TSyntaxError syntaxError = parser.getSyntaxErrors().get(0);
+            this.diagnostics.add(ParseDiagnostics.Kind.SYNTAX_ERROR, file, (int) syntaxError.lineNo, (int) syntaxError.columnNo,
+                    syntaxError.tokentext);
+
+            return Collections.emptyList();
+        }
+
+        List<PackageInfo> packageInfos = Lists.newArrayList();
+        for (TCustomSqlStatement statement : parser.getSqlstatements()) {
+            if (statement instanceof TPlsqlCreatePackage && !PACKAGE_BODY_PATTERN.matcher(statement.toString()).find()) {
+                packageInfos.add(getPackageInfo((TPlsqlCreatePackage) statement));
+            }
+        }
+        return packageInfos;
+    }
+
+    // Members are taken from the tree, their doc comments from the source text between them
+    private static PackageInfo getPackageInfo(TPlsqlCreatePackage createPackage) {
+        String packageName = createPackage.getPackageName().toString();
+        packageName = stripObjectName(packageName.substring(packageName.lastIndexOf('.') + 1));
+        String packageText = createPackage.toString();
+        String packageComment = null;
+
+        List<PackageMemberInfo> members = Lists.newArrayList();
+        TStatementList declarations = createPackage.getDeclareStatements();
+        int position = 0;
+
+        for (int index = 0; declarations != null && index < declarations.size(); index++) {
+            String declaration = declarations.get(index).toString().trim();
+            int start = packageText.indexOf(declaration, position);
+            List<String> comments = Collections.emptyList();
+
+            if (start >= 0) {
+                String gap = packageText.substring(position, start);
+                String sameLine = gap.contains("\n") ? gap.substring(0, gap.indexOf('\n')) : "";
+
+                // A comment on the line of the previous member belongs to it
+                if (!members.isEmpty() && sameLine.contains("--") &&
+                        members.get(members.size() - 1).getCommentMessage().isEmpty()) {
+                    members.get(members.size() - 1).setCommentMessage(getSourceComments(sameLine).get(0));
+                    gap = gap.substring(sameLine.length());
+                }
+
+                comments = getSourceComments(gap);
+                position = start + declaration.length();
+            }
+
+            if (index == 0 && comments.size() > 1) {
+                packageComment = comments.get(0);
+            }
+
+            String comment = comments.isEmpty() ? null : comments.get(comments.size() - 1);
+            Matcher memberMatcher = PACKAGE_MEMBER_PATTERN.matcher(declaration);
+            Matcher declarationMatcher = PACKAGE_DECLARATION_PATTERN.matcher(declaration);
+
+            if (memberMatcher.find()) {
+                if (!memberMatcher.group(1).equalsIgnoreCase("PRAGMA")) {
+                    members.add(new PackageMemberInfo(stripObjectName(memberMatcher.group(2)),
+                            memberMatcher.group(1).toUpperCase(), declaration, comment));
+                }
+            } else if (declarationMatcher.find()) {
+                String memberType = declarationMatcher.group(2) != null ? declarationMatcher.group(2).toUpperCase() : "VARIABLE";
+                members.add(new PackageMemberInfo(stripObjectName(declarationMatcher.group(1)), memberType, declaration, comment));
+            }
+        }
+
+        if (members.isEmpty()) {
+            List<String> comments = getSourceComments(packageText);
+            packageComment = comments.isEmpty() ? null : comments.get(0);
+        }
+
+        return new PackageInfo(packageName, packageComment, members);
+    }
+
+    private static List<String> getSourceComments(String text) {
+        List<String> comments = Lists.newArrayList();
+        Matcher matcher = SOURCE_COMMENT_PATTERN.matcher(text);
+        int previousEnd = -1;
+        boolean previousLineComment = false;
+
+        while (matcher.find()) {
+            boolean lineComment = matcher.group(2) != null;
+            String comment = lineComment ? matcher.group(2).trim()
+                                         : matcher.group(1).replaceAll("(?m)^\\s*\\*+ ?", "").trim();
+            String gap = previousEnd >= 0 ? text.substring(previousEnd, matcher.start()) : "";
+
+            // Consecutive line comments make one block
+            if (lineComment && previousLineComment && StringUtils.isBlank(gap) && StringUtils.countMatches(gap, '\n') <= 1) {
+                comments.set(comments.size() - 1, comments.get(comments.size() - 1) + "\n" + comment);
+            } else {
+                comments.add(comment);
+            }
+            previousEnd = matcher.end();
+            previousLineComment = lineComment;
+        }
+        return comments;
+    }
+
+    private ParsedSchema parseFile(File file) {
+        logger.debug("Parsing ddl script: " + file.getAbsolutePath());
+
+        ParseFileEvent event = new ParseFileEvent();
+        event.begin();
+        long start = System.nanoTime();
+
+        ParsedSchema script = new ParsedSchema();
+        script.file = file;
+        boolean parsed;
+        if (this.parseTimeLimit > 0) {
+            parsed = this.parseWithTimeLimit(file, script);
+        } else {
+            parsed = file.length() > this.streamingThreshold ? this.parseStatementByStatement(file, script, new ParseProgress())
+                                                             : this.parseWholeFile(file, script);
+        }
+
+        this.parseCosts.record(file, System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = file.getAbsolutePath();
+            event.fileSize = file.length();
+            event.statementCount = script.statementCount;
+            event.parsed = parsed;
+            event.commit();
+        }
+
+        return parsed ? script : null;
+    }
+
+    private boolean parseWholeFile(File file, ParsedSchema script) {
+        TGSqlParser parser = new TGSqlParser(EDbVendor.dbvoracle);
+
+        if (file instanceof DdlArchive.Script) {
+            try (InputStream inputStream = ((DdlArchive.Script) file).openStream()) {
+                parser.sqltext = IOUtils.toString(inputStream, Charset.defaultCharset());
+            } catch (IOException e) {
+                this.diagnostics.add(ParseDiagnostics.Kind.READ_ERROR, file, e.getLocalizedMessage());
+                return false;
+            }
+        } else {
+            parser.setSqlfilename(file.getAbsolutePath());
+        }
+
+        if (parser.parse() != 0) {
+            TSyntaxError syntaxError = parser.getSyntaxErrors().get(0);
+            this.diagnostics.add(ParseDiagnostics.Kind.SYNTAX_ERROR, file, (int) syntaxError.lineNo, (int) syntaxError.columnNo,
+                    syntaxError.tokentext);
+
+            return false;
+        }
+
+        this.parseStatements(parser.getSqlstatements(), script);
+        return true;
+    }
+
+    // Scripts with a time limit are parsed statement by statement on a thread of their own, so the report can
+    // name the statement the parser got stuck on. The script is dropped and the run goes on with the other ones
+    private boolean parseWithTimeLimit(File file, ParsedSchema script) {
+        ParseProgress progress = new ParseProgress();
+        long start = System.currentTimeMillis();
+        Future<Boolean> future;
+        try {
+            future = this.parseExecutor.submit(() -> {
+                try {
+                    return this.parseStatementByStatement(file, script, progress);
+                } finally {
+                    if (!progress.state.compareAndSet(ParseProgress.RUNNING, ParseProgress.DONE)) {
+                        logger.info("Abandoned parsing of {} ended, {} parser threads are still abandoned",
+                                file.getAbsolutePath(), this.abandonedParseCount.decrementAndGet());
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Skipped like a script over the time limit, so the run is not taken for a complete one
+            this.diagnostics.add(ParseDiagnostics.Kind.PARSE_ERROR, file, String.format(
+                    "no parser thread left, %d are stuck on scripts over the time limit", this.abandonedParseCount.get()));
+            this.parseTimeouts.add(new ParseTimeoutInfo(file, file.length(), 0, null, 0));
+            logger.error("No parser thread left for {}, the script is skipped", file.getAbsolutePath());
+            return false;
+        }
+
+        try {
+            return future.get(this.parseTimeLimit, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            String statement = StringUtils.abbreviate(progress.statement, MAX_REPORTED_STATEMENT_LENGTH);
+            this.parseTimeouts.add(new ParseTimeoutInfo(file, file.length(), progress.statementLine, statement,
+                    System.currentTimeMillis() - start));
+            logger.error("Parsing of {} exceeded the time limit of {} ms at the statement on line {}, the script is skipped",
+                    file.getAbsolutePath(), this.parseTimeLimit, progress.statementLine);
+            if (progress.state.compareAndSet(ParseProgress.RUNNING, ParseProgress.ABANDONED)) {
+                logger.warn("{} parser threads are abandoned and still running, the pool has room for {}",
+                        this.abandonedParseCount.incrementAndGet(), MAX_ABANDONED_PARSES);
+            }
+            return false;
+        } catch (ExecutionException e) {
+            this.diagnostics.add(ParseDiagnostics.Kind.PARSE_ERROR, file, e.getCause().getLocalizedMessage());
+            return false;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Large scripts are memory mapped and parsed one statement at a time, so only the tree of the current
+    // statement is kept in memory
+    private boolean parseStatementByStatement(File file, ParsedSchema script, ParseProgress progress) {
+        TGSqlParser parser = new TGSqlParser(EDbVendor.dbvoracle);
+
+        try (DdlStatementReader reader = openStatementReader(file)) {
+            String statement;
+            while ((statement = reader.nextStatement()) != null) {
+                // A cancelled parse stops after the statement it is stuck on
+                if (Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+                progress.statementLine = reader.getStatementLine();
+                progress.statement = statement;
+                parser.sqltext = statement;
+
+                if (parser.parse() != 0) {
+                    TSyntaxError syntaxError = parser.getSyntaxErrors().get(0);
+                    this.diagnostics.add(ParseDiagnostics.Kind.SYNTAX_ERROR, file,
+                            (int) syntaxError.lineNo + reader.getStatementLine() - 1, (int) syntaxError.columnNo, syntaxError.tokentext);
+
+                    return false;
+                }
+
+                this.parseStatements(parser.getSqlstatements(), script);
+            }
+        } catch (IOException e) {
+            this.diagnostics.add(ParseDiagnostics.Kind.READ_ERROR, file, e.getLocalizedMessage());
+            return false;
         }
+
+        return true;
     }
 
     static String stripObjectName(String object) {
@@ -152,97 +969,377 @@ public class DdlParserImpl implements DdlParser {
         return false;
     }
 
-    private void parseStatements(TStatementList statementList) {
-        for (TCustomSqlStatement statement : statementList) {
-            if (statement instanceof TCreateTableSqlStatement) {
-                TCreateTableSqlStatement createTableSqlStatement = (TCreateTableSqlStatement) statement;
-                TColumnDefinitionList columnDefinitionList = createTableSqlStatement.getColumnList();
-                String tableName = stripObjectName(createTableSqlStatement.getTableName().getTableString());
+    private void parseKeys(String tableName, String columnName, TConstraintList constraintList, ParsedSchema script) {
+        if (constraintList == null) {
+            return;
+        }
 
-                if (this.isObjectExcluded(tableName, DbObjectType.TABLE)) {
-                    continue;
-                }
+        for (int index = 0; index < constraintList.size(); index++) {
+            TConstraint constraint = constraintList.getConstraint(index);
+            List<String> columnNames = columnName != null ? Collections.singletonList(columnName)
+                                                          : getColumnNames(constraint.getColumnList());
 
-                for (int index = 0; index < columnDefinitionList.size(); index++) {
-                    TColumnDefinition columnDefinition = columnDefinitionList.getColumn(index);
-                    TableColumnInfo tableColumnInfo = new TableColumnInfo(null, columnDefinition, index + 1);
+            if (constraint.getConstraint_type() == EConstraintType.primary_key) {
+                script.primaryKeyColumns.putAll(tableName, columnNames);
+            } else if ((constraint.getConstraint_type() == EConstraintType.foreign_key ||
+                    constraint.getConstraint_type() == EConstraintType.reference) &&
+                    constraint.getReferencedObject() != null) {
+                String referencedTableName = stripObjectName(constraint.getReferencedObject().getObjectString());
+                List<String> referencedColumnNames = getColumnNames(constraint.getReferencedColumnList());
 
-                    this.tableColumnsInfos.put(tableName, tableColumnInfo);
-                }
-            } else if (statement instanceof TCreateViewSqlStatement) {
-                TCreateViewSqlStatement createViewSqlStatement = (TCreateViewSqlStatement) statement;
-                TViewAliasItemList viewAliasItemList = createViewSqlStatement.getViewAliasClause()
-                                                                             .getViewAliasItemList();
-                String viewName = stripObjectName(createViewSqlStatement.getViewName().getTableString());
+                script.foreignKeys.put(tableName, new ForeignKeyInfo(tableName, columnNames, referencedTableName, referencedColumnNames));
+            }
+        }
+    }
 
-                if (this.isObjectExcluded(viewName, DbObjectType.VIEW)) {
-                    continue;
-                }
+    private static List<String> getColumnNames(TPTNodeList<?> columnList) {
+        List<String> columnNames = Lists.newArrayList();
+        if (columnList != null) {
+            for (int index = 0; index < columnList.size(); index++) {
+                columnNames.add(stripObjectName(columnList.getElement(index).toString()));
+            }
+        }
+        return columnNames;
+    }
 
-                for (int index = 0; index < viewAliasItemList.size(); index++) {
-                    TViewAliasItem viewAliasItem = viewAliasItemList.getViewAliasItem(index);
-                    ViewColumnInfo viewColumnInfo = new ViewColumnInfo(null, viewName, viewAliasItem, index + 1);
+    private static List<String> getColumnNames(TObjectNameList columnList) {
+        List<String> columnNames = Lists.newArrayList();
+        if (columnList != null) {
+            for (int index = 0; index < columnList.size(); index++) {
+                TObjectName columnName = columnList.getObjectName(index);
+                columnNames.add(stripObjectName(columnName.getColumnNameOnly()));
+            }
+        }
+        return columnNames;
+    }
 
-                    this.viewColumnsInfos.put(viewName, viewColumnInfo);
-                }
-            } else if (statement instanceof TCommentOnSqlStmt) {
-                TCommentOnSqlStmt commentOnSqlStmt = (TCommentOnSqlStmt) statement;
-                EDbObjectType objectType = commentOnSqlStmt.getDbObjectType();
-                String objectName;
+    // View columns are matched to the select list by position, a column that is a plain column reference passes
+    // through the type of the referenced column
+    private static void setViewColumnSources(TSelectSqlStatement select, Collection<ViewColumnInfo> viewColumnInfos) {
+        // The other branches of a union are not traced, so a column not null in the first one may still be null
+        boolean combinedQuery = select.isCombinedQuery();
+        while (select.isCombinedQuery()) {
+            select = select.getLeftStmt();
+        }
 
-                if (objectType == EDbObjectType.column) {
-                    objectName = commentOnSqlStmt.getObjectName().getColumnNameOnly();
-                } else if (objectType == EDbObjectType.table || objectType == EDbObjectType.view) {
-                    objectName = commentOnSqlStmt.getObjectName().getTableString();
-                } else {
-                    logger.error("Unknown comment statement type: {}", objectType.name());
-                    continue;
+        Map<String, String> objectNamesByAlias = Maps.newHashMap();
+        List<String> objectNames = Lists.newArrayList();
+        for (int index = 0; select.getTables() != null && index < select.getTables().size(); index++) {
+            TTable table = select.getTables().getTable(index);
+            if (table.getTableType() == ETableSource.objectname) {
+                String tableName = stripObjectName(table.getName());
+                objectNames.add(tableName);
+                objectNamesByAlias.put(ParsedSchema.objectKey(tableName), tableName);
+                if (table.getAliasName() != null && !table.getAliasName().isEmpty()) {
+                    objectNamesByAlias.put(ParsedSchema.objectKey(stripObjectName(table.getAliasName())), tableName);
                 }
+            }
+        }
 
-                objectName = stripObjectName(objectName);
+        Set<String> nullableObjectKeys = combinedQuery
+                ? objectNames.stream().map(ParsedSchema::objectKey).collect(Collectors.toSet())
+                : getOuterJoinedObjectKeys(select, objectNamesByAlias);
 
-                DbObjectType dbObjectType = null;
-                if (objectType == EDbObjectType.table) {
-                    dbObjectType = DbObjectType.TABLE;
-                } else if (objectType == EDbObjectType.view) {
-                    dbObjectType = DbObjectType.VIEW;
-                }
+        TResultColumnList resultColumns = select.getResultColumnList();
+        boolean hasStar = false;
+        for (int index = 0; resultColumns != null && index < resultColumns.size(); index++) {
+            TExpression expression = resultColumns.getResultColumn(index).getExpr();
+            if (expression != null && expression.getExpressionType() == EExpressionType.simple_object_name_t
+                    && "*".equals(expression.getObjectOperand().getColumnNameOnly())) {
+                hasStar = true;
+            }
+        }
+
+        for (ViewColumnInfo viewColumnInfo : viewColumnInfos) {
+            int index = Integer.parseInt(viewColumnInfo.getColumnId()) - 1;
+            viewColumnInfo.setNullableSources(nullableObjectKeys);
+
+            // The positions are unknown after a star, the column is looked up by its own name then
+            if (hasStar || resultColumns == null || index >= resultColumns.size()) {
+                viewColumnInfo.setSource(objectNames, viewColumnInfo.getColumnName());
+                continue;
+            }
+
+            TExpression expression = resultColumns.getResultColumn(index).getExpr();
+            if (expression == null || expression.getExpressionType() != EExpressionType.simple_object_name_t) {
+                continue;
+            }
 
-                if (dbObjectType != null && !this.isObjectExcluded(objectName, dbObjectType)) {
-                    continue;
+            TObjectName columnName = expression.getObjectOperand();
+            String qualifier = columnName.getTableString();
+            if (qualifier == null || qualifier.isEmpty()) {
+                viewColumnInfo.setSource(objectNames, stripObjectName(columnName.getColumnNameOnly()));
+            } else {
+                String objectName = objectNamesByAlias.get(ParsedSchema.objectKey(stripObjectName(
+                        qualifier.substring(qualifier.lastIndexOf('.') + 1))));
+                if (objectName != null) {
+                    viewColumnInfo.setSource(Collections.singletonList(objectName),
+                            stripObjectName(columnName.getColumnNameOnly()));
                 }
+            }
+        }
+    }
 
-                if (objectType == EDbObjectType.column) {
-                    String tableViewName = stripObjectName(commentOnSqlStmt.getObjectName().getTableString());
+    // Objects on the optional side of an outer join, their columns may be null in the view
+    private static Set<String> getOuterJoinedObjectKeys(TSelectSqlStatement select, Map<String, String> objectNamesByAlias) {
+        Set<String> objectKeys = Sets.newHashSet();
+        for (int index = 0; select.getJoins() != null && index < select.getJoins().size(); index++) {
+            TJoin join = select.getJoins().getJoin(index);
+            List<TTable> joinedTables = Lists.newArrayList(join.getTable());
 
-                    if (this.tableColumnsInfos.containsKey(tableViewName)) {
-                        for (TableColumnInfo tableColumnInfo : this.tableColumnsInfos.get(tableViewName)) {
-                            if (tableColumnInfo.getColumnName().equalsIgnoreCase(objectName)) {
-                                tableColumnInfo.setCommentStatement(commentOnSqlStmt);
-                                break;
-                            }
-                        }
-                    } else if (this.viewColumnsInfos.containsKey(tableViewName)) {
-                        for (ViewColumnInfo viewColumnInfo : this.viewColumnsInfos.get(tableViewName)) {
-                            if (viewColumnInfo.getColumnName().equalsIgnoreCase(objectName)) {
-                                viewColumnInfo.setCommentStatement(commentOnSqlStmt);
-                                break;
-                            }
-                        }
-                    } else {
-                        // Create view/table statement should be writed before comment statements
-                        logger.error("Table or view with name '{}' not found!", tableViewName);
+            for (int itemIndex = 0; join.getJoinItems() != null && itemIndex < join.getJoinItems().size(); itemIndex++) {
+                TJoinItem joinItem = join.getJoinItems().getJoinItem(itemIndex);
+                EJoinType joinType = joinItem.getJoinType();
+
+                if (LEFT_JOIN_TYPES.contains(joinType) || FULL_JOIN_TYPES.contains(joinType)) {
+                    addObjectKey(joinItem.getTable(), objectKeys);
+                }
+                if (RIGHT_JOIN_TYPES.contains(joinType) || FULL_JOIN_TYPES.contains(joinType)) {
+                    for (TTable table : joinedTables) {
+                        addObjectKey(table, objectKeys);
                     }
-                } else { // Table/View
-                    ObjectInfoCommentInfo objectInfoCommentInfo = new ObjectInfoCommentInfo(commentOnSqlStmt, objectName);
+                }
+                joinedTables.add(joinItem.getTable());
+            }
+        }
+
+        // Oracle marks the columns of the optional side in the conditions
+        Matcher outerJoinMatcher = ORACLE_OUTER_JOIN_PATTERN.matcher(select.toString());
+        while (outerJoinMatcher.find()) {
+            String objectName = objectNamesByAlias.get(ParsedSchema.objectKey(stripObjectName(outerJoinMatcher.group(1))));
+            if (objectName != null) {
+                objectKeys.add(ParsedSchema.objectKey(objectName));
+            }
+        }
+        return objectKeys;
+    }
+
+    private static void addObjectKey(TTable table, Set<String> objectKeys) {
+        if (table != null && table.getTableType() == ETableSource.objectname) {
+            objectKeys.add(ParsedSchema.objectKey(stripObjectName(table.getName())));
+        }
+    }
+
+    private static void collectBaseObjects(TCustomSqlStatement statement, Set<String> cteNames, Set<String> baseObjectNames) {
+        if (statement == null) {
+            return;
+        }
+
+        if (statement.getCteList() != null) {
+            for (int index = 0; index < statement.getCteList().size(); index++) {
+                TCTE cte = statement.getCteList().getCTE(index);
+                cteNames.add(ParsedSchema.objectKey(stripObjectName(cte.getTableName().toString())));
+                collectBaseObjects(cte.getSubquery(), cteNames, baseObjectNames);
+            }
+        }
+
+        if (statement instanceof TSelectSqlStatement && ((TSelectSqlStatement) statement).isCombinedQuery()) {
+            collectBaseObjects(((TSelectSqlStatement) statement).getLeftStmt(), cteNames, baseObjectNames);
+            collectBaseObjects(((TSelectSqlStatement) statement).getRightStmt(), cteNames, baseObjectNames);
+            return;
+        }
 
-                    if (objectType == EDbObjectType.table) {
-                        this.tablesComments.put(objectName, objectInfoCommentInfo);
-                    } else { // View
-                        this.viewsComments.put(objectName, objectInfoCommentInfo);
+        if (statement.getTables() != null) {
+            for (int index = 0; index < statement.getTables().size(); index++) {
+                TTable table = statement.getTables().getTable(index);
+
+                if (table.getTableType() == ETableSource.objectname) {
+                    String tableName = stripObjectName(table.getName());
+                    if (!cteNames.contains(ParsedSchema.objectKey(tableName))) {
+                        baseObjectNames.add(tableName);
                     }
+                } else if (table.getTableType() == ETableSource.subquery) {
+                    collectBaseObjects(table.getSubquery(), cteNames, baseObjectNames);
                 }
             }
         }
+
+        // Subqueries from the select list and conditions
+        if (statement.getStatements() != null) {
+            for (int index = 0; index < statement.getStatements().size(); index++) {
+                collectBaseObjects(statement.getStatements().get(index), cteNames, baseObjectNames);
+            }
+        }
+    }
+
+    private void parseStatements(TStatementList statementList, ParsedSchema script) {
+        for (TCustomSqlStatement statement : statementList) {
+            this.getStatementHandler(statement.getClass()).handle(statement, script);
+            script.statementCount++;
+        }
+    }
+
+    private StatementHandler getStatementHandler(Class<?> statementClass) {
+        // Vendor specific subclasses are resolved to the handler of their nearest registered superclass once
+        return this.statementHandlers.computeIfAbsent(statementClass, key -> {
+            for (Class<?> superClass = key.getSuperclass(); superClass != null; superClass = superClass.getSuperclass()) {
+                StatementHandler handler = this.statementHandlers.get(superClass);
+                if (handler != null) {
+                    return handler;
+                }
+            }
+            return (statement, script) -> {
+            };
+        });
+    }
+
+    private void parseCreateTable(TCreateTableSqlStatement createTableSqlStatement, ParsedSchema script) {
+        TColumnDefinitionList columnDefinitionList = createTableSqlStatement.getColumnList();
+        String tableName = stripObjectName(createTableSqlStatement.getTableName().getTableString());
+
+        if (this.isObjectExcluded(tableName, DbObjectType.TABLE)) {
+            return;
+        }
+
+        for (int index = 0; index < columnDefinitionList.size(); index++) {
+            TColumnDefinition columnDefinition = columnDefinitionList.getColumn(index);
+            TableColumnInfo tableColumnInfo = new TableColumnInfo(null, columnDefinition, index + 1);
+
+            script.addTableColumn(tableName, tableColumnInfo);
+            this.parseKeys(tableName, tableColumnInfo.getColumnName(), columnDefinition.getConstraints(), script);
+        }
+
+        this.parseKeys(tableName, null, createTableSqlStatement.getTableConstraints(), script);
+    }
+
+    private void parseCreateView(TCreateViewSqlStatement createViewSqlStatement, ParsedSchema script) {
+        TViewAliasItemList viewAliasItemList = createViewSqlStatement.getViewAliasClause()
+                                                                     .getViewAliasItemList();
+        String viewName = stripObjectName(createViewSqlStatement.getViewName().getTableString());
+
+        if (this.isObjectExcluded(viewName, DbObjectType.VIEW)) {
+            return;
+        }
+
+        for (int index = 0; index < viewAliasItemList.size(); index++) {
+            TViewAliasItem viewAliasItem = viewAliasItemList.getViewAliasItem(index);
+            ViewColumnInfo viewColumnInfo = new ViewColumnInfo(null, viewName, viewAliasItem, index + 1);
+
+            script.addViewColumn(viewName, viewColumnInfo);
+        }
+
+        if (createViewSqlStatement.getSubquery() != null) {
+            setViewColumnSources(createViewSqlStatement.getSubquery(), script.viewColumnsInfos.get(viewName));
+
+            Set<String> baseObjectNames = Sets.newLinkedHashSet();
+            collectBaseObjects(createViewSqlStatement.getSubquery(), Sets.newHashSet(), baseObjectNames);
+            for (String baseObjectName : baseObjectNames) {
+                script.addViewBaseObject(viewName, baseObjectName);
+            }
+        }
+    }
+
+    private void parseComment(TCommentOnSqlStmt commentOnSqlStmt, ParsedSchema script) {
+        EDbObjectType objectType = commentOnSqlStmt.getDbObjectType();
+        String objectName;
+
+        if (objectType == EDbObjectType.column) {
+            objectName = commentOnSqlStmt.getObjectName().getColumnNameOnly();
+        } else if (objectType == EDbObjectType.table || objectType == EDbObjectType.view) {
+            objectName = commentOnSqlStmt.getObjectName().getTableString();
+        } else {
+            this.diagnostics.add(ParseDiagnostics.Kind.UNKNOWN_COMMENT, script.file, objectType.name());
+            return;
+        }
+
+        objectName = stripObjectName(objectName);
+
+        DbObjectType dbObjectType = null;
+        if (objectType == EDbObjectType.table) {
+            dbObjectType = DbObjectType.TABLE;
+        } else if (objectType == EDbObjectType.view) {
+            dbObjectType = DbObjectType.VIEW;
+        }
+
+        if (dbObjectType != null && this.isObjectExcluded(objectName, dbObjectType)) {
+            return;
+        }
+
+        if (objectType == EDbObjectType.column) {
+            String tableViewName = stripObjectName(commentOnSqlStmt.getObjectName().getTableString());
+            String message = commentOnSqlStmt.getMessage().getValueToken().getTextWithoutQuoted();
+
+            // Linked to the column after all statements are collected
+            script.addColumnComment(tableViewName, objectName, message);
+        } else { // Table/View
+            ObjectInfoCommentInfo objectInfoCommentInfo = new ObjectInfoCommentInfo(commentOnSqlStmt, objectName);
+
+            if (objectType == EDbObjectType.table) {
+                script.tablesComments.put(objectName, objectInfoCommentInfo);
+            } else { // View
+                script.viewsComments.put(objectName, objectInfoCommentInfo);
+            }
+        }
+    }
+
+    private void parseCreateIndex(TCreateIndexSqlStatement createIndexSqlStatement, ParsedSchema script) {
+        String indexName = stripObjectName(createIndexSqlStatement.getIndexName().getObjectString());
+        String tableName = stripObjectName(createIndexSqlStatement.getTableName().getObjectString());
+        String definition = createIndexSqlStatement.toString();
+
+        if (this.isObjectExcluded(tableName, DbObjectType.TABLE)) {
+            return;
+        }
+
+        List<String> columnNames = Lists.newArrayList();
+        TOrderByItemList columnList = createIndexSqlStatement.getColumnNameList();
+        for (int index = 0; columnList != null && index < columnList.size(); index++) {
+            columnNames.add(stripObjectName(columnList.getOrderByItem(index).getSortKey().toString()));
+        }
+
+        Matcher indexTypeMatcher = INDEX_TYPE_PATTERN.matcher(definition);
+        String indexType = indexTypeMatcher.find() && indexTypeMatcher.group(1) != null
+                ? indexTypeMatcher.group(1).toUpperCase() : null;
+
+        Map<String, String> properties = Maps.newLinkedHashMap();
+        properties.put("TABLE_NAME", tableName);
+        properties.put("COLUMNS", String.join(", ", columnNames));
+        properties.put("UNIQUENESS", "UNIQUE".equals(indexType) ? "UNIQUE" : "NONUNIQUE");
+        if ("BITMAP".equals(indexType)) {
+            properties.put("INDEX_TYPE", indexType);
+        }
+
+        script.addObjectDefinition(new ObjectDefinitionInfo(indexName, DbObjectType.INDEX, tableName, properties, definition));
+    }
+
+    private void parseCreateSequence(TCreateSequenceStmt createSequenceStmt, ParsedSchema script) {
+        String sequenceName = stripObjectName(createSequenceStmt.getSequenceName().getObjectString());
+        String definition = createSequenceStmt.toString();
+
+        Map<String, String> properties = Maps.newLinkedHashMap();
+        Matcher optionMatcher = SEQUENCE_OPTION_PATTERN.matcher(definition);
+        while (optionMatcher.find()) {
+            String option = optionMatcher.group(1).toUpperCase().replaceAll("\\s+", "_");
+            properties.put(option, optionMatcher.group(2) != null ? optionMatcher.group(2) : "YES");
+        }
+
+        script.addObjectDefinition(new ObjectDefinitionInfo(sequenceName, DbObjectType.SEQUENCE, null, properties, definition));
+    }
+
+    private void parseCreateTrigger(TPlsqlCreateTrigger createTrigger, ParsedSchema script) {
+        String triggerName = stripObjectName(createTrigger.getTriggerName().getObjectString());
+        String definition = createTrigger.toString();
+        String tableName = null;
+
+        // Only the header is read, the trigger body may contain anything
+        Map<String, String> properties = Maps.newLinkedHashMap();
+        Matcher headerMatcher = TRIGGER_HEADER_PATTERN.matcher(definition);
+        if (headerMatcher.find()) {
+            String target = headerMatcher.group(3);
+            target = stripObjectName(target.substring(target.lastIndexOf('.') + 1));
+            if (!target.equalsIgnoreCase("DATABASE") && !target.equalsIgnoreCase("SCHEMA")) {
+                tableName = target;
+            }
+
+            properties.put("TABLE_NAME", tableName != null ? tableName : target.toUpperCase());
+            properties.put("TRIGGERING_EVENT", headerMatcher.group(2).trim().replaceAll("\\s+", " ").toUpperCase());
+            properties.put("TRIGGER_TYPE", headerMatcher.group(1).replaceAll("\\s+", " ").toUpperCase());
+        }
+
+        if (tableName != null && this.isObjectExcluded(tableName, DbObjectType.TABLE)) {
+            return;
+        }
+
+        script.addObjectDefinition(new ObjectDefinitionInfo(triggerName, DbObjectType.TRIGGER, tableName, properties, definition));
     }
 }
@@ -0,0 +1,271 @@
+package com.onevizion.maven.plugin.dbschema;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Pattern;
+
+public class DdlStatementReader implements Closeable {
+    private static final long MAP_SIZE = 64L * 1024 * 1024;
+    private static final int CHAR_BUFFER_SIZE = 64 * 1024;
+
+    private static final Pattern PLSQL_PATTERN = Pattern.compile(
+            "^(CREATE\\s+(OR\\s+REPLACE\\s+)?((NON)?EDITIONABLE\\s+)?(PACKAGE|TRIGGER|FUNCTION|PROCEDURE|TYPE|LIBRARY)\\b|DECLARE\\b|BEGIN\\b)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern SQLPLUS_PATTERN = Pattern.compile(
+            "^(@|(SET|PROMPT|PRO|REM|REMARK|SPOOL|WHENEVER|SHOW|DEFINE|UNDEFINE|COLUMN|TTITLE|BTITLE)(\\s|$)).*",
+            Pattern.CASE_INSENSITIVE);
+
+    private enum State {
+        CODE, STRING, Q_STRING_DELIMITER, Q_STRING, QUOTED_IDENTIFIER, LINE_COMMENT, BLOCK_COMMENT, SQLPLUS_LINE
+    }
+
+    private final FileChannel channel;
+    private final long size;
+    private final long mapSize;
+    private final CharsetDecoder decoder;
+
+    // Scripts that are not files, e.g. archive entries, are decoded from a stream instead of mapped
+    private final Reader reader;
+    private final CharBuffer charBuffer = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+
+    private ByteBuffer byteBuffer;
+    private long mappedStart = 0;
+    private long mappedEnd = 0;
+    private boolean endOfInput = false;
+
+    private final StringBuilder statement = new StringBuilder();
+    private int line = 1;
+    private int statementLine = 1;
+
+    public DdlStatementReader(File file) throws IOException {
+        this(file, MAP_SIZE);
+    }
+
+    DdlStatementReader(File file, long mapSize) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.size = this.channel.size();
+        this.mapSize = mapSize;
+        this.decoder = newDecoder();
+        this.reader = null;
+        this.charBuffer.flip();
+    }
+
+    public DdlStatementReader(InputStream inputStream) {
+        this.channel = null;
+        this.size = 0;
+        this.mapSize = 0;
+        this.decoder = null;
+        this.reader = new InputStreamReader(inputStream, newDecoder());
+        this.charBuffer.flip();
+    }
+
+    private static CharsetDecoder newDecoder() {
+        return Charset.defaultCharset().newDecoder()
+                      .onMalformedInput(CodingErrorAction.REPLACE)
+                      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    public int getStatementLine() {
+        return this.statementLine;
+    }
+
+    public String nextStatement() throws IOException {
+        this.statement.setLength(0);
+        this.statementLine = this.line;
+
+        State state = State.CODE;
+        int lineStart = 0;
+        int codeStart = -1;
+        Boolean plsql = null;
+        int previous = -1;
+        int quoteEnd = -1;
+        int c;
+
+        while ((c = this.read()) != -1) {
+            this.statement.append((char) c);
+
+            switch (state) {
+                case CODE:
+                    // Quotes and semicolons in SQL*Plus commands, e.g. prompt texts, are not SQL
+                    if ((c == '\'' || c == '"' || c == ';') && codeStart >= lineStart
+                            && SQLPLUS_PATTERN.matcher(this.statement.substring(lineStart).trim()).matches()) {
+                        state = State.SQLPLUS_LINE;
+                    } else if (c == '\'' && this.isQuotePrefix()) {
+                        state = State.Q_STRING_DELIMITER;
+                    } else if (c == '\'') {
+                        state = State.STRING;
+                    } else if (c == '"') {
+                        state = State.QUOTED_IDENTIFIER;
+                    } else if (c == '-' && previous == '-') {
+                        state = State.LINE_COMMENT;
+                    } else if (c == '*' && previous == '/') {
+                        state = State.BLOCK_COMMENT;
+                        c = -1;
+                    } else if (codeStart < 0 && !Character.isWhitespace(c) && c != '-' && c != '/') {
+                        codeStart = this.statement.length() - 1;
+                    }
+
+                    if (c == ';' && codeStart >= 0 && state == State.CODE) {
+                        if (plsql == null) {
+                            plsql = PLSQL_PATTERN.matcher(this.statement.substring(codeStart)).find();
+                        }
+                        if (!plsql) {
+                            return this.statement.toString();
+                        }
+                    }
+                    break;
+                case STRING:
+                    if (c == '\'') {
+                        state = State.CODE;
+                    }
+                    break;
+                case Q_STRING_DELIMITER:
+                    quoteEnd = c == '[' ? ']' : c == '{' ? '}' : c == '(' ? ')' : c == '<' ? '>' : c;
+                    state = State.Q_STRING;
+                    break;
+                case Q_STRING:
+                    if (c == '\'' && previous == quoteEnd) {
+                        state = State.CODE;
+                    }
+                    break;
+                case QUOTED_IDENTIFIER:
+                    if (c == '"') {
+                        state = State.CODE;
+                    }
+                    break;
+                case LINE_COMMENT:
+                case SQLPLUS_LINE:
+                    if (c == '\n') {
+                        state = State.CODE;
+                    }
+                    break;
+                case BLOCK_COMMENT:
+                    if (c == '/' && previous == '*') {
+                        state = State.CODE;
+                        c = -1;
+                    }
+                    break;
+            }
+
+            if (c == '\n') {
+                this.line++;
+
+                if (state == State.CODE) {
+                    String currentLine = this.statement.substring(lineStart).trim();
+
+                    // "/" on its own line ends PL/SQL blocks, SQL*Plus commands are not sent to the parser
+                    if (currentLine.equals("/") ||
+                            (codeStart >= lineStart && SQLPLUS_PATTERN.matcher(currentLine).matches())) {
+                        this.statement.setLength(lineStart);
+                        if (codeStart >= 0 && codeStart < lineStart) {
+                            return this.statement.toString();
+                        }
+                        this.statement.setLength(0);
+                        this.statementLine = this.line;
+                        codeStart = -1;
+                        plsql = null;
+                    }
+                }
+                lineStart = this.statement.length();
+            }
+            previous = c;
+        }
+
+        // The last line has no line break to end it
+        String lastLine = this.statement.substring(lineStart).trim();
+        if ((state == State.CODE || state == State.SQLPLUS_LINE) && (lastLine.equals("/") ||
+                (codeStart >= lineStart && SQLPLUS_PATTERN.matcher(lastLine).matches()))) {
+            this.statement.setLength(lineStart);
+            if (codeStart >= lineStart) {
+                codeStart = -1;
+            }
+        }
+        return codeStart >= 0 && StringUtils.isNotBlank(this.statement) ? this.statement.toString() : null;
+    }
+
+    // q'[...]' and nq'[...]' literals end at the closing delimiter followed by a quote, so they may contain quotes
+    private boolean isQuotePrefix() {
+        int index = this.statement.length() - 2;
+        if (index < 0 || Character.toUpperCase(this.statement.charAt(index)) != 'Q') {
+            return false;
+        }
+        if (index > 0 && Character.toUpperCase(this.statement.charAt(index - 1)) == 'N') {
+            index--;
+        }
+        return index == 0 || !isIdentifierPart(this.statement.charAt(index - 1));
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#';
+    }
+
+    private int read() throws IOException {
+        if (!this.charBuffer.hasRemaining() && !this.fill()) {
+            return -1;
+        }
+        return this.charBuffer.get();
+    }
+
+    private boolean fill() throws IOException {
+        this.charBuffer.clear();
+
+        while (this.reader != null && this.charBuffer.position() == 0 && !this.endOfInput) {
+            this.endOfInput = this.reader.read(this.charBuffer) < 0;
+        }
+        while (this.charBuffer.position() == 0 && !this.endOfInput) {
+            if (this.byteBuffer == null) {
+                this.map(0);
+            }
+
+            boolean lastRegion = this.mappedEnd == this.size;
+            CoderResult result = this.decoder.decode(this.byteBuffer, this.charBuffer, lastRegion);
+            if (result.isError()) {
+                result.throwException();
+            }
+
+            if (result.isUnderflow()) {
+                if (lastRegion) {
+                    this.decoder.flush(this.charBuffer);
+                    this.endOfInput = true;
+                } else {
+                    // Bytes of a character split by the region boundary are mapped again with the next region
+                    this.map(this.mappedStart + this.byteBuffer.position());
+                }
+            }
+        }
+
+        this.charBuffer.flip();
+        return this.charBuffer.hasRemaining();
+    }
+
+    private void map(long position) throws IOException {
+        long length = Math.min(this.mapSize, this.size - position);
+        this.byteBuffer = this.channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        this.mappedStart = position;
+        this.mappedEnd = position + length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.byteBuffer = null;
+        if (this.reader != null) {
+            this.reader.close();
+        } else {
+            this.channel.close();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.onevizion.maven.plugin.dbschema;
+
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.onevizion.maven.plugin.dbschema.DdlParser.ForeignKeyInfo;
+import org.apache.commons.lang3.StringEscapeUtils;
+
+import java.util.*;
+
+public class ErdGenerator {
+    private static final int BOX_WIDTH = 240;
+    private static final int HEADER_HEIGHT = 22;
+    private static final int ROW_HEIGHT = 16;
+    private static final int H_GAP = 80;
+    private static final int V_GAP = 60;
+    private static final int MARGIN = 20;
+
+    // Tables are named by their upper case keys, the names of their pages
+    private final Set<String> tables = Sets.newHashSet();
+    private final Map<String, Set<String>> neighbours = Maps.newTreeMap();
+    private final Multimap<String, ForeignKeyInfo> foreignKeys = LinkedHashMultimap.create();
+    private final Multimap<String, String> primaryKeyColumns = LinkedListMultimap.create();
+    private final Map<String, String> clusterNames = Maps.newHashMap();
+
+    // Path of the tables folder relative to the folder of the diagrams
+    private final String tablesPath;
+
+    public ErdGenerator(DdlParser ddlParser, String tablesPath) {
+        this.tablesPath = tablesPath;
+
+        for (String tableName : ddlParser.getTables()) {
+            String tableKey = ParsedSchema.objectKey(tableName);
+            this.tables.add(tableKey);
+            this.neighbours.computeIfAbsent(tableKey, key -> Sets.newTreeSet());
+        }
+        for (String tableName : ddlParser.getTablesWithPrimaryKeys()) {
+            this.primaryKeyColumns.putAll(ParsedSchema.objectKey(tableName), ddlParser.getPrimaryKeyColumns(tableName));
+        }
+        for (ForeignKeyInfo foreignKey : ddlParser.getForeignKeys()) {
+            String tableKey = ParsedSchema.objectKey(foreignKey.getTableName());
+            String referencedTableKey = ParsedSchema.objectKey(foreignKey.getReferencedTableName());
+
+            this.neighbours.computeIfAbsent(tableKey, key -> Sets.newTreeSet()).add(referencedTableKey);
+            this.neighbours.computeIfAbsent(referencedTableKey, key -> Sets.newTreeSet()).add(tableKey);
+            this.foreignKeys.put(tableKey, foreignKey);
+        }
+    }
+
+    public List<List<String>> getClusters(int maxClusterSize) {
+        List<List<String>> clusters = Lists.newArrayList();
+        Set<String> visited = Sets.newHashSet();
+        List<String> unrelatedTableNames = Lists.newArrayList();
+
+        List<String> tableNames = new ArrayList<>(this.neighbours.keySet());
+        // Start each component from its most referenced table, so it ends up in the middle of the first diagram
+        tableNames.sort(Comparator.comparing((String tableName) -> this.neighbours.get(tableName).size()).reversed()
+                                  .thenComparing(Comparator.naturalOrder()));
+
+        for (String rootTableName : tableNames) {
+            if (visited.contains(rootTableName)) {
+                continue;
+            }
+
+            List<String> component = Lists.newArrayList();
+            Deque<String> queue = new ArrayDeque<>();
+            queue.add(rootTableName);
+            visited.add(rootTableName);
+
+            while (!queue.isEmpty()) {
+                String tableName = queue.poll();
+                component.add(tableName);
+
+                for (String neighbour : this.neighbours.get(tableName)) {
+                    if (visited.add(neighbour)) {
+                        queue.add(neighbour);
+                    }
+                }
+            }
+
+            // Tables without keys to others share diagrams instead of getting one each
+            if (component.size() == 1) {
+                unrelatedTableNames.add(rootTableName);
+            } else {
+                this.addClusters(clusters, component, maxClusterSize);
+            }
+        }
+        this.addClusters(clusters, unrelatedTableNames, maxClusterSize);
+
+        return clusters;
+    }
+
+    // Breadth-first order keeps related tables together when a large component is split
+    private void addClusters(List<List<String>> clusters, List<String> tableNames, int maxClusterSize) {
+        List<List<String>> partitions = Lists.partition(tableNames, maxClusterSize);
+        for (int index = 0; index < partitions.size(); index++) {
+            String clusterName = index == 0 ? tableNames.get(0) : tableNames.get(0) + "-" + (index + 1);
+            for (String tableName : partitions.get(index)) {
+                this.clusterNames.put(tableName, clusterName);
+            }
+            clusters.add(partitions.get(index));
+        }
+    }
+
+    public String getClusterName(String tableName) {
+        return this.clusterNames.get(tableName);
+    }
+
+    public String renderSvg(List<String> cluster) {
+        int columns = (int) Math.ceil(Math.sqrt(cluster.size()));
+        Map<String, int[]> boxes = Maps.newLinkedHashMap();
+        Map<String, List<String[]>> boxRows = Maps.newHashMap();
+
+        int y = MARGIN;
+        int width = 0;
+        for (int rowStart = 0; rowStart < cluster.size(); rowStart += columns) {
+            int rowHeight = 0;
+            int x = MARGIN;
+
+            for (String tableName : cluster.subList(rowStart, Math.min(rowStart + columns, cluster.size()))) {
+                List<String[]> rows = this.getBoxRows(tableName, cluster);
+                int height = HEADER_HEIGHT + rows.size() * ROW_HEIGHT + 4;
+
+                boxes.put(tableName, new int[]{x, y, BOX_WIDTH, height});
+                boxRows.put(tableName, rows);
+                rowHeight = Math.max(rowHeight, height);
+                x += BOX_WIDTH + H_GAP;
+            }
+
+            width = Math.max(width, x - H_GAP + MARGIN);
+            y += rowHeight + V_GAP;
+        }
+        int height = y - V_GAP + MARGIN;
+
+        StringBuilder svg = new StringBuilder();
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" width=\"")
+           .append(width).append("\" height=\"").append(height).append("\">\n");
+        svg.append("<defs><marker id=\"arrow\" markerWidth=\"10\" markerHeight=\"8\" refX=\"10\" refY=\"4\" orient=\"auto\">")
+           .append("<path d=\"M0,0 L10,4 L0,8 z\" fill=\"#2B7C92\"/></marker></defs>\n");
+
+        // Edges go first, so the boxes are painted over them
+        for (String tableName : cluster) {
+            for (ForeignKeyInfo foreignKey : this.foreignKeys.get(tableName)) {
+                int[] from = boxes.get(tableName);
+                int[] to = boxes.get(ParsedSchema.objectKey(foreignKey.getReferencedTableName()));
+
+                if (to == null) {
+                    continue;
+                }
+                if (from == to) {
+                    int right = from[0] + from[2];
+                    svg.append("<path d=\"M").append(right).append(',').append(from[1] + 6)
+                       .append(" C").append(right + 40).append(',').append(from[1] - 20).append(' ')
+                       .append(right + 40).append(',').append(from[1] + 40).append(' ')
+                       .append(right).append(',').append(from[1] + 14)
+                       .append("\" fill=\"none\" stroke=\"#2B7C92\" marker-end=\"url(#arrow)\"/>\n");
+                    continue;
+                }
+
+                double[] start = clipToBox(from, to);
+                double[] end = clipToBox(to, from);
+                svg.append(String.format(Locale.ROOT,
+                        "<line x1=\"%.1f\" y1=\"%.1f\" x2=\"%.1f\" y2=\"%.1f\" stroke=\"#2B7C92\" marker-end=\"url(#arrow)\"/>\n",
+                        start[0], start[1], end[0], end[1]));
+            }
+        }
+
+        for (Map.Entry<String, int[]> entry : boxes.entrySet()) {
+            String tableName = escape(entry.getKey());
+            int[] box = entry.getValue();
+
+            svg.append("<g id=\"").append(tableName).append("\">\n");
+            svg.append("<rect x=\"").append(box[0]).append("\" y=\"").append(box[1]).append("\" width=\"").append(box[2])
+               .append("\" height=\"").append(box[3]).append("\" fill=\"#F2F2F5\" stroke=\"#2B7C92\"/>\n");
+            svg.append("<rect x=\"").append(box[0]).append("\" y=\"").append(box[1]).append("\" width=\"").append(box[2])
+               .append("\" height=\"").append(HEADER_HEIGHT).append("\" fill=\"#CFE0F1\" stroke=\"#2B7C92\"/>\n");
+            String title = "<text x=\"" + (box[0] + 6) + "\" y=\"" + (box[1] + 15)
+                    + "\" font-weight=\"bold\" fill=\"#2B7C92\">" + tableName + "</text>";
+            // Tables only referenced by the scripts have no page
+            if (this.tables.contains(entry.getKey())) {
+                title = "<a xlink:href=\"" + escape(this.tablesPath + "/" + entry.getKey() + ".html") + "\">" + title + "</a>";
+            }
+            svg.append(title).append('\n');
+
+            int rowY = box[1] + HEADER_HEIGHT + 12;
+            for (String[] row : boxRows.get(entry.getKey())) {
+                String text = "<text x=\"" + (box[0] + 6) + "\" y=\"" + rowY + "\">" + escape(row[0]) + "</text>";
+                if (row[1] != null) {
+                    text = "<a xlink:href=\"" + escape(row[1]) + "\">" + text + "</a>";
+                }
+                svg.append(text).append('\n');
+                rowY += ROW_HEIGHT;
+            }
+            svg.append("</g>\n");
+        }
+
+        return svg.append("</svg>").toString();
+    }
+
+    private List<String[]> getBoxRows(String tableName, List<String> cluster) {
+        List<String[]> rows = Lists.newArrayList();
+        for (String columnName : this.primaryKeyColumns.get(tableName)) {
+            rows.add(new String[]{"PK " + columnName, null});
+        }
+        for (ForeignKeyInfo foreignKey : this.foreignKeys.get(tableName)) {
+            String referencedTableName = ParsedSchema.objectKey(foreignKey.getReferencedTableName());
+            String text = "FK " + String.join(", ", foreignKey.getColumnNames()) + " -> " + referencedTableName;
+
+            // References into another diagram are rendered as links instead of edges
+            String link = null;
+            if (!cluster.contains(referencedTableName)) {
+                link = this.getClusterName(referencedTableName) + ".html#" + referencedTableName;
+            }
+            rows.add(new String[]{text, link});
+        }
+
+        return rows;
+    }
+
+    private static double[] clipToBox(int[] box, int[] otherBox) {
+        double centerX = box[0] + box[2] / 2.0;
+        double centerY = box[1] + box[3] / 2.0;
+        double dx = otherBox[0] + otherBox[2] / 2.0 - centerX;
+        double dy = otherBox[1] + otherBox[3] / 2.0 - centerY;
+
+        double scale = Math.min(dx == 0 ? Double.MAX_VALUE : box[2] / 2.0 / Math.abs(dx),
+                dy == 0 ? Double.MAX_VALUE : box[3] / 2.0 / Math.abs(dy));
+        return new double[]{centerX + dx * scale, centerY + dy * scale};
+    }
+
+    private static String escape(String text) {
+        return StringEscapeUtils.escapeXml10(text);
+    }
+}
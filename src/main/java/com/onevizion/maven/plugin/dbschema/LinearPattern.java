@@ -0,0 +1,851 @@
+package com.onevizion.maven.plugin.dbschema;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+// Regular expressions matched by a Pike VM, the time is linear in the input length for any pattern.
+// Backreferences, lookaround, atomic groups and possessive quantifiers need backtracking and are rejected
+public class LinearPattern {
+    private static final int MAX_PROGRAM_SIZE = 10000;
+
+    private static final int CHAR = 0;
+    private static final int MATCH = 1;
+    private static final int JMP = 2;
+    private static final int SPLIT = 3;
+    private static final int SAVE = 4;
+    private static final int ASSERT = 5;
+
+    private static final int BEGIN_TEXT = 0;
+    private static final int END_TEXT = 1;
+    private static final int END_TEXT_OR_TERMINATOR = 2;
+    private static final int BEGIN_LINE = 3;
+    private static final int END_LINE = 4;
+    private static final int WORD_BOUNDARY = 5;
+    private static final int NOT_WORD_BOUNDARY = 6;
+
+    private static final IntPredicate DIGIT = c -> c >= '0' && c <= '9';
+    private static final IntPredicate WORD = c -> c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '_' || DIGIT.test(c);
+    private static final IntPredicate SPACE = c -> c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    private static final IntPredicate LINE_TERMINATOR = c -> c == '\n' || c == '\r' || c == 0x85 || c == 0x2028
+            || c == 0x2029;
+
+    private final String regex;
+    private final Inst[] program;
+    private final int groupCount;
+    private final Map<String, Integer> groupNames;
+
+    // Characters a match can start with, null if it can start with an assertion or be empty
+    private final IntPredicate firstChars;
+
+    private static class Inst {
+        private final int op;
+        private final IntPredicate chars;
+        private int x;
+        private int y;
+
+        private Inst(int op, IntPredicate chars, int x, int y) {
+            this.op = op;
+            this.chars = chars;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    private LinearPattern(String regex, Inst[] program, int groupCount, Map<String, Integer> groupNames) {
+        this.regex = regex;
+        this.program = program;
+        this.groupCount = groupCount;
+        this.groupNames = groupNames;
+        this.firstChars = getFirstChars(program);
+    }
+
+    private static IntPredicate getFirstChars(Inst[] program) {
+        List<IntPredicate> chars = Lists.newArrayList();
+        boolean[] visited = new boolean[program.length];
+        Deque<Integer> pcs = new ArrayDeque<>();
+        pcs.push(0);
+        while (!pcs.isEmpty()) {
+            int pc = pcs.pop();
+            if (visited[pc]) {
+                continue;
+            }
+            visited[pc] = true;
+
+            Inst inst = program[pc];
+            if (inst.op == CHAR) {
+                chars.add(inst.chars);
+            } else if (inst.op == JMP) {
+                pcs.push(inst.x);
+            } else if (inst.op == SPLIT) {
+                pcs.push(inst.y);
+                pcs.push(inst.x);
+            } else if (inst.op == SAVE) {
+                pcs.push(pc + 1);
+            } else {
+                return null;
+            }
+        }
+        return c -> {
+            for (IntPredicate predicate : chars) {
+                if (predicate.test(c)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    public static LinearPattern compile(String regex, int flags) {
+        Parser parser = new Parser(regex, flags);
+        Node node = parser.parse();
+
+        List<Inst> program = Lists.newArrayList();
+        node.compile(program, regex);
+        program.add(new Inst(MATCH, null, 0, 0));
+        return new LinearPattern(regex, program.toArray(new Inst[0]), parser.groupCount, parser.groupNames);
+    }
+
+    public String pattern() {
+        return regex;
+    }
+
+    public String replaceAll(CharSequence input, String replacement) {
+        StringBuilder result = new StringBuilder(input.length());
+        int from = 0;
+        int appended = 0;
+
+        // The thread lists are as large as the program, they are allocated once for all matches
+        ThreadList current = new ThreadList(program.length);
+        ThreadList next = new ThreadList(program.length);
+        while (from <= input.length()) {
+            int[] groups = find(input, from, current, next);
+            if (groups == null) {
+                break;
+            }
+            result.append(input, appended, groups[0]);
+            appendReplacement(result, input, groups, replacement);
+            appended = groups[1];
+            // The next search after an empty match starts one character later, as in Matcher.find
+            from = groups[1] == groups[0] ? groups[1] + 1 : groups[1];
+        }
+
+        result.append(input, appended, input.length());
+        return result.toString();
+    }
+
+    private void appendReplacement(StringBuilder result, CharSequence input, int[] groups, String replacement) {
+        int index = 0;
+        while (index < replacement.length()) {
+            char c = replacement.charAt(index++);
+            if (c == '\\') {
+                if (index == replacement.length()) {
+                    throw new IllegalArgumentException("character to be escaped is missing");
+                }
+                result.append(replacement.charAt(index++));
+            } else if (c == '$') {
+                if (index == replacement.length()) {
+                    throw new IllegalArgumentException("Illegal group reference: group index is missing");
+                }
+
+                int group;
+                if (replacement.charAt(index) == '{') {
+                    int end = replacement.indexOf('}', index);
+                    if (end < 0) {
+                        throw new IllegalArgumentException("named capturing group is missing trailing '}'");
+                    }
+                    String name = replacement.substring(index + 1, end);
+                    if (!groupNames.containsKey(name)) {
+                        throw new IllegalArgumentException("No group with name {" + name + "}");
+                    }
+                    group = groupNames.get(name);
+                    index = end + 1;
+                } else {
+                    if (!DIGIT.test(replacement.charAt(index))) {
+                        throw new IllegalArgumentException("Illegal group reference");
+                    }
+                    group = replacement.charAt(index++) - '0';
+                    // The longest group number that exists is taken
+                    while (index < replacement.length() && DIGIT.test(replacement.charAt(index))) {
+                        int nextGroup = group * 10 + replacement.charAt(index) - '0';
+                        if (nextGroup > groupCount) {
+                            break;
+                        }
+                        group = nextGroup;
+                        index++;
+                    }
+                    if (group > groupCount) {
+                        throw new IndexOutOfBoundsException("No group " + group);
+                    }
+                }
+
+                if (groups[2 * group] >= 0 && groups[2 * group + 1] >= 0) {
+                    result.append(input, groups[2 * group], groups[2 * group + 1]);
+                }
+            } else {
+                result.append(c);
+            }
+        }
+    }
+
+    private static class ThreadList {
+        private final int[] pcs;
+        private final int[][] groups;
+        private final boolean[] visited;
+        private int size = 0;
+
+        private ThreadList(int programSize) {
+            this.pcs = new int[programSize];
+            this.groups = new int[programSize][];
+            this.visited = new boolean[programSize];
+        }
+
+        private void add(int pc, int[] threadGroups) {
+            visited[pc] = true;
+            pcs[size] = pc;
+            groups[size++] = threadGroups;
+        }
+
+        private void clear() {
+            for (int i = 0; i < size; i++) {
+                visited[pcs[i]] = false;
+                groups[i] = null;
+            }
+            size = 0;
+        }
+    }
+
+    // Leftmost match with the priorities of a backtracking matcher. One unanchored pass: until a match is found
+    // a thread starts at every position, every thread steps over each character once
+    private int[] find(CharSequence input, int from, ThreadList current, ThreadList next) {
+        int length = input.length();
+        current.clear();
+        next.clear();
+        int[] matched = null;
+
+        for (int pos = from; pos <= length; pos++) {
+            int c = pos < length ? input.charAt(pos) : -1;
+            if (matched == null) {
+                // Positions no match can start at cost nothing
+                if (firstChars == null || c >= 0 && firstChars.test(c)) {
+                    int[] groups = new int[2 * groupCount + 2];
+                    Arrays.fill(groups, -1);
+                    groups[0] = pos;
+                    addThread(current, 0, groups, input, pos);
+                }
+            } else if (current.size == 0) {
+                break;
+            }
+
+            for (int i = 0; i < current.size; i++) {
+                Inst inst = program[current.pcs[i]];
+                if (inst.op == MATCH) {
+                    matched = current.groups[i].clone();
+                    matched[1] = pos;
+                    // Threads of lower priority can not win anymore
+                    break;
+                } else if (inst.op == CHAR && c >= 0 && inst.chars.test(c)) {
+                    addThread(next, current.pcs[i] + 1, current.groups[i], input, pos + 1);
+                }
+            }
+
+            ThreadList swap = current;
+            current = next;
+            next = swap;
+            next.clear();
+        }
+        return matched;
+    }
+
+    private void addThread(ThreadList list, int pc, int[] groups, CharSequence input, int pos) {
+        if (list.visited[pc]) {
+            return;
+        }
+        list.add(pc, groups);
+
+        Inst inst = program[pc];
+        if (inst.op == JMP) {
+            addThread(list, inst.x, groups, input, pos);
+        } else if (inst.op == SPLIT) {
+            addThread(list, inst.x, groups, input, pos);
+            addThread(list, inst.y, groups, input, pos);
+        } else if (inst.op == SAVE) {
+            int[] savedGroups = groups.clone();
+            savedGroups[inst.x] = pos;
+            addThread(list, pc + 1, savedGroups, input, pos);
+        } else if (inst.op == ASSERT && isAsserted(inst.x, input, pos)) {
+            addThread(list, pc + 1, groups, input, pos);
+        }
+    }
+
+    private static boolean isAsserted(int assertion, CharSequence input, int pos) {
+        int length = input.length();
+        switch (assertion) {
+            case BEGIN_TEXT:
+                return pos == 0;
+            case END_TEXT:
+                return pos == length;
+            case END_TEXT_OR_TERMINATOR:
+                return pos == length || pos == length - 1 && input.charAt(pos) == '\n';
+            case BEGIN_LINE:
+                return pos == 0 || pos < length && input.charAt(pos - 1) == '\n';
+            case END_LINE:
+                return pos == length || input.charAt(pos) == '\n';
+            default:
+                boolean boundary = isWordChar(input, pos - 1) != isWordChar(input, pos);
+                return assertion == WORD_BOUNDARY ? boundary : !boundary;
+        }
+    }
+
+    private static boolean isWordChar(CharSequence input, int pos) {
+        if (pos < 0 || pos >= input.length()) {
+            return false;
+        }
+        char c = input.charAt(pos);
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private abstract static class Node {
+        abstract void compile(List<Inst> program, String regex);
+
+        static Inst add(List<Inst> program, Inst inst, String regex) {
+            if (program.size() >= MAX_PROGRAM_SIZE) {
+                throw new PatternSyntaxException("Pattern is too large for the linear regexp engine", regex, -1);
+            }
+            program.add(inst);
+            return inst;
+        }
+    }
+
+    private static class CharNode extends Node {
+        private final IntPredicate chars;
+
+        private CharNode(IntPredicate chars) {
+            this.chars = chars;
+        }
+
+        @Override
+        void compile(List<Inst> program, String regex) {
+            add(program, new Inst(CHAR, chars, 0, 0), regex);
+        }
+    }
+
+    private static class AssertNode extends Node {
+        private final int assertion;
+
+        private AssertNode(int assertion) {
+            this.assertion = assertion;
+        }
+
+        @Override
+        void compile(List<Inst> program, String regex) {
+            add(program, new Inst(ASSERT, null, assertion, 0), regex);
+        }
+    }
+
+    private static class SequenceNode extends Node {
+        private final List<Node> nodes;
+
+        private SequenceNode(List<Node> nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        void compile(List<Inst> program, String regex) {
+            for (Node node : nodes) {
+                node.compile(program, regex);
+            }
+        }
+    }
+
+    private static class AlternationNode extends Node {
+        private final List<Node> alternatives;
+
+        private AlternationNode(List<Node> alternatives) {
+            this.alternatives = alternatives;
+        }
+
+        @Override
+        void compile(List<Inst> program, String regex) {
+            List<Inst> jumps = Lists.newArrayList();
+            for (int i = 0; i < alternatives.size(); i++) {
+                if (i < alternatives.size() - 1) {
+                    Inst split = add(program, new Inst(SPLIT, null, program.size() + 1, 0), regex);
+                    alternatives.get(i).compile(program, regex);
+                    jumps.add(add(program, new Inst(JMP, null, 0, 0), regex));
+                    split.y = program.size();
+                } else {
+                    alternatives.get(i).compile(program, regex);
+                }
+            }
+            for (Inst jump : jumps) {
+                jump.x = program.size();
+            }
+        }
+    }
+
+    private static class GroupNode extends Node {
+        private final Node node;
+        private final int index;
+
+        private GroupNode(Node node, int index) {
+            this.node = node;
+            this.index = index;
+        }
+
+        @Override
+        void compile(List<Inst> program, String regex) {
+            add(program, new Inst(SAVE, null, 2 * index, 0), regex);
+            node.compile(program, regex);
+            add(program, new Inst(SAVE, null, 2 * index + 1, 0), regex);
+        }
+    }
+
+    private static class RepeatNode extends Node {
+        private final Node node;
+        private final int min;
+        private final int max;
+        private final boolean greedy;
+
+        private RepeatNode(Node node, int min, int max, boolean greedy) {
+            this.node = node;
+            this.min = min;
+            this.max = max;
+            this.greedy = greedy;
+        }
+
+        @Override
+        void compile(List<Inst> program, String regex) {
+            for (int i = 0; i < min; i++) {
+                node.compile(program, regex);
+            }
+
+            if (max < 0) {
+                int loop = program.size();
+                Inst split = add(program, new Inst(SPLIT, null, 0, 0), regex);
+                node.compile(program, regex);
+                add(program, new Inst(JMP, null, loop, 0), regex);
+                setBranches(split, loop + 1, program.size());
+            } else {
+                List<Inst> splits = Lists.newArrayList();
+                for (int i = min; i < max; i++) {
+                    splits.add(add(program, new Inst(SPLIT, null, program.size() + 1, 0), regex));
+                    node.compile(program, regex);
+                }
+                for (Inst split : splits) {
+                    setBranches(split, split.x, program.size());
+                }
+            }
+        }
+
+        private void setBranches(Inst split, int repeat, int exit) {
+            split.x = greedy ? repeat : exit;
+            split.y = greedy ? exit : repeat;
+        }
+    }
+
+    private static class Parser {
+        private final String regex;
+        private int pos = 0;
+        private int flags;
+        private int groupCount = 0;
+        private final Map<String, Integer> groupNames = Maps.newHashMap();
+
+        private Parser(String regex, int flags) {
+            this.regex = regex;
+            this.flags = flags;
+        }
+
+        private Node parse() {
+            Node node = parseAlternation();
+            if (pos < regex.length()) {
+                throw error("Unmatched closing ')'");
+            }
+            return node;
+        }
+
+        private PatternSyntaxException error(String description) {
+            return new PatternSyntaxException(description, regex, pos);
+        }
+
+        private PatternSyntaxException unsupported(String construct) {
+            return error(construct + " is not supported by the linear regexp engine");
+        }
+
+        private boolean hasFlag(int flag) {
+            return (flags & flag) != 0;
+        }
+
+        private Node parseAlternation() {
+            List<Node> alternatives = Lists.newArrayList(parseSequence());
+            while (pos < regex.length() && regex.charAt(pos) == '|') {
+                pos++;
+                alternatives.add(parseSequence());
+            }
+            return alternatives.size() == 1 ? alternatives.get(0) : new AlternationNode(alternatives);
+        }
+
+        private Node parseSequence() {
+            List<Node> nodes = Lists.newArrayList();
+            while (pos < regex.length() && regex.charAt(pos) != '|' && regex.charAt(pos) != ')') {
+                Node node = parseAtom();
+                if (node != null) {
+                    nodes.add(parseQuantifier(node));
+                }
+            }
+            return new SequenceNode(nodes);
+        }
+
+        private Node parseQuantifier(Node node) {
+            if (pos >= regex.length()) {
+                return node;
+            }
+
+            int min;
+            int max;
+            char c = regex.charAt(pos);
+            if (c == '*') {
+                min = 0;
+                max = -1;
+            } else if (c == '+') {
+                min = 1;
+                max = -1;
+            } else if (c == '?') {
+                min = 0;
+                max = 1;
+            } else if (c == '{') {
+                int end = regex.indexOf('}', pos);
+                String[] bounds = end < 0 ? new String[0] : regex.substring(pos + 1, end).split(",", -1);
+                if (bounds.length < 1 || bounds.length > 2 || !bounds[0].matches("\\d+")
+                        || bounds.length == 2 && !bounds[1].matches("\\d*")) {
+                    throw error("Illegal repetition");
+                }
+                min = Integer.parseInt(bounds[0]);
+                max = bounds.length == 1 ? min : bounds[1].isEmpty() ? -1 : Integer.parseInt(bounds[1]);
+                if (max >= 0 && max < min) {
+                    throw error("Illegal repetition range");
+                }
+                pos = end;
+            } else {
+                return node;
+            }
+            pos++;
+
+            boolean greedy = true;
+            if (pos < regex.length() && regex.charAt(pos) == '?') {
+                greedy = false;
+                pos++;
+            } else if (pos < regex.length() && regex.charAt(pos) == '+') {
+                throw unsupported("Possessive quantifier");
+            }
+            if (pos < regex.length() && "*+?{".indexOf(regex.charAt(pos)) >= 0) {
+                throw error("Dangling meta character '" + regex.charAt(pos) + "'");
+            }
+            return new RepeatNode(node, min, max, greedy);
+        }
+
+        private Node parseAtom() {
+            char c = regex.charAt(pos++);
+            switch (c) {
+                case '(':
+                    return parseGroup();
+                case '[':
+                    return new CharNode(parseClass());
+                case '.':
+                    return new CharNode(hasFlag(Pattern.DOTALL) ? ch -> true : LINE_TERMINATOR.negate());
+                case '^':
+                    return new AssertNode(hasFlag(Pattern.MULTILINE) ? BEGIN_LINE : BEGIN_TEXT);
+                case '$':
+                    return new AssertNode(hasFlag(Pattern.MULTILINE) ? END_LINE : END_TEXT_OR_TERMINATOR);
+                case '\\':
+                    return parseEscape();
+                case '*':
+                case '+':
+                case '?':
+                case '{':
+                    pos--;
+                    throw error("Dangling meta character '" + c + "'");
+                default:
+                    return new CharNode(literal(c));
+            }
+        }
+
+        private Node parseGroup() {
+            int savedFlags = flags;
+            int index = -1;
+
+            if (regex.startsWith("?", pos)) {
+                pos++;
+                if (regex.startsWith("=", pos) || regex.startsWith("!", pos) || regex.startsWith("<=", pos)
+                        || regex.startsWith("<!", pos)) {
+                    throw unsupported("Lookaround");
+                } else if (regex.startsWith(">", pos)) {
+                    throw unsupported("Atomic group");
+                } else if (regex.startsWith("<", pos)) {
+                    int end = regex.indexOf('>', pos);
+                    if (end < 0) {
+                        throw error("Named capturing group is missing trailing '>'");
+                    }
+                    index = ++groupCount;
+                    groupNames.put(regex.substring(pos + 1, end), index);
+                    pos = end + 1;
+                } else {
+                    boolean enable = true;
+                    while (pos < regex.length() && regex.charAt(pos) != ':' && regex.charAt(pos) != ')') {
+                        char flag = regex.charAt(pos++);
+                        int mask;
+                        if (flag == '-') {
+                            enable = false;
+                            continue;
+                        } else if (flag == 'i') {
+                            mask = Pattern.CASE_INSENSITIVE;
+                        } else if (flag == 's') {
+                            mask = Pattern.DOTALL;
+                        } else if (flag == 'm') {
+                            mask = Pattern.MULTILINE;
+                        } else {
+                            throw unsupported("Flag '" + flag + "'");
+                        }
+                        flags = enable ? flags | mask : flags & ~mask;
+                    }
+                    if (pos >= regex.length()) {
+                        throw error("Unclosed group");
+                    }
+                    // The flags without a group apply to the rest of the enclosing group
+                    if (regex.charAt(pos++) == ')') {
+                        return null;
+                    }
+                }
+            } else {
+                index = ++groupCount;
+            }
+
+            Node node = parseAlternation();
+            if (pos >= regex.length() || regex.charAt(pos) != ')') {
+                throw error("Unclosed group");
+            }
+            pos++;
+            flags = savedFlags;
+            return index < 0 ? node : new GroupNode(node, index);
+        }
+
+        private Node parseEscape() {
+            if (pos >= regex.length()) {
+                throw error("Unexpected internal error");
+            }
+            char c = regex.charAt(pos);
+            switch (c) {
+                case 'b':
+                    pos++;
+                    return new AssertNode(WORD_BOUNDARY);
+                case 'B':
+                    pos++;
+                    return new AssertNode(NOT_WORD_BOUNDARY);
+                case 'A':
+                    pos++;
+                    return new AssertNode(BEGIN_TEXT);
+                case 'z':
+                    pos++;
+                    return new AssertNode(END_TEXT);
+                case 'Z':
+                    pos++;
+                    return new AssertNode(END_TEXT_OR_TERMINATOR);
+                case 'Q':
+                    pos++;
+                    int end = regex.indexOf("\\E", pos);
+                    String quoted = regex.substring(pos, end < 0 ? regex.length() : end);
+                    pos = end < 0 ? regex.length() : end + 2;
+                    List<Node> nodes = Lists.newArrayList();
+                    for (char quotedChar : quoted.toCharArray()) {
+                        nodes.add(new CharNode(literal(quotedChar)));
+                    }
+                    return new SequenceNode(nodes);
+                default:
+                    return new CharNode(parseClassEscape());
+            }
+        }
+
+        // Escapes that are allowed both inside and outside of a character class
+        private IntPredicate parseClassEscape() {
+            char c = regex.charAt(pos);
+            switch (c) {
+                case 'd':
+                    pos++;
+                    return DIGIT;
+                case 'D':
+                    pos++;
+                    return DIGIT.negate();
+                case 'w':
+                    pos++;
+                    return WORD;
+                case 'W':
+                    pos++;
+                    return WORD.negate();
+                case 's':
+                    pos++;
+                    return SPACE;
+                case 'S':
+                    pos++;
+                    return SPACE.negate();
+                default:
+                    return literal(parseEscapedChar());
+            }
+        }
+
+        private char parseEscapedChar() {
+            char c = regex.charAt(pos++);
+            switch (c) {
+                case 't':
+                    return '\t';
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                case 'f':
+                    return '\f';
+                case 'a':
+                    return 0x07;
+                case 'e':
+                    return 0x1B;
+                case 'x':
+                    if (regex.startsWith("{", pos)) {
+                        int end = regex.indexOf('}', pos);
+                        if (end < 0) {
+                            throw error("Unclosed hexadecimal escape sequence");
+                        }
+                        int codePoint = parseHex(regex.substring(pos + 1, end));
+                        pos = end + 1;
+                        if (codePoint > Character.MAX_VALUE) {
+                            throw unsupported("Supplementary character");
+                        }
+                        return (char) codePoint;
+                    }
+                    return (char) parseHex(take(2));
+                case 'u':
+                    return (char) parseHex(take(4));
+                case '0':
+                    int value = 0;
+                    int digits = 0;
+                    while (digits < 3 && pos < regex.length() && regex.charAt(pos) >= '0' && regex.charAt(pos) <= '7'
+                            && value * 8 + regex.charAt(pos) - '0' <= 0377) {
+                        value = value * 8 + regex.charAt(pos++) - '0';
+                        digits++;
+                    }
+                    if (digits == 0) {
+                        throw error("Illegal octal escape sequence");
+                    }
+                    return (char) value;
+                case 'c':
+                    if (pos >= regex.length()) {
+                        throw error("Illegal control escape sequence");
+                    }
+                    return (char) (regex.charAt(pos++) ^ 64);
+                case 'k':
+                    throw unsupported("Backreference");
+                case 'p':
+                case 'P':
+                    throw unsupported("Unicode property");
+                default:
+                    if (c >= '1' && c <= '9') {
+                        throw unsupported("Backreference");
+                    }
+                    if (Character.isLetter(c)) {
+                        throw unsupported("Escape \\" + c);
+                    }
+                    return c;
+            }
+        }
+
+        private String take(int length) {
+            if (pos + length > regex.length()) {
+                throw error("Illegal escape sequence");
+            }
+            String value = regex.substring(pos, pos + length);
+            pos += length;
+            return value;
+        }
+
+        private int parseHex(String value) {
+            try {
+                return Integer.parseInt(value, 16);
+            } catch (NumberFormatException e) {
+                throw error("Illegal hexadecimal escape sequence");
+            }
+        }
+
+        private IntPredicate parseClass() {
+            boolean negated = false;
+            if (regex.startsWith("^", pos)) {
+                negated = true;
+                pos++;
+            }
+
+            IntPredicate chars = ch -> false;
+            boolean first = true;
+            while (true) {
+                if (pos >= regex.length()) {
+                    throw error("Unclosed character class");
+                }
+                char c = regex.charAt(pos);
+                if (c == ']' && !first) {
+                    pos++;
+                    break;
+                }
+                first = false;
+
+                if (regex.startsWith("&&", pos)) {
+                    throw unsupported("Character class intersection");
+                } else if (c == '[') {
+                    pos++;
+                    chars = chars.or(parseClass());
+                    continue;
+                }
+
+                IntPredicate item;
+                int low = -1;
+                pos++;
+                if (c == '\\' && pos < regex.length() && "dDwWsS".indexOf(regex.charAt(pos)) >= 0) {
+                    item = parseClassEscape();
+                } else {
+                    low = c == '\\' ? parseEscapedChar() : c;
+                    item = literal((char) low);
+                }
+
+                if (low >= 0 && regex.startsWith("-", pos) && pos + 1 < regex.length() && regex.charAt(pos + 1) != ']') {
+                    pos++;
+                    char high = regex.charAt(pos++);
+                    if (high == '\\') {
+                        high = parseEscapedChar();
+                    }
+                    if (high < low) {
+                        throw error("Illegal character range");
+                    }
+                    int rangeLow = low;
+                    int rangeHigh = high;
+                    item = ignoreCase(ch -> ch >= rangeLow && ch <= rangeHigh);
+                }
+                chars = chars.or(item);
+            }
+            return negated ? chars.negate() : chars;
+        }
+
+        private IntPredicate literal(char c) {
+            return ignoreCase(ch -> ch == c);
+        }
+
+        private IntPredicate ignoreCase(IntPredicate chars) {
+            if (!hasFlag(Pattern.CASE_INSENSITIVE)) {
+                return chars;
+            }
+            return ch -> chars.test(ch) || chars.test(Character.toLowerCase(ch)) || chars.test(Character.toUpperCase(ch));
+        }
+    }
+}
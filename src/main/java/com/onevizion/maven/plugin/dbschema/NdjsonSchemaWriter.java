@@ -0,0 +1,195 @@
+package com.onevizion.maven.plugin.dbschema;
+
+import com.google.common.collect.Sets;
+import com.onevizion.maven.plugin.dbschema.DdlParser.ForeignKeyInfo;
+import com.onevizion.maven.plugin.dbschema.DdlParser.ObjectDefinitionInfo;
+import com.onevizion.maven.plugin.dbschema.DdlParser.ObjectInfoCommentInfo;
+import com.onevizion.maven.plugin.dbschema.DdlParser.TableColumnInfo;
+import com.onevizion.maven.plugin.dbschema.DdlParser.ViewColumnInfo;
+import com.onevizion.maven.plugin.dbschema.vo.DbObjectType;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringEscapeUtils;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+// One JSON object per line, every object is written as soon as its script is parsed
+public class NdjsonSchemaWriter implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer writer;
+    private final StringBuilder line = new StringBuilder();
+    private int objectCount = 0;
+
+    public NdjsonSchemaWriter(File file) throws IOException {
+        FileUtils.forceMkdirParent(file);
+        this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8),
+                BUFFER_SIZE);
+    }
+
+    public int getObjectCount() {
+        return this.objectCount;
+    }
+
+    public void writeSchema(DdlParser ddlParser) throws IOException {
+        Set<String> tableNames = Sets.newLinkedHashSet();
+        ddlParser.getTablesColumnsInfos().forEach(info -> tableNames.add(info.getObjectName()));
+        for (String tableName : tableNames) {
+            this.writeTable(ddlParser, tableName);
+        }
+
+        Set<String> viewNames = Sets.newLinkedHashSet();
+        ddlParser.getViewsColumnsInfos().forEach(info -> viewNames.add(info.getObjectName()));
+        for (String viewName : viewNames) {
+            this.writeView(ddlParser, viewName);
+        }
+
+        for (DbObjectType objectType : new DbObjectType[]{DbObjectType.INDEX, DbObjectType.SEQUENCE, DbObjectType.TRIGGER}) {
+            for (ObjectDefinitionInfo definitionInfo : ddlParser.getObjectDefinitions(objectType)) {
+                this.writeObjectDefinition(definitionInfo);
+            }
+        }
+    }
+
+    private void writeTable(DdlParser ddlParser, String tableName) throws IOException {
+        this.line.setLength(0);
+        this.line.append("{\"type\":\"TABLE\",\"name\":");
+        this.appendString(tableName);
+        this.line.append(",\"comment\":");
+        this.appendComment(ddlParser.getTableComment(tableName));
+
+        this.line.append(",\"columns\":[");
+        String separator = "";
+        for (TableColumnInfo columnInfo : ddlParser.getTableColumnsInfos(tableName)) {
+            this.line.append(separator).append("{\"name\":");
+            this.appendString(columnInfo.getColumnName());
+            this.line.append(",\"id\":").append(columnInfo.getColumnId());
+            this.line.append(",\"type\":");
+            this.appendString(columnInfo.getDataType());
+            this.line.append(",\"nullable\":").append("Yes".equals(columnInfo.getNullable()));
+            this.line.append(",\"default\":");
+            this.appendString("null".equals(columnInfo.getDataDefault()) ? null : columnInfo.getDataDefault());
+            this.line.append(",\"comment\":");
+            this.appendString(columnInfo.getCommentMessage().isEmpty() ? null : columnInfo.getCommentMessage());
+            this.line.append('}');
+            separator = ",";
+        }
+        this.line.append(']');
+
+        this.line.append(",\"primaryKey\":");
+        this.appendStrings(ddlParser.getPrimaryKeyColumns(tableName));
+
+        this.line.append(",\"foreignKeys\":[");
+        separator = "";
+        for (ForeignKeyInfo foreignKeyInfo : ddlParser.getForeignKeys(tableName)) {
+            this.line.append(separator).append("{\"columns\":");
+            this.appendStrings(foreignKeyInfo.getColumnNames());
+            this.line.append(",\"referencedTable\":");
+            this.appendString(foreignKeyInfo.getReferencedTableName());
+            this.line.append(",\"referencedColumns\":");
+            this.appendStrings(foreignKeyInfo.getReferencedColumnNames());
+            this.line.append('}');
+            separator = ",";
+        }
+        this.line.append("]}");
+
+        this.writeLine();
+    }
+
+    private void writeView(DdlParser ddlParser, String viewName) throws IOException {
+        this.line.setLength(0);
+        this.line.append("{\"type\":\"VIEW\",\"name\":");
+        this.appendString(viewName);
+        this.line.append(",\"comment\":");
+        this.appendComment(ddlParser.getViewComment(viewName));
+
+        this.line.append(",\"columns\":[");
+        String separator = "";
+        for (ViewColumnInfo columnInfo : ddlParser.getViewColumnsInfos(viewName)) {
+            this.line.append(separator).append("{\"name\":");
+            this.appendString(columnInfo.getColumnName());
+            this.line.append(",\"id\":").append(columnInfo.getColumnId());
+            this.line.append(",\"type\":");
+            this.appendString(columnInfo.getDataType());
+            this.line.append(",\"nullable\":").append(columnInfo.getNullable() != null
+                    ? String.valueOf("Yes".equals(columnInfo.getNullable())) : "null");
+            this.line.append(",\"comment\":");
+            this.appendString(columnInfo.getCommentMessage().isEmpty() ? null : columnInfo.getCommentMessage());
+            this.line.append('}');
+            separator = ",";
+        }
+        this.line.append(']');
+
+        this.line.append(",\"baseObjects\":");
+        this.appendStrings(ddlParser.getViewBaseObjects(viewName));
+        this.line.append('}');
+
+        this.writeLine();
+    }
+
+    private void writeObjectDefinition(ObjectDefinitionInfo definitionInfo) throws IOException {
+        this.line.setLength(0);
+        this.line.append("{\"type\":");
+        this.appendString(definitionInfo.getObjectType().name());
+        this.line.append(",\"name\":");
+        this.appendString(definitionInfo.getObjectName());
+        this.line.append(",\"table\":");
+        this.appendString(definitionInfo.getTableName());
+
+        this.line.append(",\"properties\":{");
+        String separator = "";
+        for (Map.Entry<String, String> property : definitionInfo.getProperties().entrySet()) {
+            this.line.append(separator);
+            this.appendString(property.getKey());
+            this.line.append(':');
+            this.appendString(property.getValue());
+            separator = ",";
+        }
+        this.line.append("}}");
+
+        this.writeLine();
+    }
+
+    private void appendComment(ObjectInfoCommentInfo commentInfo) {
+        this.appendString(commentInfo != null && !commentInfo.getCommentMessage().isEmpty()
+                ? commentInfo.getCommentMessage() : null);
+    }
+
+    private void appendStrings(Collection<String> values) {
+        this.line.append('[');
+        String separator = "";
+        for (String value : values) {
+            this.line.append(separator);
+            this.appendString(value);
+            separator = ",";
+        }
+        this.line.append(']');
+    }
+
+    private void appendString(String value) {
+        if (value == null) {
+            this.line.append("null");
+        } else {
+            this.line.append('"').append(StringEscapeUtils.escapeJson(value)).append('"');
+        }
+    }
+
+    private void writeLine() throws IOException {
+        this.writer.append(this.line).append('\n');
+        this.objectCount++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+}
@@ -0,0 +1,129 @@
+package com.onevizion.maven.plugin.dbschema;
+
+import com.google.common.collect.Maps;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+// Parse times of the scripts by path, recorded by every run for the scheduling of the next one. A script without
+// a recorded time is estimated from its size and the throughput of the recorded scripts
+public class ParseCosts {
+    private static final String ARCHIVE_SEPARATOR = "!" + File.separator;
+    private static final String RUN_PREFIX = "#run\t";
+
+    private static class Cost {
+        private final long size;
+        private final long nanos;
+
+        private Cost(long size, long nanos) {
+            this.size = size;
+            this.nanos = nanos;
+        }
+    }
+
+    private final Map<String, Cost> previousCosts = Maps.newHashMap();
+    private final Map<String, Cost> costs = new ConcurrentHashMap<>();
+
+    // Duration and input size of the last whole run, rendering included
+    private Cost run;
+
+    public static ParseCosts load(File file) throws IOException {
+        ParseCosts parseCosts = new ParseCosts();
+        if (file == null || !file.isFile()) {
+            return parseCosts;
+        }
+
+        for (String line : FileUtils.readLines(file, StandardCharsets.UTF_8)) {
+            boolean runLine = line.startsWith(RUN_PREFIX);
+            String[] parts = (runLine ? line.substring(RUN_PREFIX.length()) : line).split("\t", 3);
+            try {
+                if (runLine && parts.length >= 2) {
+                    parseCosts.run = new Cost(Long.parseLong(parts[1]), Long.parseLong(parts[0]));
+                } else if (parts.length == 3) {
+                    parseCosts.previousCosts.put(parts[2], new Cost(Long.parseLong(parts[1]), Long.parseLong(parts[0])));
+                }
+            } catch (NumberFormatException e) {
+                // A damaged line only costs the estimate of one script
+            }
+        }
+        return parseCosts;
+    }
+
+    public void record(File script, long nanos) {
+        this.costs.put(script.getAbsolutePath(), new Cost(script.length(), nanos));
+    }
+
+    public void recordRun(long nanos, long size) {
+        this.run = new Cost(size, nanos);
+    }
+
+    // Nanoseconds per input byte of the last whole run, 0 without any history
+    public double getRunNanosPerByte() {
+        return this.run != null && this.run.size > 0 ? (double) this.run.nanos / this.run.size : 0;
+    }
+
+    private Cost getCost(String path) {
+        Cost cost = this.costs.get(path);
+        return cost != null ? cost : this.previousCosts.get(path);
+    }
+
+    public int getRecordedCount() {
+        Map<String, Cost> allCosts = Maps.newHashMap(this.previousCosts);
+        allCosts.putAll(this.costs);
+        return allCosts.size();
+    }
+
+    // Nanoseconds per byte of all recorded scripts, 0 without any history
+    public double getNanosPerByte() {
+        Map<String, Cost> allCosts = Maps.newHashMap(this.previousCosts);
+        allCosts.putAll(this.costs);
+
+        long size = 0;
+        long nanos = 0;
+        for (Cost cost : allCosts.values()) {
+            size += cost.size;
+            nanos += cost.nanos;
+        }
+        return size > 0 ? (double) nanos / size : 0;
+    }
+
+    // Estimated nanoseconds, or bytes when nothing is recorded yet, the estimates of one call are comparable.
+    // A script that changed is scaled by its new size
+    public ToLongFunction<File> estimator() {
+        double nanosPerByte = this.getNanosPerByte();
+        return script -> {
+            Cost cost = this.getCost(script.getAbsolutePath());
+            if (cost != null && nanosPerByte > 0) {
+                return cost.size == script.length() || cost.size == 0 ? cost.nanos
+                                                                      : cost.nanos * script.length() / cost.size;
+            }
+            return nanosPerByte > 0 ? (long) (script.length() * nanosPerByte) : script.length();
+        };
+    }
+
+    // The scripts of this run replace their earlier times, the times of scripts that are gone are dropped
+    public void save(File file) throws IOException {
+        Map<String, Cost> allCosts = Maps.newTreeMap();
+        allCosts.putAll(this.previousCosts);
+        allCosts.putAll(this.costs);
+
+        StringBuilder content = new StringBuilder();
+        if (this.run != null) {
+            content.append(RUN_PREFIX).append(this.run.nanos).append('\t').append(this.run.size).append('\n');
+        }
+        for (Map.Entry<String, Cost> entry : allCosts.entrySet()) {
+            String path = entry.getKey();
+            int separator = path.indexOf(ARCHIVE_SEPARATOR);
+            if (new File(separator > 0 ? path.substring(0, separator) : path).isFile()) {
+                content.append(entry.getValue().nanos).append('\t').append(entry.getValue().size).append('\t')
+                       .append(path).append('\n');
+            }
+        }
+        FileUtils.writeStringToFile(file, content.toString(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,152 @@
+package com.onevizion.maven.plugin.dbschema;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.File;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Problems found while parsing and linking, collected from the parsing threads and reported once when the run
+// is done. Every problem is counted by kind and script, the details are kept up to a limit, so a broken export
+// floods neither the log nor the memory. Messages are only formatted for the report
+public class ParseDiagnostics {
+    public static final int DEFAULT_MAX_DETAILS = 10000;
+
+    public enum Kind {
+        SYNTAX_ERROR("syntax errors", "Syntax error near \"%s\""),
+        PARSE_ERROR("parse failures", "Can not parse: %s"),
+        READ_ERROR("unreadable scripts", "Can not read: %s"),
+        OBJECT_NOT_FOUND("comments on missing tables or views", "Table or view with name '%s' not found!"),
+        UNKNOWN_COMMENT("comments on unsupported objects", "Unknown comment statement type: %s");
+
+        private final String description;
+        private final String format;
+
+        Kind(String description, String format) {
+            this.description = description;
+            this.format = format;
+        }
+
+        public String getDescription() {
+            return this.description;
+        }
+    }
+
+    public static class Diagnostic {
+        private final Kind kind;
+        private final File file;
+        private final int line;
+        private final int column;
+        private final String text;
+
+        private Diagnostic(Kind kind, File file, int line, int column, String text) {
+            this.kind = kind;
+            this.file = file;
+            this.line = line;
+            this.column = column;
+            this.text = text;
+        }
+
+        public Kind getKind() {
+            return this.kind;
+        }
+
+        public File getFile() {
+            return this.file;
+        }
+
+        public int getLine() {
+            return this.line;
+        }
+
+        public int getColumn() {
+            return this.column;
+        }
+
+        public String getMessage() {
+            return String.format(this.kind.format, this.text);
+        }
+    }
+
+    private final int maxDetails;
+    private final Map<Kind, LongAdder> counts = Maps.newEnumMap(Kind.class);
+    private final Map<Kind, Map<File, LongAdder>> fileCounts = Maps.newEnumMap(Kind.class);
+    private final ConcurrentLinkedQueue<Diagnostic> details = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger detailCount = new AtomicInteger();
+
+    public ParseDiagnostics(int maxDetails) {
+        this.maxDetails = maxDetails;
+
+        // Filled once, so the maps of the kinds are only read by the parsing threads
+        for (Kind kind : Kind.values()) {
+            this.counts.put(kind, new LongAdder());
+            this.fileCounts.put(kind, new ConcurrentHashMap<>());
+        }
+    }
+
+    public void add(Kind kind, File file, String text) {
+        this.add(kind, file, 0, 0, text);
+    }
+
+    public void add(Kind kind, File file, int line, int column, String text) {
+        this.counts.get(kind).increment();
+        if (file != null) {
+            this.fileCounts.get(kind).computeIfAbsent(file, key -> new LongAdder()).increment();
+        }
+        if (this.detailCount.get() < this.maxDetails && this.detailCount.incrementAndGet() <= this.maxDetails) {
+            this.details.add(new Diagnostic(kind, file, line, column, text));
+        }
+    }
+
+    public long getCount() {
+        return this.counts.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public long getCount(Kind kind) {
+        return this.counts.get(kind).sum();
+    }
+
+    // Scripts with the most problems first
+    public List<Map.Entry<File, Long>> getFileCounts(Kind kind) {
+        List<Map.Entry<File, Long>> fileCounts = Lists.newArrayList();
+        for (Map.Entry<File, LongAdder> entry : this.fileCounts.get(kind).entrySet()) {
+            fileCounts.add(Maps.immutableEntry(entry.getKey(), entry.getValue().sum()));
+        }
+        fileCounts.sort(Map.Entry.<File, Long>comparingByValue().reversed()
+                                 .thenComparing(entry -> entry.getKey().getPath()));
+        return fileCounts;
+    }
+
+    // Details of a kind, by script and position
+    public Map<File, List<Diagnostic>> getDetails(Kind kind) {
+        Map<File, List<Diagnostic>> details = Maps.newHashMap();
+        for (Diagnostic diagnostic : this.details) {
+            if (diagnostic.kind == kind) {
+                details.computeIfAbsent(diagnostic.file, key -> Lists.newArrayList()).add(diagnostic);
+            }
+        }
+        for (List<Diagnostic> fileDetails : details.values()) {
+            fileDetails.sort(Comparator.comparingInt(Diagnostic::getLine).thenComparingInt(Diagnostic::getColumn));
+        }
+        return details;
+    }
+
+    public long getDroppedCount() {
+        return this.getCount() - this.details.size();
+    }
+
+    public void clear() {
+        for (Kind kind : Kind.values()) {
+            this.counts.get(kind).reset();
+            this.fileCounts.get(kind).clear();
+        }
+        this.details.clear();
+        this.detailCount.set(0);
+    }
+}
@@ -0,0 +1,258 @@
+package com.onevizion.maven.plugin.dbschema;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
+import com.google.common.collect.TreeBasedTable;
+import com.google.common.collect.TreeMultimap;
+import com.onevizion.maven.plugin.dbschema.DdlParser.ForeignKeyInfo;
+import com.onevizion.maven.plugin.dbschema.DdlParser.ObjectDefinitionInfo;
+import com.onevizion.maven.plugin.dbschema.DdlParser.ObjectInfoCommentInfo;
+import com.onevizion.maven.plugin.dbschema.DdlParser.TableColumnInfo;
+import com.onevizion.maven.plugin.dbschema.DdlParser.ViewColumnInfo;
+import com.onevizion.maven.plugin.dbschema.vo.DbObjectType;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+class ParsedSchema {
+    final Multimap<String, TableColumnInfo> tableColumnsInfos = ArrayListMultimap.create();
+    final Multimap<String, ViewColumnInfo> viewColumnsInfos = ArrayListMultimap.create();
+
+    final Map<String, ObjectInfoCommentInfo> tablesComments = Maps.newHashMap();
+    final Map<String, ObjectInfoCommentInfo> viewsComments = Maps.newHashMap();
+
+    final Multimap<String, String> primaryKeyColumns = LinkedHashMultimap.create();
+    final Multimap<String, ForeignKeyInfo> foreignKeys = ArrayListMultimap.create();
+
+    // Indexes, sequences and triggers by type and name
+    final Table<DbObjectType, String, ObjectDefinitionInfo> objectDefinitions = TreeBasedTable.create();
+
+    // View lineage in both directions, by upper case object names
+    final Multimap<String, String> viewBaseObjects = TreeMultimap.create();
+    final Multimap<String, String> dependentViews = TreeMultimap.create();
+
+    int statementCount = 0;
+
+    // The script of a schema parsed from one file, comments keep it for the diagnostics
+    File file;
+
+    // Table columns by case normalized (object, column) keys, view columns join them once they are traced to
+    // their base table column, so every column of a stack of views is resolved once
+    private final Map<String, TableColumnInfo> baseColumns = Maps.newHashMap();
+    private final Set<String> unresolvedColumns = Sets.newHashSet();
+
+    // View columns that may be null though their base column is not, behind an outer join or a union
+    private final Set<String> nullableColumns = Sets.newHashSet();
+
+    // Columns and their comments are joined by case normalized (object, column) keys
+    private final Map<String, ObjectInfoCommentInfo> columnsByKey = Maps.newHashMap();
+    private final Map<String, ColumnComment> columnComments = Maps.newLinkedHashMap();
+    private final Set<String> objectKeys = Sets.newHashSet();
+
+    private static class ColumnComment {
+        private final String objectName;
+        private final String message;
+        private final File file;
+
+        private ColumnComment(String objectName, String message, File file) {
+            this.objectName = objectName;
+            this.message = message;
+            this.file = file;
+        }
+    }
+
+    static String objectKey(String objectName) {
+        return objectName.toUpperCase(Locale.ROOT);
+    }
+
+    static String columnKey(String objectName, String columnName) {
+        return objectKey(objectName) + '.' + columnName.toUpperCase(Locale.ROOT);
+    }
+
+    void addObjectDefinition(ObjectDefinitionInfo objectDefinitionInfo) {
+        this.objectDefinitions.put(objectDefinitionInfo.getObjectType(), objectDefinitionInfo.getObjectName(),
+                objectDefinitionInfo);
+    }
+
+    void addTableColumn(String tableName, TableColumnInfo tableColumnInfo) {
+        this.tableColumnsInfos.put(tableName, tableColumnInfo);
+        this.columnsByKey.put(columnKey(tableName, tableColumnInfo.getColumnName()), tableColumnInfo);
+        this.objectKeys.add(objectKey(tableName));
+    }
+
+    void addViewColumn(String viewName, ViewColumnInfo viewColumnInfo) {
+        this.viewColumnsInfos.put(viewName, viewColumnInfo);
+        this.columnsByKey.put(columnKey(viewName, viewColumnInfo.getColumnName()), viewColumnInfo);
+        this.objectKeys.add(objectKey(viewName));
+    }
+
+    void addColumnComment(String objectName, String columnName, String message) {
+        this.columnComments.put(columnKey(objectName, columnName), new ColumnComment(objectName, message, this.file));
+    }
+
+    void addViewBaseObject(String viewName, String baseObjectName) {
+        String viewKey = objectKey(viewName);
+        String baseObjectKey = objectKey(baseObjectName);
+
+        this.viewBaseObjects.put(viewKey, baseObjectKey);
+        this.dependentViews.put(baseObjectKey, viewKey);
+    }
+
+    void removeViewBaseObjects(String viewName) {
+        String viewKey = objectKey(viewName);
+        for (String baseObjectKey : this.viewBaseObjects.removeAll(viewKey)) {
+            this.dependentViews.remove(baseObjectKey, viewKey);
+        }
+    }
+
+    void removeObject(String objectName) {
+        for (TableColumnInfo tableColumnInfo : this.tableColumnsInfos.removeAll(objectName)) {
+            this.columnsByKey.remove(columnKey(objectName, tableColumnInfo.getColumnName()));
+        }
+        for (ViewColumnInfo viewColumnInfo : this.viewColumnsInfos.removeAll(objectName)) {
+            this.columnsByKey.remove(columnKey(objectName, viewColumnInfo.getColumnName()));
+        }
+        this.objectKeys.remove(objectKey(objectName));
+    }
+
+    // Everything known about an object whose script was deleted or no longer defines it
+    void dropObject(String objectName) {
+        String key = objectKey(objectName);
+        this.removeObject(objectName);
+        this.tablesComments.remove(objectName);
+        this.viewsComments.remove(objectName);
+        this.primaryKeyColumns.removeAll(objectName);
+        this.foreignKeys.removeAll(objectName);
+        this.removeViewBaseObjects(objectName);
+        this.columnComments.keySet().removeIf(columnKey -> columnKey.startsWith(key + '.'));
+        this.baseColumns.entrySet().removeIf(entry -> entry.getKey().startsWith(key + '.') ||
+                objectKey(entry.getValue().getObjectName()).equals(key));
+        this.nullableColumns.retainAll(this.baseColumns.keySet());
+    }
+
+    void mergeIndexes(ParsedSchema schema) {
+        for (String tableName : schema.tableColumnsInfos.keySet()) {
+            this.primaryKeyColumns.removeAll(tableName);
+            this.foreignKeys.removeAll(tableName);
+        }
+        for (String viewName : schema.viewColumnsInfos.keySet()) {
+            this.removeViewBaseObjects(viewName);
+        }
+
+        this.primaryKeyColumns.putAll(schema.primaryKeyColumns);
+        this.foreignKeys.putAll(schema.foreignKeys);
+        for (Map.Entry<String, String> entry : schema.viewBaseObjects.entries()) {
+            this.addViewBaseObject(entry.getKey(), entry.getValue());
+        }
+    }
+
+    void merge(ParsedSchema schema) {
+        // An object parsed again replaces the previous definition
+        for (String objectName : new ArrayList<>(schema.tableColumnsInfos.keySet())) {
+            this.removeObject(objectName);
+        }
+        for (String objectName : new ArrayList<>(schema.viewColumnsInfos.keySet())) {
+            this.removeObject(objectName);
+        }
+
+        this.tableColumnsInfos.putAll(schema.tableColumnsInfos);
+        this.viewColumnsInfos.putAll(schema.viewColumnsInfos);
+        this.tablesComments.putAll(schema.tablesComments);
+        this.viewsComments.putAll(schema.viewsComments);
+        this.objectDefinitions.putAll(schema.objectDefinitions);
+        this.mergeIndexes(schema);
+        this.columnsByKey.putAll(schema.columnsByKey);
+        this.columnComments.putAll(schema.columnComments);
+        this.objectKeys.addAll(schema.objectKeys);
+    }
+
+    void clearBaseColumns() {
+        this.baseColumns.clear();
+        this.nullableColumns.clear();
+    }
+
+    // Returns the number of view columns passing a column through that are not resolved yet, they are tried again
+    // with every call, as the base object may come from a script parsed later
+    int resolveViewColumns(ParsedSchema script) {
+        for (Map.Entry<String, TableColumnInfo> entry : script.tableColumnsInfos.entries()) {
+            this.baseColumns.put(columnKey(entry.getKey(), entry.getValue().getColumnName()), entry.getValue());
+        }
+
+        this.unresolvedColumns.clear();
+        int unresolvedCount = 0;
+        for (ViewColumnInfo viewColumnInfo : script.viewColumnsInfos.values()) {
+            String key = columnKey(viewColumnInfo.getObjectName(), viewColumnInfo.getColumnName());
+            TableColumnInfo baseColumn = this.resolveColumn(script, key);
+
+            viewColumnInfo.setBaseColumn(baseColumn, this.nullableColumns.contains(key));
+            if (baseColumn == null && !viewColumnInfo.getSourceObjectNames().isEmpty()) {
+                unresolvedCount++;
+            }
+        }
+        return unresolvedCount;
+    }
+
+    private TableColumnInfo resolveColumn(ParsedSchema script, String key) {
+        if (this.baseColumns.containsKey(key)) {
+            return this.baseColumns.get(key);
+        }
+        if (this.unresolvedColumns.contains(key)) {
+            return null;
+        }
+
+        ObjectInfoCommentInfo columnInfo = script.columnsByKey.get(key);
+        if (!(columnInfo instanceof ViewColumnInfo)) {
+            return null;
+        }
+
+        // Marked before the recursion, so a cycle of views ends here
+        this.unresolvedColumns.add(key);
+        ViewColumnInfo viewColumnInfo = (ViewColumnInfo) columnInfo;
+        for (String sourceObjectName : viewColumnInfo.getSourceObjectNames()) {
+            String sourceKey = columnKey(sourceObjectName, viewColumnInfo.getSourceColumnName());
+            TableColumnInfo baseColumn = this.resolveColumn(script, sourceKey);
+            if (baseColumn != null) {
+                this.unresolvedColumns.remove(key);
+                this.baseColumns.put(key, baseColumn);
+                if (viewColumnInfo.isNullableSource(sourceObjectName) || this.nullableColumns.contains(sourceKey)) {
+                    this.nullableColumns.add(key);
+                }
+                return baseColumn;
+            }
+        }
+        return null;
+    }
+
+    // Objects the unresolved view columns of the script pass their columns through
+    Set<String> getUnresolvedSourceObjects() {
+        Set<String> objectKeys = Sets.newLinkedHashSet();
+        for (ViewColumnInfo viewColumnInfo : this.viewColumnsInfos.values()) {
+            if (viewColumnInfo.getBaseColumn() == null) {
+                for (String sourceObjectName : viewColumnInfo.getSourceObjectNames()) {
+                    objectKeys.add(objectKey(sourceObjectName));
+                }
+            }
+        }
+        return objectKeys;
+    }
+
+    void linkColumnComments(ParseDiagnostics diagnostics) {
+        for (Map.Entry<String, ColumnComment> entry : this.columnComments.entrySet()) {
+            ObjectInfoCommentInfo columnInfo = this.columnsByKey.get(entry.getKey());
+            ColumnComment columnComment = entry.getValue();
+
+            if (columnInfo != null) {
+                columnInfo.setCommentMessage(columnComment.message);
+            } else if (!this.objectKeys.contains(objectKey(columnComment.objectName))) {
+                diagnostics.add(ParseDiagnostics.Kind.OBJECT_NOT_FOUND, columnComment.file, columnComment.objectName);
+            }
+        }
+    }
+}
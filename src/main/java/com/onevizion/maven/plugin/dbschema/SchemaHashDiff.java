@@ -0,0 +1,175 @@
+package com.onevizion.maven.plugin.dbschema;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Compares two hash trees written by SchemaHashes top down, the branches with equal hashes are never read
+public class SchemaHashDiff {
+    public static final String ADDED = "ADDED";
+    public static final String REMOVED = "REMOVED";
+    public static final String CHANGED = "CHANGED";
+
+    private final File baseDir;
+    private final File dir;
+    private int filesRead = 0;
+
+    public static class Change {
+        private final String objectType;
+        private final String objectName;
+        private final String change;
+        private final List<String> details;
+
+        public Change(String objectType, String objectName, String change, List<String> details) {
+            this.objectType = objectType;
+            this.objectName = objectName;
+            this.change = change;
+            this.details = details;
+        }
+
+        public String getObjectType() {
+            return this.objectType;
+        }
+
+        public String getObjectName() {
+            return this.objectName;
+        }
+
+        public String getChange() {
+            return this.change;
+        }
+
+        public List<String> getDetails() {
+            return this.details;
+        }
+    }
+
+    public SchemaHashDiff(File baseDir, File dir) {
+        this.baseDir = baseDir;
+        this.dir = dir;
+    }
+
+    public int getFilesRead() {
+        return this.filesRead;
+    }
+
+    public List<Change> diff() throws IOException {
+        List<Change> changes = Lists.newArrayList();
+        Map<String, String> baseTypes = this.readHashes(new File(this.baseDir, SchemaHashes.ROOT_FILE), true);
+        Map<String, String> types = this.readHashes(new File(this.dir, SchemaHashes.ROOT_FILE), true);
+        if (Objects.equals(baseTypes.get(SchemaHashes.ROOT_KEY), types.get(SchemaHashes.ROOT_KEY))) {
+            return changes;
+        }
+
+        for (String type : union(baseTypes.keySet(), types.keySet())) {
+            if (type.equals(SchemaHashes.ROOT_KEY) || Objects.equals(baseTypes.get(type), types.get(type))) {
+                continue;
+            }
+
+            String typeDir = type.toLowerCase();
+            Map<String, String> baseBuckets = this.readHashes(new File(this.baseDir, typeDir + ".txt"), false);
+            Map<String, String> buckets = this.readHashes(new File(this.dir, typeDir + ".txt"), false);
+            for (String bucket : union(baseBuckets.keySet(), buckets.keySet())) {
+                if (!Objects.equals(baseBuckets.get(bucket), buckets.get(bucket))) {
+                    this.diffBucket(type, new File(this.baseDir, typeDir + "/" + bucket + ".txt"),
+                            new File(this.dir, typeDir + "/" + bucket + ".txt"), changes);
+                }
+            }
+        }
+        return changes;
+    }
+
+    private void diffBucket(String type, File baseFile, File file, List<Change> changes) throws IOException {
+        Map<String, String[]> baseObjects = this.readObjects(baseFile);
+        Map<String, String[]> objects = this.readObjects(file);
+
+        for (String objectName : union(baseObjects.keySet(), objects.keySet())) {
+            String[] baseObject = baseObjects.get(objectName);
+            String[] object = objects.get(objectName);
+
+            if (baseObject == null) {
+                changes.add(new Change(type, objectName, ADDED, Lists.newArrayList()));
+            } else if (object == null) {
+                changes.add(new Change(type, objectName, REMOVED, Lists.newArrayList()));
+            } else if (!baseObject[1].equals(object[1])) {
+                changes.add(new Change(type, objectName, CHANGED, diffMembers(baseObject, object)));
+            }
+        }
+    }
+
+    private static List<String> diffMembers(String[] baseObject, String[] object) {
+        Map<String, String> baseMembers = getMembers(baseObject);
+        Map<String, String> members = getMembers(object);
+
+        List<String> details = Lists.newArrayList();
+        for (String member : union(baseMembers.keySet(), members.keySet())) {
+            if (!baseMembers.containsKey(member)) {
+                details.add(member + " added");
+            } else if (!members.containsKey(member)) {
+                details.add(member + " removed");
+            } else if (!baseMembers.get(member).equals(members.get(member))) {
+                details.add(member + " changed");
+            }
+        }
+        return details;
+    }
+
+    private static Map<String, String> getMembers(String[] object) {
+        Map<String, String> members = Maps.newHashMap();
+        for (int index = 2; index < object.length; index++) {
+            int separator = object[index].lastIndexOf('=');
+            members.put(object[index].substring(0, separator), object[index].substring(separator + 1));
+        }
+        return members;
+    }
+
+    private Map<String, String> readHashes(File file, boolean required) throws IOException {
+        Map<String, String> hashes = Maps.newHashMap();
+        if (!file.isFile()) {
+            if (required) {
+                throw new IOException("Schema hashes not found: " + file);
+            }
+            return hashes;
+        }
+
+        this.filesRead++;
+        for (String line : FileUtils.readLines(file, StandardCharsets.UTF_8)) {
+            String[] parts = line.split("\t");
+            if (parts.length == 2) {
+                hashes.put(parts[0], parts[1]);
+            }
+        }
+        return hashes;
+    }
+
+    private Map<String, String[]> readObjects(File file) throws IOException {
+        Map<String, String[]> objects = Maps.newHashMap();
+        if (!file.isFile()) {
+            return objects;
+        }
+
+        this.filesRead++;
+        for (String line : FileUtils.readLines(file, StandardCharsets.UTF_8)) {
+            String[] parts = line.split("\t");
+            if (parts.length >= 2) {
+                objects.put(parts[0], parts);
+            }
+        }
+        return objects;
+    }
+
+    private static Set<String> union(Set<String> first, Set<String> second) {
+        Set<String> union = Sets.newTreeSet(first);
+        union.addAll(second);
+        return union;
+    }
+}
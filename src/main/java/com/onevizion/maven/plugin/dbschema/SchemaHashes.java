@@ -0,0 +1,219 @@
+package com.onevizion.maven.plugin.dbschema;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.onevizion.maven.plugin.dbschema.DdlParser.ColumnInfo;
+import com.onevizion.maven.plugin.dbschema.DdlParser.ForeignKeyInfo;
+import com.onevizion.maven.plugin.dbschema.DdlParser.ObjectDefinitionInfo;
+import com.onevizion.maven.plugin.dbschema.DdlParser.ObjectInfoCommentInfo;
+import com.onevizion.maven.plugin.dbschema.DdlParser.TableColumnInfo;
+import com.onevizion.maven.plugin.dbschema.DdlParser.ViewColumnInfo;
+import com.onevizion.maven.plugin.dbschema.vo.DbObjectType;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+// Merkle tree of the parsed schema: members (columns, keys, properties) -> objects -> buckets of objects ->
+// object types -> root. Every inner level is a file, so two trees are compared by reading the differing branches only
+public class SchemaHashes {
+    public static final String HASHES_DIR = "hashes";
+    public static final String ROOT_FILE = "root.txt";
+    public static final String ROOT_KEY = "ROOT";
+    public static final DbObjectType[] OBJECT_TYPES = {DbObjectType.TABLE, DbObjectType.VIEW, DbObjectType.INDEX,
+            DbObjectType.SEQUENCE, DbObjectType.TRIGGER};
+
+    private static final HashFunction HASH_FUNCTION = Hashing.sha256();
+    private static final int HASH_LENGTH = 16;
+    private static final int BUCKET_LENGTH = 2;
+
+    private static final String PRIMARY_KEY_MEMBER = "PRIMARY KEY";
+    private static final String FOREIGN_KEY_MEMBER = "FOREIGN KEY";
+    private static final String BASE_OBJECTS_MEMBER = "BASE OBJECTS";
+
+    // Type -> object name -> member -> hash of the member
+    private final Map<DbObjectType, Map<String, Map<String, String>>> objectMembers = Maps.newEnumMap(DbObjectType.class);
+
+    // Columns, comments and definitions, they are only known while the script of the object is current
+    public synchronized void addSchema(DdlParser ddlParser) {
+        Set<String> tableNames = Sets.newHashSet();
+        ddlParser.getTablesColumnsInfos().forEach(info -> tableNames.add(info.getObjectName()));
+        for (String tableName : tableNames) {
+            Map<String, String> members = this.newMembers(DbObjectType.TABLE, tableName);
+            for (TableColumnInfo columnInfo : ddlParser.getTableColumnsInfos(tableName)) {
+                addMember(members, "COLUMN " + columnInfo.getColumnName(), getColumn(columnInfo));
+            }
+            addMember(members, "COMMENT", getComment(ddlParser.getTableComment(tableName)));
+        }
+
+        Set<String> viewNames = Sets.newHashSet();
+        ddlParser.getViewsColumnsInfos().forEach(info -> viewNames.add(info.getObjectName()));
+        for (String viewName : viewNames) {
+            Map<String, String> members = this.newMembers(DbObjectType.VIEW, viewName);
+            for (ViewColumnInfo columnInfo : ddlParser.getViewColumnsInfos(viewName)) {
+                addMember(members, "COLUMN " + columnInfo.getColumnName(), getColumn(columnInfo));
+            }
+            addMember(members, "COMMENT", getComment(ddlParser.getViewComment(viewName)));
+        }
+
+        for (DbObjectType objectType : OBJECT_TYPES) {
+            for (ObjectDefinitionInfo definitionInfo : ddlParser.getObjectDefinitions(objectType)) {
+                Map<String, String> members = this.newMembers(objectType, definitionInfo.getObjectName());
+                definitionInfo.getProperties().forEach((key, value) -> addMember(members, key, value));
+                addMember(members, "DEFINITION", definitionInfo.getDefinition());
+            }
+        }
+    }
+
+    // Keys and view lineage come from every script, an ALTER TABLE may follow the table in a later one. They are
+    // added once all scripts are parsed, so the hashes do not depend on the order of the scripts
+    public synchronized void addKeys(DdlParser ddlParser) {
+        Map<String, Map<String, String>> tables = this.objectMembers.getOrDefault(DbObjectType.TABLE, Collections.emptyMap());
+        for (Map<String, String> members : tables.values()) {
+            members.keySet().removeIf(member -> member.startsWith(FOREIGN_KEY_MEMBER));
+            addMember(members, PRIMARY_KEY_MEMBER, "");
+        }
+        for (String tableName : ddlParser.getTablesWithPrimaryKeys()) {
+            Map<String, String> members = tables.get(toName(tableName));
+            if (members != null) {
+                addMember(members, PRIMARY_KEY_MEMBER, String.join(",", ddlParser.getPrimaryKeyColumns(tableName)));
+            }
+        }
+        for (ForeignKeyInfo foreignKeyInfo : ddlParser.getForeignKeys()) {
+            Map<String, String> members = tables.get(toName(foreignKeyInfo.getTableName()));
+            if (members != null) {
+                addMember(members, FOREIGN_KEY_MEMBER + " (" + String.join(", ", foreignKeyInfo.getColumnNames()) + ")",
+                        foreignKeyInfo.getReferencedTableName() + "(" + String.join(",", foreignKeyInfo.getReferencedColumnNames()) + ")");
+            }
+        }
+
+        Map<String, Map<String, String>> views = this.objectMembers.getOrDefault(DbObjectType.VIEW, Collections.emptyMap());
+        for (Map.Entry<String, Map<String, String>> entry : views.entrySet()) {
+            addMember(entry.getValue(), BASE_OBJECTS_MEMBER, String.join(",", ddlParser.getViewBaseObjects(entry.getKey())));
+        }
+    }
+
+    // Table and view columns are hashed the same way, the position included
+    private static <T extends ObjectInfoCommentInfo & ColumnInfo> String getColumn(T columnInfo) {
+        return String.join("\n", columnInfo.getColumnId(), columnInfo.getDataType(), columnInfo.getNullable(),
+                columnInfo.getDataDefault(), columnInfo.getCommentMessage());
+    }
+
+    private static String getComment(ObjectInfoCommentInfo commentInfo) {
+        return commentInfo != null ? commentInfo.getCommentMessage() : "";
+    }
+
+    // An object parsed again replaces the previous one
+    private Map<String, String> newMembers(DbObjectType objectType, String objectName) {
+        Map<String, String> members = Maps.newTreeMap();
+        this.objectMembers.computeIfAbsent(objectType, key -> Maps.newTreeMap()).put(toName(objectName), members);
+        return members;
+    }
+
+    private static void addMember(Map<String, String> members, String member, String value) {
+        members.put(toKey(member), hash(member + "\n" + value));
+    }
+
+    // Object lines written by another run, mergeSite joins the hashes of the shards this way
+    public synchronized boolean addHashes(File hashesDir) throws IOException {
+        if (!new File(hashesDir, ROOT_FILE).isFile()) {
+            return false;
+        }
+        for (DbObjectType objectType : OBJECT_TYPES) {
+            File[] bucketFiles = new File(hashesDir, objectType.name().toLowerCase()).listFiles((dir, name) -> name.endsWith(".txt"));
+            if (bucketFiles == null) {
+                continue;
+            }
+            for (File bucketFile : bucketFiles) {
+                for (String line : FileUtils.readLines(bucketFile, StandardCharsets.UTF_8)) {
+                    String[] parts = line.split("\t");
+                    Map<String, String> members = Maps.newTreeMap();
+                    for (int index = 2; index < parts.length; index++) {
+                        members.put(StringUtils.substringBeforeLast(parts[index], "="),
+                                StringUtils.substringAfterLast(parts[index], "="));
+                    }
+                    this.objectMembers.computeIfAbsent(objectType, key -> Maps.newTreeMap()).put(parts[0], members);
+                }
+            }
+        }
+        return true;
+    }
+
+    // The hash of a level is the hash of the sorted hashes of its children, so it does not depend on the parse order.
+    // Files are only written when they changed, bucket files of objects that are gone are deleted
+    public synchronized void write(File hashesDir) throws IOException {
+        Map<DbObjectType, Map<String, Map<String, String>>> objectLines = Maps.newEnumMap(DbObjectType.class);
+        for (Map.Entry<DbObjectType, Map<String, Map<String, String>>> typeEntry : this.objectMembers.entrySet()) {
+            for (Map.Entry<String, Map<String, String>> objectEntry : typeEntry.getValue().entrySet()) {
+                StringBuilder memberHashes = new StringBuilder();
+                for (Map.Entry<String, String> member : objectEntry.getValue().entrySet()) {
+                    memberHashes.append('\t').append(member.getKey()).append('=').append(member.getValue());
+                }
+
+                String name = objectEntry.getKey();
+                objectLines.computeIfAbsent(typeEntry.getKey(), key -> Maps.newTreeMap())
+                           .computeIfAbsent(getBucket(name), key -> Maps.newTreeMap())
+                           .put(name, name + '\t' + hash(memberHashes.toString()) + memberHashes);
+            }
+        }
+
+        StagedFiles files = new StagedFiles();
+        StringBuilder root = new StringBuilder();
+        for (Map.Entry<DbObjectType, Map<String, Map<String, String>>> typeEntry : objectLines.entrySet()) {
+            String typeDir = typeEntry.getKey().name().toLowerCase();
+            StringBuilder buckets = new StringBuilder();
+
+            for (Map.Entry<String, Map<String, String>> bucketEntry : typeEntry.getValue().entrySet()) {
+                StringBuilder objects = new StringBuilder();
+                StringBuilder objectHashes = new StringBuilder();
+                for (String line : bucketEntry.getValue().values()) {
+                    objects.append(line).append('\n');
+                    String[] parts = line.split("\t", 3);
+                    objectHashes.append(parts[0]).append('\t').append(parts[1]).append('\n');
+                }
+                putFile(files, new File(hashesDir, typeDir + "/" + bucketEntry.getKey() + ".txt"), objects.toString());
+                buckets.append(bucketEntry.getKey()).append('\t').append(hash(objectHashes.toString())).append('\n');
+            }
+
+            putFile(files, new File(hashesDir, typeDir + ".txt"), buckets.toString());
+            root.append(typeEntry.getKey().name()).append('\t').append(hash(buckets.toString())).append('\n');
+        }
+        putFile(files, new File(hashesDir, ROOT_FILE), ROOT_KEY + '\t' + hash(root.toString()) + '\n' + root);
+
+        if (hashesDir.isDirectory()) {
+            for (File file : FileUtils.listFiles(hashesDir, null, true)) {
+                if (!files.isStaged(file)) {
+                    FileUtils.forceDelete(file);
+                }
+            }
+        }
+        files.flush();
+    }
+
+    private static void putFile(StagedFiles files, File file, String content) {
+        files.put(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String getBucket(String objectName) {
+        return hash(objectName).substring(0, BUCKET_LENGTH);
+    }
+
+    private static String hash(String value) {
+        return HASH_FUNCTION.hashString(value, StandardCharsets.UTF_8).toString().substring(0, HASH_LENGTH);
+    }
+
+    private static String toKey(String name) {
+        return name.replaceAll("[\\t\\n=]", " ");
+    }
+
+    private static String toName(String objectName) {
+        return toKey(objectName.toUpperCase());
+    }
+}
@@ -0,0 +1,238 @@
+package com.onevizion.maven.plugin.dbschema;
+
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import org.apache.commons.io.FilenameUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+public class SiteAssets {
+    private static final int HASH_LENGTH = 10;
+    private static final Set<String> REGEX_KEYWORDS = Set.of("return", "typeof", "case", "do", "else", "in", "of",
+            "new", "delete", "void", "throw", "yield", "await");
+    private static final List<String> IMAGE_EXTENSIONS = List.of("jpg", "jpeg", "png", "gif", "svg", "ico");
+
+    public static final Pattern FINGERPRINTED_NAME_PATTERN = Pattern.compile(".+\\.[0-9a-f]{" + HASH_LENGTH + "}\\.\\w+");
+
+    // Assets in the root of the site get content hashed names, so they never change under the same URL. Originals
+    // are kept for pages that are copied from other tools
+    public static Map<String, String> fingerprint(File siteDir, StagedFiles stagedFiles) throws IOException {
+        Map<String, String> assetNames = Maps.newHashMap();
+        List<String> names = stagedFiles.getFileNames(siteDir);
+        Collections.sort(names);
+
+        // Images go first, the stylesheets refer to them
+        for (String name : names) {
+            if (IMAGE_EXTENSIONS.contains(FilenameUtils.getExtension(name).toLowerCase())) {
+                byte[] content = stagedFiles.read(new File(siteDir, name));
+                String hashedName = getHashedName(name, content);
+                stagedFiles.put(new File(siteDir, hashedName), content);
+                assetNames.put(name, hashedName);
+            }
+        }
+
+        bundle(siteDir, names, "css", content -> minifyCss(rewriteReferences(content, assetNames)), assetNames, stagedFiles);
+        bundle(siteDir, names, "js", SiteAssets::minifyJs, assetNames, stagedFiles);
+
+        for (File file : stagedFiles.getFiles(siteDir)) {
+            if (FilenameUtils.isExtension(file.getName(), "html")) {
+                stagedFiles.putString(file, rewriteReferences(stagedFiles.readString(file), assetNames));
+            }
+        }
+        return assetNames;
+    }
+
+    private static void bundle(File siteDir, List<String> names, String extension, UnaryOperator<String> minifier,
+                               Map<String, String> assetNames, StagedFiles stagedFiles) throws IOException {
+        List<String> bundledNames = names.stream()
+                                         .filter(name -> FilenameUtils.isExtension(name.toLowerCase(), extension))
+                                         .collect(Collectors.toList());
+        if (bundledNames.isEmpty()) {
+            return;
+        }
+
+        StringBuilder content = new StringBuilder();
+        for (String name : bundledNames) {
+            content.append(minifier.apply(stagedFiles.readString(new File(siteDir, name)))).append('\n');
+        }
+
+        byte[] bytes = content.toString().getBytes(Charset.defaultCharset());
+        String bundleName = getHashedName(bundledNames.get(0), bytes);
+        stagedFiles.put(new File(siteDir, bundleName), bytes);
+        for (String name : bundledNames) {
+            assetNames.put(name, bundleName);
+        }
+    }
+
+    private static String getHashedName(String name, byte[] content) {
+        String hash = Hashing.sha256().hashBytes(content).toString().substring(0, HASH_LENGTH);
+        return FilenameUtils.getBaseName(name) + "." + hash + "." + FilenameUtils.getExtension(name);
+    }
+
+    public static String rewriteReferences(String content, Map<String, String> assetNames) {
+        for (Map.Entry<String, String> entry : assetNames.entrySet()) {
+            Pattern pattern = Pattern.compile("(?<=[/\"'(])" + Pattern.quote(entry.getKey()) + "(?=[\"')?#])");
+            content = pattern.matcher(content).replaceAll(Matcher.quoteReplacement(entry.getValue()));
+        }
+        return content;
+    }
+
+    static String minifyCss(String css) {
+        css = css.replaceAll("(?s)/\\*.*?\\*/", "");
+        css = css.replaceAll("\\s+", " ");
+        css = css.replaceAll(" ?([{};,]) ?", "$1");
+        return css.replace(";}", "}").trim();
+    }
+
+    // Only comments and indentation are removed, line breaks are kept for the automatic semicolon insertion.
+    // Strings, template literals and regular expression literals are copied as they are
+    static String minifyJs(String js) {
+        StringBuilder result = new StringBuilder();
+        // Brace depths of the code around the template literal expressions the scanner is in, innermost first
+        Deque<Integer> templateDepths = new ArrayDeque<>();
+        int braceDepth = 0;
+        boolean inTemplate = false;
+        int length = js.length();
+        int index = 0;
+
+        while (index < length) {
+            char c = js.charAt(index);
+            char next = index + 1 < length ? js.charAt(index + 1) : 0;
+
+            if (inTemplate) {
+                result.append(c);
+                if (c == '\\' && next != 0) {
+                    result.append(next);
+                    index++;
+                } else if (c == '`') {
+                    inTemplate = false;
+                } else if (c == '$' && next == '{') {
+                    result.append(next);
+                    index++;
+                    templateDepths.push(braceDepth);
+                    braceDepth = 0;
+                    inTemplate = false;
+                }
+            } else if (c == '`') {
+                result.append(c);
+                inTemplate = true;
+            } else if (c == '\'' || c == '"') {
+                index = copyLiteral(js, index, c, result);
+            } else if (c == '/' && next == '*') {
+                int end = js.indexOf("*/", index + 2);
+                end = end < 0 ? length : end + 2;
+                appendCode(result, js.substring(index, end).indexOf('\n') >= 0 ? '\n' : ' ');
+                index = end - 1;
+            } else if (c == '/' && next == '/') {
+                int end = js.indexOf('\n', index);
+                index = (end < 0 ? length : end) - 1;
+            } else if (c == '/' && isRegexStart(result)) {
+                index = copyLiteral(js, index, c, result);
+            } else if (c == '{') {
+                result.append(c);
+                braceDepth++;
+            } else if (c == '}' && braceDepth == 0 && !templateDepths.isEmpty()) {
+                result.append(c);
+                braceDepth = templateDepths.pop();
+                inTemplate = true;
+            } else {
+                if (c == '}') {
+                    braceDepth--;
+                }
+                appendCode(result, c);
+            }
+            index++;
+        }
+
+        appendCode(result, '\n');
+        return result.toString().trim();
+    }
+
+    // Copies a string or a regular expression up to its closing character and returns the index of it. A slash in a
+    // character class does not close the regular expression
+    private static int copyLiteral(String js, int index, char quote, StringBuilder result) {
+        boolean inClass = false;
+        result.append(js.charAt(index++));
+        while (index < js.length()) {
+            char c = js.charAt(index);
+            result.append(c);
+            if (c == '\\' && index + 1 < js.length()) {
+                result.append(js.charAt(++index));
+            } else if (c == '\n') {
+                return index;
+            } else if (quote == '/' && c == '[') {
+                inClass = true;
+            } else if (quote == '/' && c == ']') {
+                inClass = false;
+            } else if (c == quote && !inClass) {
+                return index;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    // A slash starts a regular expression where an operand is expected, otherwise it is a division
+    private static boolean isRegexStart(StringBuilder result) {
+        int end = result.length() - 1;
+        while (end >= 0 && Character.isWhitespace(result.charAt(end))) {
+            end--;
+        }
+        if (end < 0) {
+            return true;
+        }
+
+        char last = result.charAt(end);
+        if ((last == '+' || last == '-') && end > 0 && result.charAt(end - 1) == last) {
+            return false;
+        }
+        if ("(,=:[!&|?{};+-*%<>~^".indexOf(last) >= 0) {
+            return true;
+        }
+        if (!Character.isJavaIdentifierPart(last)) {
+            return false;
+        }
+
+        int start = end;
+        while (start > 0 && Character.isJavaIdentifierPart(result.charAt(start - 1))) {
+            start--;
+        }
+        return REGEX_KEYWORDS.contains(result.substring(start, end + 1));
+    }
+
+    // Indentation and trailing spaces of the code lines and empty lines are dropped
+    private static void appendCode(StringBuilder result, char c) {
+        if (c == '\n') {
+            stripTrailingSpaces(result);
+            if (result.length() > 0 && result.charAt(result.length() - 1) != '\n') {
+                result.append(c);
+            }
+        } else if (c == ' ' || c == '\t' || c == '\r') {
+            if (result.length() > 0 && result.charAt(result.length() - 1) != '\n') {
+                result.append(c);
+            }
+        } else {
+            result.append(c);
+        }
+    }
+
+    private static void stripTrailingSpaces(StringBuilder result) {
+        int end = result.length();
+        while (end > 0 && (result.charAt(end - 1) == ' ' || result.charAt(end - 1) == '\t' || result.charAt(end - 1) == '\r')) {
+            end--;
+        }
+        result.setLength(end);
+    }
+}
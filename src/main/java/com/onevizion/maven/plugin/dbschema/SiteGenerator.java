@@ -1,18 +1,30 @@
 package com.onevizion.maven.plugin.dbschema;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.onevizion.maven.plugin.dbschema.DdlParser.TableColumnInfo;
 import com.onevizion.maven.plugin.dbschema.DdlParser.ViewColumnInfo;
+import com.onevizion.maven.plugin.dbschema.event.RenderPageEvent;
 import com.onevizion.maven.plugin.dbschema.vo.*;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOCase;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.filefilter.WildcardFileFilter;
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -22,12 +34,46 @@ public class SiteGenerator {
 
     private final DdlParser ddlParser;
 
+    private final StagedFiles stagedFiles = new StagedFiles();
+
+    private Predicate<File> pageExists = stagedFiles::exists;
+
+    // Fingerprinted names of the site template assets by their original names
+    private Map<String, String> assetNames = Collections.emptyMap();
+
+    // Objects whose pages were written with the lineage of the previous run, it may be gone by now
+    private final Set<String> keptDependencies = Sets.newConcurrentHashSet();
+
     public SiteGenerator(DdlParser ddlParser) {
         this.ddlParser = ddlParser;
     }
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
+    // Pages rendered on demand link to pages that are not generated yet
+    public void setPageExists(Predicate<File> pageExists) {
+        this.pageExists = pageExists;
+    }
+
+    // Files are written as soon as they are rendered. Only the lists and nodeTypes.html, which later passes insert
+    // into, and the files in the given folders stay in memory until they are flushed
+    public void setRewrittenDirs(Collection<String> rewrittenDirs) {
+        Set<File> dirs = rewrittenDirs.stream()
+                                      .filter(Objects::nonNull)
+                                      .map(dir -> new File(dir).toPath().toAbsolutePath().normalize().toFile())
+                                      .collect(Collectors.toSet());
+        stagedFiles.setWriteThrough(file -> !dirs.contains(file.getParentFile())
+                && !file.getName().equalsIgnoreCase("index.html") && !file.getName().equals(NODE_TYPES));
+    }
+
+    public Map<String, String> getAssetNames() {
+        return assetNames;
+    }
+
+    public void setAssetNames(Map<String, String> assetNames) {
+        this.assetNames = assetNames;
+    }
+
     private static final String COMMENT_TEMPLATE = "comment-template.txt";
     private static final String NODE_TYPES = "nodeTypes.html";
     public static final String LIST_ENTRY_TEMPLATE = "listEntry-template.txt";
@@ -35,6 +81,29 @@ public class SiteGenerator {
     public static final String VIEW_TEMPLATE_HTML = "view.template.html";
     public static final String TABLE_ROW_HTML_TEMPLATE = "tableRowHtmlTemplate.txt";
     public static final String TABLE_TEMPLATE_HTML = "table.template.html";
+    public static final String ERD_TEMPLATE_HTML = "erd.template.html";
+    public static final String DEPENDENCIES_TEMPLATE = "dependencies-template.txt";
+    public static final String SHARD_INDEX_FILE = "shard-index.txt";
+    private static final int DEPENDENCIES_FLUSH_SIZE = 1000;
+
+    // The lineage sections of table and view pages by their ids
+    private static final String BASE_OBJECTS_SECTION = "BaseObjects";
+    private static final String USED_BY_SECTION = "UsedBy";
+    private static final Map<String, Pattern> SECTION_PATTERNS = ImmutableMap.of(
+            BASE_OBJECTS_SECTION, Pattern.compile("<div id=\"" + BASE_OBJECTS_SECTION + "\">.*?</div>", Pattern.DOTALL),
+            USED_BY_SECTION, Pattern.compile("<div id=\"" + USED_BY_SECTION + "\">.*?</div>", Pattern.DOTALL));
+
+    // Index, sequence and trigger pages share their folder with index.html, the prefix keeps an object named INDEX
+    // from replacing the list
+    public static final String DEFINITION_PAGE_PREFIX = "def_";
+    public static final String PACKAGE_ROW_HTML_TEMPLATE = "packageRowHtmlTemplate.txt";
+    public static final String PACKAGE_TEMPLATE_HTML = "package.template.html";
+    public static final String PROPERTY_ROW_HTML_TEMPLATE = "propertyRowHtmlTemplate.txt";
+    public static final String OBJECT_TEMPLATE_HTML = "object.template.html";
+    public static final String SCHEMA_ROW_HTML_TEMPLATE = "schemaRowHtmlTemplate.txt";
+    public static final String SCHEMAS_TEMPLATE_HTML = "schemas.template.html";
+    public static final String CHANGE_ROW_HTML_TEMPLATE = "changeRowHtmlTemplate.txt";
+    public static final String CHANGES_TEMPLATE_HTML = "changes.template.html";
 
     private String rowsRegexp = "\\$\\{rows\\}";
     private String tabNameRegexp = "\\$\\{tableName\\}";
@@ -44,12 +113,62 @@ public class SiteGenerator {
     private String dataDefaultRegexp = "\\$\\{dataDefault\\}";
     private String columnIdRegexp = "\\$\\{columnId\\}";
     private String commentsRegexp = "\\$\\{comments\\}";
+    private String clusterNameRegexp = "\\$\\{clusterName\\}";
+    private String svgRegexp = "\\$\\{svg\\}";
+    private String packageNameRegexp = "\\$\\{packageName\\}";
+    private String memberNameRegexp = "\\$\\{memberName\\}";
+    private String memberTypeRegexp = "\\$\\{memberType\\}";
+    private String declarationRegexp = "\\$\\{declaration\\}";
+    private String objectNameRegexp = "\\$\\{objectName\\}";
+    private String propertyNameRegexp = "\\$\\{propertyName\\}";
+    private String propertyValueRegexp = "\\$\\{propertyValue\\}";
+    private String definitionRegexp = "\\$\\{definition\\}";
+    private String projectNameRegexp = "\\$\\{projectName\\}";
+    private String siteDirRegexp = "\\$\\{siteDir\\}";
+    private String schemaNameRegexp = "\\$\\{schemaName\\}";
+    private String objectTypeRegexp = "\\$\\{objectType\\}";
+    private String changeRegexp = "\\$\\{change\\}";
+    private String detailsRegexp = "\\$\\{details\\}";
 
     public void copySiteTemplate(String sitePath) throws IOException {
         logger.info("Copying site template...");
-        InputStream stream;
-        stream = getClass().getProtectionDomain().getCodeSource().getLocation().openStream();
-        SiteUtils.unZipSiteTemplate(stream, new File(sitePath));
+        stagedFiles.putAll(readSiteTemplate(sitePath));
+    }
+
+    // The shards that do not copy the template still have to link the fingerprinted assets
+    public void loadSiteTemplateAssets(String sitePath) throws IOException {
+        readSiteTemplate(sitePath);
+    }
+
+    private StagedFiles readSiteTemplate(String sitePath) throws IOException {
+        StagedFiles templateFiles = new StagedFiles();
+        SiteUtils.unZipSiteTemplate(getClass().getProtectionDomain().getCodeSource().getLocation(), new File(sitePath),
+                templateFiles);
+        assetNames = SiteAssets.fingerprint(new File(sitePath), templateFiles);
+        return templateFiles;
+    }
+
+    private String readPageTemplate(String templateName) throws IOException {
+        String template = IOUtils.toString(getClass().getClassLoader().getResourceAsStream(templateName),
+                Charset.defaultCharset());
+        return SiteAssets.rewriteReferences(template, assetNames);
+    }
+
+    // Pages are copied straight from the shard, the files staged by the merge itself (template, lists) win.
+    // The hashes and the shard index are joined by the merge instead
+    public void mergeSite(String shardSitePath, String sitePath) throws IOException {
+        logger.info("Merging {}...", shardSitePath);
+        File shardSiteDir = new File(shardSitePath);
+        if (!shardSiteDir.isDirectory()) {
+            throw new FileNotFoundException(shardSitePath + " not found");
+        }
+
+        Path hashesPath = new File(sitePath, SchemaHashes.HASHES_DIR).toPath().toAbsolutePath().normalize();
+        File shardIndexFile = new File(sitePath, SHARD_INDEX_FILE).getAbsoluteFile();
+        int writtenCount = SiteUtils.copyDirectoryIfChanged(shardSiteDir, new File(sitePath),
+                file -> stagedFiles.isStaged(file) || file.getAbsoluteFile().equals(shardIndexFile)
+                        || file.toPath().toAbsolutePath().normalize().startsWith(hashesPath));
+        logger.info("{} files of {} changed", writtenCount, shardSitePath);
     }
 
     public void deleteFiles(DeleteFilesConfig[] deleteFilesConfigs) throws Exception {
@@ -59,7 +178,7 @@ public class SiteGenerator {
                 String error = "inputDirectory param must not be empty in deleteFilesConfig";
                 throw new Exception(error);
             }
-            SiteUtils.deleteFiles(config);
+            SiteUtils.deleteFiles(config, stagedFiles);
         }
     }
 
@@ -74,7 +193,7 @@ public class SiteGenerator {
                 String error = "destDir param must not be empty in copyFilesConfig";
                 throw new Exception(error);
             }
-            SiteUtils.copyFiles(config);
+            SiteUtils.copyFiles(config, stagedFiles);
         }
     }
 
@@ -85,10 +204,33 @@ public class SiteGenerator {
                 String error = "inputDirectory param must not be empty in reformatFilesConfig";
                 throw new Exception(error);
             }
-            SiteUtils.reformatFiles(config);
+            SiteUtils.reformatFiles(config, stagedFiles);
         }
     }
 
+    public void reformatStagedFiles(ReformatFilesConfig[] reformatFilesConfigs) throws Exception {
+        List<ReformatFilesConfig> stagedConfigs = Lists.newArrayList();
+        for (ReformatFilesConfig config : reformatFilesConfigs) {
+            List<String> includes = Lists.newArrayList();
+            for (String fileName : stagedFiles.getFileNames(new File(config.getInputDirectory()))) {
+                for (String include : config.getIncludes()) {
+                    include = (include == null || include.isEmpty()) ? "*" : include;
+                    if (FilenameUtils.wildcardMatch(fileName, include, IOCase.INSENSITIVE)) {
+                        includes.add(fileName);
+                        break;
+                    }
+                }
+            }
+
+            if (!includes.isEmpty()) {
+                ReformatFilesConfig stagedConfig = config.copy();
+                stagedConfig.setIncludes(includes.toArray(new String[0]));
+                stagedConfigs.add(stagedConfig);
+            }
+        }
+        reformatFiles(stagedConfigs.toArray(new ReformatFilesConfig[0]));
+    }
+
     public void addTableComments(AddTablesCommentsConfig config, String... dbObjects) throws IOException {
         List<DdlParser.ObjectInfoCommentInfo> comments = Lists.newArrayList();
         logger.debug("Adding tables comments...");
@@ -134,10 +276,14 @@ public class SiteGenerator {
             currentComment = currentComment.replaceFirst(tableTypeRegexp, config.getTableType());
             String path = config.getTablesDir() + "/" + object.getObjectName() + ".html";
             File htmlFile = new File(path);
-            List<String> contents = FileUtils.readLines(htmlFile);
+            if (!stagedFiles.exists(htmlFile)) {
+                logger.warn("Page {} not found, comment is skipped", path);
+                continue;
+            }
+            List<String> contents = stagedFiles.readLines(htmlFile);
             int currentStringInList = config.getLineNum() - 1;
             contents.add(currentStringInList, currentComment);
-            FileUtils.writeLines(htmlFile, contents);
+            stagedFiles.putLines(htmlFile, contents);
         }
     }
 
@@ -153,12 +299,12 @@ public class SiteGenerator {
             File dir = new File(config.getInputDir());
             String include = "*";
             FileFilter filter = new WildcardFileFilter(include, IOCase.INSENSITIVE);
-            File[] filteredFiles = dir.listFiles(filter);
+            File[] filteredFiles = stagedFiles.listFiles(dir, filter);
             if (filteredFiles == null || filteredFiles.length == 0) {
                 throw new Exception(include + " files not found in " + dir);
             } else {
                 File tableOfContentsFile = new File(dir + File.separator + tableOfContents);
-                List<String> contents = FileUtils.readLines(tableOfContentsFile);
+                List<String> contents = stagedFiles.readLines(tableOfContentsFile);
                 int lineNum = config.getLineNum();
                 int currentStringInList = lineNum - 1;
                 if (lineNum > contents.size()) {
@@ -175,7 +321,7 @@ public class SiteGenerator {
                         contents.add(currentStringInList++, listEntry);
                     }
                 }
-                FileUtils.writeLines(tableOfContentsFile, contents);
+                stagedFiles.putLines(tableOfContentsFile, contents);
             }
         }
     }
@@ -187,10 +333,7 @@ public class SiteGenerator {
         IOUtils.copy(rowHtmlTemplateIs, rowHtmlWriter);
         String rowHtmlTemplate = rowHtmlWriter.toString();
 
-        StringWriter tableHtmlWriter = new StringWriter();
-        InputStream tableHtmlTemplateIs = getClass().getClassLoader().getResourceAsStream(TABLE_TEMPLATE_HTML);
-        IOUtils.copy(tableHtmlTemplateIs, tableHtmlWriter);
-        String tableHtmlTemplate = tableHtmlWriter.toString();
+        String tableHtmlTemplate = readPageTemplate(TABLE_TEMPLATE_HTML);
 
         List<TableColumnInfo> tableInfos;
         if (dbObjects.length == 0) {
@@ -203,43 +346,33 @@ public class SiteGenerator {
             }
         }
 
-        tableInfos.sort(Comparator.comparing(TableColumnInfo::getColumnName));
- 
-        String rows = "";
-        String tabName = null;
-
-        int tabInfosSize = tableInfos.size();
-        if (tabInfosSize != 0) {
-            tabName = tableInfos.iterator().next().getObjectName();
-        }
-
-        int i = 0;
-        for (Iterator<TableColumnInfo> iterator = tableInfos.iterator(); iterator.hasNext(); i++) {
-            TableColumnInfo tableColumnInfo = iterator.next();
-
-            String row = rowHtmlTemplate.replaceFirst(columnNameRegexp, tableColumnInfo.getColumnName());
-            row = row.replaceFirst(dataTypeRegexp, tableColumnInfo.getDataType());
-            row = row.replaceFirst(nullableRegexp, tableColumnInfo.getNullable());
-            row = row.replaceFirst(dataDefaultRegexp, tableColumnInfo.getDataDefault());
-            row = row.replaceFirst(columnIdRegexp, tableColumnInfo.getColumnId());
-            row = row.replaceFirst(commentsRegexp, tableColumnInfo.getCommentMessage());
-
-            if (!tabName.equals(tableColumnInfo.getObjectName())) {
-                String content = tableHtmlTemplate.replaceFirst(tabNameRegexp, tabName);
-                content = content.replaceFirst(rowsRegexp, rows);
-                File tableHtml = new File(tablesDir + File.separator + tabName.toUpperCase() + ".html");
-                FileUtils.write(tableHtml, content);
-                rows = row + "\n";
-                tabName = tableColumnInfo.getObjectName();
-            } else if (i == tabInfosSize - 1) {
-                rows += row + "\n";
-                String content = tableHtmlTemplate.replaceFirst(tabNameRegexp, tabName);
-                content = content.replaceFirst(rowsRegexp, rows);
-                File tableHtml = new File(tablesDir + File.separator + tabName.toUpperCase() + ".html");
-                FileUtils.write(tableHtml, content);
-            } else {
-                rows += row + "\n";
+        // Pages are generated per object, the rows of each object are sorted by column name
+        Map<String, List<TableColumnInfo>> tableInfosByName = tableInfos.stream().collect(Collectors.groupingBy(
+                TableColumnInfo::getObjectName, TreeMap::new, Collectors.toList()));
+
+        for (Map.Entry<String, List<TableColumnInfo>> entry : tableInfosByName.entrySet()) {
+            RenderPageEvent event = new RenderPageEvent();
+            event.begin();
+            String tabName = entry.getKey();
+            List<TableColumnInfo> columnInfos = entry.getValue();
+            columnInfos.sort(Comparator.comparing(TableColumnInfo::getColumnName));
+
+            StringBuilder rows = new StringBuilder();
+            for (TableColumnInfo tableColumnInfo : columnInfos) {
+                String row = rowHtmlTemplate.replaceFirst(columnNameRegexp, tableColumnInfo.getColumnName());
+                row = row.replaceFirst(dataTypeRegexp, tableColumnInfo.getDataType());
+                row = row.replaceFirst(nullableRegexp, tableColumnInfo.getNullable());
+                row = row.replaceFirst(dataDefaultRegexp, tableColumnInfo.getDataDefault());
+                row = row.replaceFirst(columnIdRegexp, tableColumnInfo.getColumnId());
+                row = row.replaceFirst(commentsRegexp, tableColumnInfo.getCommentMessage());
+                rows.append(row).append("\n");
             }
+
+            String content = tableHtmlTemplate.replaceFirst(tabNameRegexp, tabName);
+            content = content.replaceFirst(rowsRegexp, rows.toString());
+            File tableHtml = new File(tablesDir + File.separator + tabName.toUpperCase() + ".html");
+            stagedFiles.putString(tableHtml, content);
+            commitRenderEvent(event, DbObjectType.TABLE.name(), tabName);
         }
     }
 
@@ -250,10 +383,7 @@ public class SiteGenerator {
         IOUtils.copy(rowHtmlTemplateIs, rowHtmlWriter);
         String rowHtmlTemplate = rowHtmlWriter.toString();
 
-        StringWriter viewHtmlWriter = new StringWriter();
-        InputStream viewHtmlTemplateIs = getClass().getClassLoader().getResourceAsStream(VIEW_TEMPLATE_HTML);
-        IOUtils.copy(viewHtmlTemplateIs, viewHtmlWriter);
-        String viewHtmlTemplate = viewHtmlWriter.toString();
+        String viewHtmlTemplate = readPageTemplate(VIEW_TEMPLATE_HTML);
 
         List<ViewColumnInfo> viewInfos;
         if (dbObjects.length == 0) {
@@ -266,47 +396,432 @@ public class SiteGenerator {
             }
         }
 
-        viewInfos.sort(Comparator.comparing(ViewColumnInfo::getColumnName));
-
-        String rows = "";
-        String viewName = null;
-        int vwsInfosSize = viewInfos.size();
-        if (vwsInfosSize != 0) {
-            viewName = viewInfos.iterator().next().getObjectName();
-        }
-
-        int i = 0;
-        for (Iterator<DdlParser.ViewColumnInfo> iterator = viewInfos.iterator(); iterator.hasNext(); i++) {
-            ViewColumnInfo viewColumnInfo = iterator.next();
-
-            String row = rowHtmlTemplate.replaceFirst(columnNameRegexp, viewColumnInfo.getColumnName());
-            row = row.replaceFirst(columnIdRegexp, viewColumnInfo.getColumnId());
-            row = row.replaceFirst(commentsRegexp, viewColumnInfo.getCommentMessage());
-
-            if (!viewName.equals(viewColumnInfo.getObjectName())) {
-                String content = viewHtmlTemplate.replaceFirst(tabNameRegexp, viewName);
-                content = content.replaceFirst(rowsRegexp, rows);
-                File viewHtml = new File(viewsDir + File.separator + viewName.toUpperCase() + ".html");
-                FileUtils.write(viewHtml, content);
-                rows = row + "\n";
-                viewName = viewColumnInfo.getObjectName();
-            } else if (i == vwsInfosSize - 1) {
-                rows += row + "\n";
-                String content = viewHtmlTemplate.replaceFirst(tabNameRegexp, viewName);
-                content = content.replaceFirst(rowsRegexp, rows);
-                File viewHtml = new File(viewsDir + File.separator + viewName.toUpperCase() + ".html");
-                FileUtils.write(viewHtml, content);
-            } else {
-                rows += row + "\n";
+        Map<String, List<ViewColumnInfo>> viewInfosByName = viewInfos.stream().collect(Collectors.groupingBy(
+                ViewColumnInfo::getObjectName, TreeMap::new, Collectors.toList()));
+
+        for (Map.Entry<String, List<ViewColumnInfo>> entry : viewInfosByName.entrySet()) {
+            RenderPageEvent event = new RenderPageEvent();
+            event.begin();
+            String viewName = entry.getKey();
+            List<ViewColumnInfo> columnInfos = entry.getValue();
+            columnInfos.sort(Comparator.comparing(ViewColumnInfo::getColumnName));
+
+            StringBuilder rows = new StringBuilder();
+            for (ViewColumnInfo viewColumnInfo : columnInfos) {
+                String row = rowHtmlTemplate.replaceFirst(columnNameRegexp, viewColumnInfo.getColumnName());
+                row = row.replaceFirst(dataTypeRegexp, Objects.toString(viewColumnInfo.getDataType(), ""));
+                row = row.replaceFirst(nullableRegexp, Objects.toString(viewColumnInfo.getNullable(), ""));
+                row = row.replaceFirst(columnIdRegexp, viewColumnInfo.getColumnId());
+                row = row.replaceFirst(commentsRegexp, viewColumnInfo.getCommentMessage());
+                rows.append(row).append("\n");
+            }
+
+            String content = viewHtmlTemplate.replaceFirst(tabNameRegexp, viewName);
+            content = content.replaceFirst(rowsRegexp, rows.toString());
+            File viewHtml = new File(viewsDir + File.separator + viewName.toUpperCase() + ".html");
+            stagedFiles.putString(viewHtml, content);
+            commitRenderEvent(event, DbObjectType.VIEW.name(), viewName);
+        }
+    }
+
+    public void generateObjectDefinitionsHtml(String objectsDir, DbObjectType objectType, String tablesDir,
+                                              String... dbObjects) throws IOException {
+        logger.debug("Generate {} html...", objectType);
+        String rowHtmlTemplate = IOUtils.toString(getClass().getClassLoader().getResourceAsStream(PROPERTY_ROW_HTML_TEMPLATE),
+                Charset.defaultCharset());
+        String objectHtmlTemplate = readPageTemplate(OBJECT_TEMPLATE_HTML);
+
+        Set<String> names = Stream.of(dbObjects).map(String::toUpperCase).collect(Collectors.toSet());
+        for (DdlParser.ObjectDefinitionInfo definitionInfo : ddlParser.getObjectDefinitions(objectType)) {
+            if (!names.isEmpty() && !names.contains(definitionInfo.getObjectName().toUpperCase())) {
+                continue;
+            }
+            RenderPageEvent event = new RenderPageEvent();
+            event.begin();
+            File objectHtml = new File(objectsDir, getDefinitionPageName(definitionInfo.getObjectName()));
+
+            StringBuilder rows = new StringBuilder();
+            for (Map.Entry<String, String> property : definitionInfo.getProperties().entrySet()) {
+                String value = StringEscapeUtils.escapeHtml4(property.getValue());
+                if (property.getKey().equals("TABLE_NAME") && definitionInfo.getTableName() != null) {
+                    File tablePage = new File(tablesDir, definitionInfo.getTableName().toUpperCase() + ".html");
+                    String link = objectHtml.getParentFile().toPath().toAbsolutePath().normalize()
+                                            .relativize(tablePage.toPath().toAbsolutePath().normalize())
+                                            .toString().replace(File.separatorChar, '/');
+                    value = "<a href=\"" + link + "\">" + value + "</a>";
+                }
+
+                String row = rowHtmlTemplate.replaceFirst(propertyNameRegexp, property.getKey());
+                row = row.replaceFirst(propertyValueRegexp, Matcher.quoteReplacement(value));
+                rows.append(row).append("\n");
+            }
+
+            String content = objectHtmlTemplate.replaceFirst(objectNameRegexp, Matcher.quoteReplacement(definitionInfo.getObjectName()));
+            content = content.replaceFirst(rowsRegexp, Matcher.quoteReplacement(rows.toString()));
+            content = content.replaceFirst(definitionRegexp, Matcher.quoteReplacement(
+                    StringEscapeUtils.escapeHtml4(definitionInfo.getDefinition())));
+            stagedFiles.putString(objectHtml, content);
+            commitRenderEvent(event, objectType.name(), definitionInfo.getObjectName());
+        }
+    }
+
+    public static String getDefinitionPageName(String objectName) {
+        return DEFINITION_PAGE_PREFIX + objectName.toUpperCase() + ".html";
+    }
+
+    public void generateObjectsList(String objectsDir) throws IOException {
+        File[] pages = stagedFiles.listFiles(new File(objectsDir), new WildcardFileFilter("*.html", IOCase.INSENSITIVE));
+        Map<String, String> entries = Maps.newTreeMap();
+        if (pages != null) {
+            for (File page : pages) {
+                if (!page.getName().equalsIgnoreCase("index.html")) {
+                    entries.put(StringUtils.removeStart(FilenameUtils.getBaseName(page.getName()), DEFINITION_PAGE_PREFIX),
+                            page.getName());
+                }
+            }
+        }
+        insertListEntries(new File(objectsDir + File.separator + "index.html"), entries);
+    }
+
+    public void generateObjectDefinitionsList(String objectsDir, DbObjectType objectType) throws IOException {
+        Map<String, String> entries = Maps.newTreeMap();
+        for (DdlParser.ObjectDefinitionInfo definitionInfo : ddlParser.getObjectDefinitions(objectType)) {
+            entries.put(definitionInfo.getObjectName().toUpperCase(), getDefinitionPageName(definitionInfo.getObjectName()));
+        }
+        insertListEntries(new File(objectsDir + File.separator + "index.html"), entries);
+    }
+
+    // Pages of the merged site that none of the shards has any more
+    public void deleteUnmergedObjectPages(String objectsDir, String sitePath, String[] shardSitePaths) {
+        File[] pages = stagedFiles.listFiles(new File(objectsDir),
+                new WildcardFileFilter(DEFINITION_PAGE_PREFIX + "*.html", IOCase.INSENSITIVE));
+        if (pages == null) {
+            return;
+        }
+
+        Path sitePathDir = new File(sitePath).toPath().toAbsolutePath().normalize();
+        for (File page : pages) {
+            Path relativePath = sitePathDir.relativize(page.toPath().toAbsolutePath().normalize());
+            if (Arrays.stream(shardSitePaths).noneMatch(shardSitePath -> new File(shardSitePath).toPath().resolve(relativePath).toFile().isFile())) {
+                logger.debug("Deleting {}, no shard has it", page);
+                deleteFile(page);
+            }
+        }
+    }
+
+    // Pages of the previous runs whose objects are no longer in the scripts, so the list does not show them either
+    public void deleteDroppedObjectPages(String objectsDir, DbObjectType objectType) {
+        Set<String> pageNames = Sets.newHashSet();
+        for (DdlParser.ObjectDefinitionInfo definitionInfo : ddlParser.getObjectDefinitions(objectType)) {
+            pageNames.add(getDefinitionPageName(definitionInfo.getObjectName()));
+        }
+
+        File[] pages = stagedFiles.listFiles(new File(objectsDir),
+                new WildcardFileFilter(DEFINITION_PAGE_PREFIX + "*.html", IOCase.INSENSITIVE));
+        if (pages != null) {
+            for (File page : pages) {
+                if (!pageNames.contains(page.getName())) {
+                    logger.debug("Deleting {}, the {} is gone", page, objectType);
+                    deleteFile(page);
+                }
+            }
+        }
+    }
+
+    public void generateObjectsList(String objectsDir, Collection<String> objectNames) throws IOException {
+        Map<String, String> entries = Maps.newTreeMap();
+        for (String objectName : objectNames) {
+            entries.put(objectName.toUpperCase(), objectName.toUpperCase() + ".html");
+        }
+        insertListEntries(new File(objectsDir + File.separator + "index.html"), entries);
+    }
+
+    private void insertListEntries(File indexFile, Map<String, String> entries) throws IOException {
+        String listEntryTemplate = IOUtils.toString(getClass().getClassLoader().getResourceAsStream(LIST_ENTRY_TEMPLATE),
+                Charset.defaultCharset());
+
+        List<String> contents = stagedFiles.readLines(indexFile);
+        int currentStringInList = 0;
+        while (currentStringInList < contents.size() && !contents.get(currentStringInList).contains("id=\"narrow\"")) {
+            currentStringInList++;
+        }
+        currentStringInList++;
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            String listEntry = listEntryTemplate.replaceFirst("\\$\\{filePath}", Matcher.quoteReplacement(entry.getValue()));
+            listEntry = listEntry.replaceFirst("\\$\\{fileName}", Matcher.quoteReplacement(entry.getKey()));
+            contents.add(Math.min(currentStringInList++, contents.size()), listEntry);
+        }
+        stagedFiles.putLines(indexFile, contents);
+    }
+
+    public void generatePackagesHtml(String packagesDir, List<DdlParser.PackageInfo> packageInfos) throws IOException {
+        logger.info("Generating packages html...");
+        String rowHtmlTemplate = IOUtils.toString(getClass().getClassLoader().getResourceAsStream(PACKAGE_ROW_HTML_TEMPLATE),
+                Charset.defaultCharset());
+        String packageHtmlTemplate = readPageTemplate(PACKAGE_TEMPLATE_HTML);
+
+        // Pages are rendered in their final form, so no reformat pass has to read them again
+        packageInfos.parallelStream().forEach(packageInfo -> {
+            RenderPageEvent event = new RenderPageEvent();
+            event.begin();
+            StringBuilder rows = new StringBuilder();
+            for (DdlParser.PackageMemberInfo memberInfo : packageInfo.getMembers()) {
+                String row = rowHtmlTemplate.replaceAll(memberNameRegexp, Matcher.quoteReplacement(memberInfo.getMemberName()));
+                row = row.replaceFirst(memberTypeRegexp, memberInfo.getMemberType());
+                row = row.replaceFirst(declarationRegexp, Matcher.quoteReplacement(
+                        StringEscapeUtils.escapeHtml4(memberInfo.getDeclaration())));
+                row = row.replaceFirst(commentsRegexp, Matcher.quoteReplacement(toHtml(memberInfo.getCommentMessage())));
+                rows.append(row).append("\n");
             }
+
+            String content = packageHtmlTemplate.replaceFirst(packageNameRegexp, Matcher.quoteReplacement(packageInfo.getObjectName()));
+            content = content.replaceFirst(commentsRegexp, Matcher.quoteReplacement(toHtml(packageInfo.getCommentMessage())));
+            content = content.replaceFirst(rowsRegexp, Matcher.quoteReplacement(rows.toString()));
+            File packageHtml = new File(packagesDir + File.separator + packageInfo.getObjectName().toUpperCase() + ".html");
+            stagedFiles.putString(packageHtml, content);
+            commitRenderEvent(event, DbObjectType.PACKAGE_SPEC.name(), packageInfo.getObjectName());
+        });
+
+        logger.info("{} packages", packageInfos.size());
+    }
+
+    private static String toHtml(String comment) {
+        return StringEscapeUtils.escapeHtml4(comment).replace("\n", "<br/>");
+    }
+
+    public void addDependencies(String tablesDir, String viewsDir, Collection<String> objectNames) throws IOException {
+        addDependencies(tablesDir, viewsDir, objectNames, false);
+    }
+
+    // With flush the pages are written in batches, so the pass never holds more than a batch of them
+    public void addDependencies(String tablesDir, String viewsDir, Collection<String> objectNames, boolean flush)
+            throws IOException {
+        logger.debug("Adding views dependencies...");
+        String dependenciesTemplate = IOUtils.toString(getClass().getClassLoader().getResourceAsStream(DEPENDENCIES_TEMPLATE),
+                Charset.defaultCharset());
+
+        // Both directions come from the indexes built while parsing, view definitions are not visited again
+        Set<String> names = Sets.newTreeSet();
+        if (objectNames == null) {
+            names.addAll(ddlParser.getViewsWithBaseObjects());
+            names.addAll(ddlParser.getObjectsWithDependentViews());
+            names.addAll(keptDependencies);
+            keptDependencies.clear();
+        } else {
+            objectNames.forEach(objectName -> names.add(objectName.toUpperCase()));
+            keptDependencies.removeAll(names);
         }
+
+        int pageCount = 0;
+        for (String name : names) {
+            for (File page : new File[]{new File(tablesDir, name + ".html"), new File(viewsDir, name + ".html")}) {
+                if (!stagedFiles.exists(page)) {
+                    continue;
+                }
+
+                String content = stagedFiles.readString(page);
+                String newContent = replaceDependencies(content, dependenciesTemplate, BASE_OBJECTS_SECTION, "BASE OBJECTS",
+                        ddlParser.getViewBaseObjects(name), page.getParentFile(), tablesDir, viewsDir);
+                newContent = replaceDependencies(newContent, dependenciesTemplate, USED_BY_SECTION, "USED BY VIEWS",
+                        ddlParser.getDependentViews(name), page.getParentFile(), viewsDir, viewsDir);
+
+                if (!newContent.equals(content)) {
+                    stagedFiles.putString(page, newContent);
+                }
+            }
+
+            if (flush && ++pageCount % DEPENDENCIES_FLUSH_SIZE == 0) {
+                flushFiles(tablesDir);
+                flushFiles(viewsDir);
+            }
+        }
+    }
+
+    // Pages are written per script before the lineage of the later scripts is known. They keep the sections written
+    // by the previous run, so an unchanged page is not written twice, addDependencies replaces them at the end
+    public void flushPagesKeepingDependencies(String dir) throws IOException {
+        for (String fileName : stagedFiles.getFileNames(new File(dir))) {
+            File page = new File(dir, fileName);
+            if (!page.isFile()) {
+                continue;
+            }
+
+            // The written page is read once, for its sections and to compare the new page with
+            byte[] writtenBytes = FileUtils.readFileToByteArray(page);
+            String writtenContent = new String(writtenBytes, Charset.defaultCharset());
+            String content = stagedFiles.readString(page);
+            String newContent = keepSection(content, writtenContent, BASE_OBJECTS_SECTION);
+            newContent = keepSection(newContent, writtenContent, USED_BY_SECTION);
+            if (!newContent.equals(content)) {
+                keptDependencies.add(FilenameUtils.getBaseName(fileName).toUpperCase());
+            }
+            stagedFiles.flush(page, newContent.getBytes(Charset.defaultCharset()), writtenBytes);
+        }
+        flushFiles(dir);
+    }
+
+    private static String keepSection(String content, String writtenContent, String sectionId) {
+        Pattern sectionPattern = SECTION_PATTERNS.get(sectionId);
+        Matcher writtenSection = sectionPattern.matcher(writtenContent);
+        if (!writtenSection.find()) {
+            return content;
+        }
+        return sectionPattern.matcher(content).replaceFirst(Matcher.quoteReplacement(writtenSection.group()));
+    }
+
+    private String replaceDependencies(String content, String dependenciesTemplate, String sectionId, String title,
+                                       Collection<String> objectNames, File pageDir, String tablesDir, String viewsDir) {
+        String section = "<div id=\"" + sectionId + "\"></div>";
+        if (!objectNames.isEmpty()) {
+            StringBuilder rows = new StringBuilder();
+            for (String objectName : objectNames) {
+                File viewPage = new File(viewsDir, objectName + ".html");
+                File tablePage = new File(tablesDir, objectName + ".html");
+                File targetPage = pageExists.test(viewPage) ? viewPage : pageExists.test(tablePage) ? tablePage : null;
+
+                rows.append("<tr><td>");
+                if (targetPage != null) {
+                    String link = pageDir.toPath().toAbsolutePath().normalize()
+                                         .relativize(targetPage.toPath().toAbsolutePath().normalize())
+                                         .toString().replace(File.separatorChar, '/');
+                    rows.append("<a href=\"").append(link).append("\">").append(objectName).append("</a>");
+                } else {
+                    rows.append(objectName);
+                }
+                rows.append("</td></tr>\n");
+            }
+
+            section = dependenciesTemplate.replaceFirst("\\$\\{sectionId}", sectionId);
+            section = section.replaceFirst("\\$\\{title}", title);
+            section = section.replaceFirst("\\$\\{rows}", Matcher.quoteReplacement(rows.toString()));
+        }
+
+        return SECTION_PATTERNS.get(sectionId).matcher(content).replaceFirst(Matcher.quoteReplacement(section));
+    }
+
+    public void generateErd(String erdDir, String tablesDir, int maxClusterSize) throws IOException {
+        logger.info("Generating ER diagrams...");
+        String erdHtmlTemplate = readPageTemplate(ERD_TEMPLATE_HTML);
+
+        String tablesPath = new File(erdDir).toPath().toAbsolutePath().normalize()
+                                            .relativize(new File(tablesDir).toPath().toAbsolutePath().normalize())
+                                            .toString().replace(File.separatorChar, '/');
+        ErdGenerator erdGenerator = new ErdGenerator(ddlParser, tablesPath);
+        List<List<String>> clusters = erdGenerator.getClusters(maxClusterSize);
+
+        // Every cluster is a separate page, it is loaded only when one of its tables is opened from the list
+        clusters.parallelStream().forEach(cluster -> {
+            RenderPageEvent event = new RenderPageEvent();
+            event.begin();
+            String clusterName = erdGenerator.getClusterName(cluster.get(0));
+            String content = erdHtmlTemplate.replaceFirst(clusterNameRegexp, Matcher.quoteReplacement(clusterName));
+            content = content.replaceFirst(svgRegexp, Matcher.quoteReplacement(erdGenerator.renderSvg(cluster)));
+            stagedFiles.putString(new File(erdDir + File.separator + clusterName + ".html"), content);
+            commitRenderEvent(event, "ERD", clusterName);
+        });
+
+        List<String> tableNames = clusters.stream().flatMap(List::stream).sorted().collect(Collectors.toList());
+        Map<String, String> entries = Maps.newLinkedHashMap();
+        for (String tableName : tableNames) {
+            entries.put(tableName, erdGenerator.getClusterName(tableName) + ".html#" + tableName);
+        }
+        insertListEntries(new File(erdDir + File.separator + "index.html"), entries);
+
+        logger.info("{} tables in {} ER diagrams", tableNames.size(), clusters.size());
     }
 
     public void addProjectName(String sitePath, String projectName) throws IOException {
         File nodeTypesFile = new File(sitePath + File.separator + NODE_TYPES);
-        String nodeTypesContent = FileUtils.readFileToString(nodeTypesFile);
-        String projectNameRegex = "\\$\\{projectName\\}";
-        nodeTypesContent = nodeTypesContent.replaceFirst(projectNameRegex, projectName);
-        FileUtils.write(nodeTypesFile, nodeTypesContent);
+        String nodeTypesContent = stagedFiles.readString(nodeTypesFile);
+        nodeTypesContent = nodeTypesContent.replaceFirst(projectNameRegexp, projectName);
+        stagedFiles.putString(nodeTypesFile, nodeTypesContent);
+    }
+
+    // The top level index of a multi-schema site, every schema has its own site in a subfolder
+    public void generateSchemasIndex(String sitePath, String projectName, Map<String, String> schemaSiteDirs) throws IOException {
+        logger.info("Generating schemas index...");
+        String rowHtmlTemplate = IOUtils.toString(getClass().getClassLoader().getResourceAsStream(SCHEMA_ROW_HTML_TEMPLATE),
+                Charset.defaultCharset());
+        String schemasHtmlTemplate = IOUtils.toString(getClass().getClassLoader().getResourceAsStream(SCHEMAS_TEMPLATE_HTML),
+                Charset.defaultCharset());
+
+        StringBuilder rows = new StringBuilder();
+        for (Map.Entry<String, String> entry : schemaSiteDirs.entrySet()) {
+            String row = rowHtmlTemplate.replaceFirst(siteDirRegexp, Matcher.quoteReplacement(entry.getValue()));
+            row = row.replaceFirst(schemaNameRegexp, Matcher.quoteReplacement(StringEscapeUtils.escapeHtml4(entry.getKey())));
+            rows.append(row).append("\n");
+        }
+
+        String content = schemasHtmlTemplate.replaceAll(projectNameRegexp,
+                Matcher.quoteReplacement(StringEscapeUtils.escapeHtml4(projectName)));
+        content = content.replaceFirst(rowsRegexp, Matcher.quoteReplacement(rows.toString()));
+        stagedFiles.putString(new File(sitePath, "index.html"), content);
+    }
+
+    // Added and changed objects link to their pages, the pages of removed objects are gone
+    public void generateChangeReport(File reportFile, String title, List<SchemaHashDiff.Change> changes,
+                                     Map<DbObjectType, String> objectDirs) throws IOException {
+        logger.info("Generating change report...");
+        String rowHtmlTemplate = IOUtils.toString(getClass().getClassLoader().getResourceAsStream(CHANGE_ROW_HTML_TEMPLATE),
+                Charset.defaultCharset());
+        String changesHtmlTemplate = readPageTemplate(CHANGES_TEMPLATE_HTML);
+
+        StringBuilder rows = new StringBuilder();
+        for (SchemaHashDiff.Change change : changes) {
+            String objectName = StringEscapeUtils.escapeHtml4(change.getObjectName());
+            DbObjectType objectType = DbObjectType.valueOf(change.getObjectType());
+            String objectDir = objectDirs.get(objectType);
+            if (objectDir != null && !SchemaHashDiff.REMOVED.equals(change.getChange())) {
+                File objectPage = new File(objectDir, objectType == DbObjectType.TABLE || objectType == DbObjectType.VIEW
+                        ? change.getObjectName() + ".html" : getDefinitionPageName(change.getObjectName()));
+                String link = reportFile.getAbsoluteFile().getParentFile().toPath().normalize()
+                                        .relativize(objectPage.toPath().toAbsolutePath().normalize())
+                                        .toString().replace(File.separatorChar, '/');
+                objectName = "<a href=\"" + link + "\">" + objectName + "</a>";
+            }
+
+            String details = change.getDetails().stream()
+                                   .map(StringEscapeUtils::escapeHtml4)
+                                   .collect(Collectors.joining("<br>"));
+            String row = rowHtmlTemplate.replaceFirst(objectTypeRegexp, change.getObjectType());
+            row = row.replaceFirst(objectNameRegexp, Matcher.quoteReplacement(objectName));
+            row = row.replaceFirst(changeRegexp, change.getChange());
+            row = row.replaceFirst(detailsRegexp, Matcher.quoteReplacement(details));
+            rows.append(row).append("\n");
+        }
+
+        String content = changesHtmlTemplate.replaceAll(projectNameRegexp,
+                Matcher.quoteReplacement(StringEscapeUtils.escapeHtml4(title)));
+        content = content.replaceFirst(rowsRegexp, Matcher.quoteReplacement(rows.toString()));
+        stagedFiles.putString(reportFile, content);
+    }
+
+    // Fields are only filled when the event is recorded, so there is no cost with recording off
+    private static void commitRenderEvent(RenderPageEvent event, String pageType, String objectName) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.pageType = pageType;
+            event.objectName = objectName;
+            event.commit();
+        }
+    }
+
+    public byte[] readSiteFile(File file) throws IOException {
+        return stagedFiles.read(file);
+    }
+
+    // A page of an object that is gone, staged or already written
+    public void deleteFile(File file) {
+        stagedFiles.remove(file);
+        FileUtils.deleteQuietly(file);
+    }
+
+    public void flushFiles(String dir) throws IOException {
+        stagedFiles.flush(new File(dir));
+    }
+
+    public void flushFiles() throws IOException {
+        stagedFiles.flush();
+        logger.info("{} site files changed, {} unchanged", stagedFiles.getWrittenCount(), stagedFiles.getUnchangedCount());
     }
 }
\ No newline at end of file
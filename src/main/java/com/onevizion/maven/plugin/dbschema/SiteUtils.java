@@ -1,14 +1,24 @@
 package com.onevizion.maven.plugin.dbschema;
 
+import com.onevizion.maven.plugin.dbschema.event.FileBatchEvent;
 import com.onevizion.maven.plugin.dbschema.vo.CopyFilesConfig;
 import com.onevizion.maven.plugin.dbschema.vo.ReformatFilesConfig;
 import com.onevizion.maven.plugin.dbschema.vo.DeleteFilesConfig;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOCase;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.filefilter.TrueFileFilter;
 import org.apache.commons.io.filefilter.WildcardFileFilter;
 import org.apache.commons.lang3.StringEscapeUtils;
 
 import java.io.*;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -17,8 +27,60 @@ public class SiteUtils {
 
     public static final String SITE_TEMPLATE_DIR = "site-template/";
 
-    public static void reformatFiles(ReformatFilesConfig config) throws Exception {
+    public static final String REGEXP_ENGINE_JAVA = "java";
+    public static final String REGEXP_ENGINE_LINEAR = "linear";
+
+    // Thrown from the input of a matcher, the only way to stop java.util.regex in the middle of a match
+    private static class MatchTimeoutException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static class TimeLimitedCharSequence implements CharSequence {
+        private final CharSequence content;
+        private final long deadline;
+        private int reads = 0;
+
+        private TimeLimitedCharSequence(CharSequence content, long deadline) {
+            this.content = content;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if ((++reads & 0xFFF) == 0 && System.nanoTime() > deadline) {
+                throw new MatchTimeoutException();
+            }
+            return content.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return content.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return content.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return content.toString();
+        }
+    }
+
+    public static void reformatFiles(ReformatFilesConfig config, StagedFiles stagedFiles) throws Exception {
         File dir = new File(config.getInputDirectory());
+        FileBatchEvent event = new FileBatchEvent();
+        event.begin();
+        int fileCount = 0;
+
+        String regexpEngine = config.getRegexpEngine() == null || config.getRegexpEngine().isEmpty()
+                ? REGEXP_ENGINE_JAVA : config.getRegexpEngine();
+        if (!REGEXP_ENGINE_JAVA.equalsIgnoreCase(regexpEngine) && !REGEXP_ENGINE_LINEAR.equalsIgnoreCase(regexpEngine)) {
+            throw new Exception("Unknown regexpEngine " + regexpEngine + " in reformatFilesConfig, expected "
+                    + REGEXP_ENGINE_JAVA + " or " + REGEXP_ENGINE_LINEAR);
+        }
 
         for (String include : config.getIncludes()) {
             include = (include == null || include.isEmpty()) ? "*" : include;
@@ -33,23 +95,53 @@ public class SiteUtils {
             }
 
             FileFilter filter = new WildcardFileFilter(include, IOCase.INSENSITIVE);
-            File[] filteredFiles = dir.listFiles(filter);
+            File[] filteredFiles = stagedFiles.listFiles(dir, filter);
             if (filteredFiles == null || filteredFiles.length == 0) {
                 throw new Exception(include + " files not found in " + config.getInputDirectory());
             } else {
+                Pattern pattern = null;
+                LinearPattern linearPattern = null;
+                if (REGEXP_ENGINE_LINEAR.equalsIgnoreCase(regexpEngine)) {
+                    linearPattern = LinearPattern.compile(regex, Pattern.DOTALL);
+                } else {
+                    pattern = Pattern.compile(regex, Pattern.DOTALL);
+                }
+
                 for (File file : filteredFiles) {
-                    String content = FileUtils.readFileToString(file);
-                    Pattern pattern = Pattern.compile(regex, Pattern.DOTALL);
-                    content = pattern.matcher(content).replaceAll(replacement);
-                    FileUtils.writeStringToFile(file, content);
+                    String content = stagedFiles.readString(file);
+                    CharSequence input = content;
+                    long start = System.nanoTime();
+                    if (config.getTimeLimit() > 0) {
+                        input = new TimeLimitedCharSequence(content, start + config.getTimeLimit() * 1000000L);
+                    }
+
+                    try {
+                        if (linearPattern != null) {
+                            content = linearPattern.replaceAll(input, replacement);
+                        } else {
+                            content = pattern.matcher(input).replaceAll(replacement);
+                        }
+                    } catch (MatchTimeoutException e) {
+                        throw new Exception("Reformatting of " + file + " (" + content.length() + " chars) with regexp '"
+                                + config.getRegexp() + "' exceeded the time limit of " + config.getTimeLimit() + " ms"
+                                + " after " + (System.nanoTime() - start) / 1000000 + " ms"
+                                + (linearPattern == null ? ", the pattern probably backtracks catastrophically."
+                                + " Set regexpEngine to " + REGEXP_ENGINE_LINEAR + " in its reformatFilesConfig" : ""));
+                    }
+                    stagedFiles.putString(file, content);
                 }
+                fileCount += filteredFiles.length;
             }
         }
+        commitBatchEvent(event, "reformat", dir, fileCount);
     }
 
-    public static void copyFiles(CopyFilesConfig config) throws Exception {
+    public static void copyFiles(CopyFilesConfig config, StagedFiles stagedFiles) throws Exception {
         File srcDir = new File(config.getSrcDir());
         File destDir = new File(config.getDestDir());
+        FileBatchEvent event = new FileBatchEvent();
+        event.begin();
+        int fileCount = 0;
         for (String include : config.getIncludes()) {
             include = (include == null || include.isEmpty()) ? "*" : include;
             FileFilter filter = new WildcardFileFilter(include, IOCase.INSENSITIVE);
@@ -58,18 +150,25 @@ public class SiteUtils {
                 throw new Exception(include + " files not found in " + config.getSrcDir());
             } else {
                 for (File file : filteredFiles) {
-                    FileUtils.copyFileToDirectory(file, destDir);
+                    stagedFiles.put(new File(destDir, file.getName()), FileUtils.readFileToByteArray(file));
                 }
+                fileCount += filteredFiles.length;
             }
         }
+        commitBatchEvent(event, "copy", srcDir, fileCount);
     }
 
-    public static void deleteFiles(DeleteFilesConfig config) throws Exception {
+    public static void deleteFiles(DeleteFilesConfig config, StagedFiles stagedFiles) throws Exception {
         File srcDir = new File(config.getInputDirectory());
+        FileBatchEvent event = new FileBatchEvent();
+        event.begin();
         if (config.getIncludes() == null) {
+            stagedFiles.removeDirectory(srcDir);
             FileUtils.deleteDirectory(srcDir);
+            commitBatchEvent(event, "delete", srcDir, 0);
             return;
         }
+        int fileCount = 0;
         for (String include : config.getIncludes()) {
             include = (include == null || include.isEmpty()) ? "*" : include;
             FileFilter filter = new WildcardFileFilter(include, IOCase.INSENSITIVE);
@@ -80,17 +179,66 @@ public class SiteUtils {
                 for (File file : filteredFiles) {
                     FileUtils.forceDeleteOnExit(file);
                 }
+                fileCount += filteredFiles.length;
             }
         }
+        commitBatchEvent(event, "delete", srcDir, fileCount);
     }
 
-    public static void unZipSiteTemplate(InputStream stream, File destDir) throws IOException {
-        byte[] buffer = new byte[1024];
-        if (!destDir.exists()) {
-            destDir.mkdir();
+    // Files are compared and copied one at a time, nothing is held in memory. An unchanged file is not written
+    public static int copyDirectoryIfChanged(File srcDir, File destDir, Predicate<File> skipped) throws IOException {
+        FileBatchEvent event = new FileBatchEvent();
+        event.begin();
+        Path srcPath = srcDir.toPath();
+        int fileCount = 0;
+        int writtenCount = 0;
+        for (File file : FileUtils.listFiles(srcDir, null, true)) {
+            File destFile = destDir.toPath().resolve(srcPath.relativize(file.toPath())).toFile();
+            if (skipped.test(destFile)) {
+                continue;
+            }
+            if (!destFile.isFile() || destFile.length() != file.length() || !FileUtils.contentEquals(file, destFile)) {
+                FileUtils.copyFile(file, destFile);
+                writtenCount++;
+            }
+            fileCount++;
         }
+        commitBatchEvent(event, "copy", srcDir, fileCount);
+        return writtenCount;
+    }
+
+    // The jar is read once, every site generated by the same build gets the cached entries. Directories have no content
+    private static Map<String, byte[]> siteTemplateEntries;
 
-        boolean isExist = false;
+    public static void unZipSiteTemplate(URL jarLocation, File destDir, StagedFiles stagedFiles) throws IOException {
+        Map<String, byte[]> entries;
+        synchronized (SiteUtils.class) {
+            if (siteTemplateEntries == null) {
+                // Unpacked classes, e.g. of the tests, have the template as a folder
+                File classesDir = FileUtils.toFile(jarLocation);
+                if (classesDir != null && classesDir.isDirectory()) {
+                    siteTemplateEntries = Collections.unmodifiableMap(readSiteTemplate(classesDir));
+                } else {
+                    try (InputStream stream = jarLocation.openStream()) {
+                        siteTemplateEntries = Collections.unmodifiableMap(readSiteTemplate(stream));
+                    }
+                }
+            }
+            entries = siteTemplateEntries;
+        }
+
+        for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+            File newFile = new File(destDir + File.separator + entry.getKey());
+            if (entry.getValue() == null) {
+                newFile.mkdirs();
+            } else {
+                stagedFiles.put(newFile, entry.getValue());
+            }
+        }
+    }
+
+    private static Map<String, byte[]> readSiteTemplate(InputStream stream) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
         ZipInputStream zis = new ZipInputStream(stream);
         ZipEntry ze;
         while ((ze = zis.getNextEntry()) != null) {
@@ -99,26 +247,57 @@ public class SiteUtils {
             if (!fileName.matches(SITE_TEMPLATE_DIR + ".+")) {
                 continue;
             }
-            isExist = true;
             fileName = fileName.replaceFirst(SITE_TEMPLATE_DIR, "");
-            File newFile = new File(destDir + File.separator + fileName);
-
-            new File(newFile.getParent()).mkdirs();
-            if (!ze.isDirectory()) {
-                FileOutputStream fos = new FileOutputStream(newFile);
-                int len;
-                while ((len = zis.read(buffer)) > 0) {
-                    fos.write(buffer, 0, len);
-                }
-                fos.close();
-            }
+            entries.put(fileName, ze.isDirectory() ? null : IOUtils.toByteArray(zis));
         }
 
         zis.closeEntry();
         zis.close();
 
-        if (!isExist) {
+        if (entries.isEmpty()) {
             throw new IOException(SITE_TEMPLATE_DIR + " doesn't exist in the jar file");
         }
+        return entries;
+    }
+
+    private static Map<String, byte[]> readSiteTemplate(File classesDir) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        File templateDir = new File(classesDir, SITE_TEMPLATE_DIR);
+        if (!templateDir.isDirectory()) {
+            throw new IOException(SITE_TEMPLATE_DIR + " doesn't exist in " + classesDir);
+        }
+
+        Path templatePath = templateDir.toPath();
+        for (File file : FileUtils.listFilesAndDirs(templateDir, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE)) {
+            String fileName = templatePath.relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+            if (!fileName.isEmpty()) {
+                entries.put(fileName, file.isDirectory() ? null : FileUtils.readFileToByteArray(file));
+            }
+        }
+        return entries;
+    }
+
+    static void commitBatchEvent(FileBatchEvent event, String operation, File dir, int fileCount) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.directory = dir != null ? dir.getPath() : null;
+            event.fileCount = fileCount;
+            event.commit();
+        }
+    }
+
+    public static boolean writeIfChanged(File file, byte[] content) throws IOException {
+        return writeIfChanged(file, content, file.isFile() && file.length() == content.length
+                ? FileUtils.readFileToByteArray(file) : null);
+    }
+
+    // The current content is null for a file that does not exist
+    public static boolean writeIfChanged(File file, byte[] content, byte[] writtenContent) throws IOException {
+        if (writtenContent != null && Arrays.equals(writtenContent, content)) {
+            return false;
+        }
+        FileUtils.writeByteArrayToFile(file, content);
+        return true;
     }
-}
\ No newline at end of file
+}
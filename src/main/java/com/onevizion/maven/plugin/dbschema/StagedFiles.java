@@ -0,0 +1,197 @@
+package com.onevizion.maven.plugin.dbschema;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.onevizion.maven.plugin.dbschema.event.FileBatchEvent;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+public class StagedFiles {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Map<File, byte[]> stagedFiles = Maps.newLinkedHashMap();
+
+    // Files that are final when they are put, they are written at once instead of being kept until the flush
+    private Predicate<File> writeThrough = file -> false;
+
+    private int writtenCount = 0;
+    private int unchangedCount = 0;
+
+    public synchronized void setWriteThrough(Predicate<File> writeThrough) {
+        this.writeThrough = writeThrough;
+    }
+
+    public synchronized void put(File file, byte[] content) {
+        File normalizedFile = normalize(file);
+        if (this.writeThrough.test(normalizedFile)) {
+            this.stagedFiles.remove(normalizedFile);
+            try {
+                this.write(normalizedFile, content);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            this.stagedFiles.put(normalizedFile, content);
+        }
+    }
+
+    public void putString(File file, String content) {
+        this.put(file, content.getBytes(Charset.defaultCharset()));
+    }
+
+    public void putLines(File file, List<String> lines) {
+        StringBuilder content = new StringBuilder();
+        for (String line : lines) {
+            content.append(line).append(System.lineSeparator());
+        }
+        this.putString(file, content.toString());
+    }
+
+    public synchronized byte[] read(File file) throws IOException {
+        byte[] content = this.stagedFiles.get(normalize(file));
+        return content != null ? content : FileUtils.readFileToByteArray(file);
+    }
+
+    public String readString(File file) throws IOException {
+        return new String(this.read(file), Charset.defaultCharset());
+    }
+
+    public List<String> readLines(File file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new StringReader(this.readString(file)))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+
+    public synchronized boolean isStaged(File file) {
+        return this.stagedFiles.containsKey(normalize(file));
+    }
+
+    public synchronized boolean exists(File file) {
+        return this.stagedFiles.containsKey(normalize(file)) || file.exists();
+    }
+
+    public synchronized File[] listFiles(File dir, FileFilter filter) {
+        File normalizedDir = normalize(dir);
+        Map<String, File> files = Maps.newTreeMap();
+
+        File[] diskFiles = dir.listFiles(filter);
+        if (diskFiles != null) {
+            for (File file : diskFiles) {
+                files.put(file.getName(), file);
+            }
+        }
+        for (File file : this.stagedFiles.keySet()) {
+            if (normalizedDir.equals(file.getParentFile()) && (filter == null || filter.accept(file))) {
+                files.putIfAbsent(file.getName(), file);
+            }
+        }
+
+        return files.isEmpty() && diskFiles == null ? null : files.values().toArray(new File[0]);
+    }
+
+    public synchronized List<String> getFileNames(File dir) {
+        File normalizedDir = normalize(dir);
+        List<String> fileNames = Lists.newArrayList();
+        for (File file : this.stagedFiles.keySet()) {
+            if (normalizedDir.equals(file.getParentFile())) {
+                fileNames.add(file.getName());
+            }
+        }
+        return fileNames;
+    }
+
+    public synchronized List<File> getFiles(File dir) {
+        String prefix = normalize(dir).getPath() + File.separator;
+        return this.stagedFiles.keySet().stream()
+                               .filter(file -> file.getPath().startsWith(prefix))
+                               .collect(Collectors.toList());
+    }
+
+    public synchronized void remove(File file) {
+        this.stagedFiles.remove(normalize(file));
+    }
+
+    public synchronized void putAll(StagedFiles files) {
+        synchronized (files) {
+            for (Map.Entry<File, byte[]> entry : files.stagedFiles.entrySet()) {
+                this.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    public synchronized void removeDirectory(File dir) {
+        String prefix = normalize(dir).getPath() + File.separator;
+        this.stagedFiles.keySet().removeIf(file -> file.getPath().startsWith(prefix));
+    }
+
+    public synchronized void flush() throws IOException {
+        FileBatchEvent event = new FileBatchEvent();
+        event.begin();
+        int fileCount = this.stagedFiles.size();
+        for (Map.Entry<File, byte[]> entry : this.stagedFiles.entrySet()) {
+            this.write(entry.getKey(), entry.getValue());
+        }
+        this.stagedFiles.clear();
+        SiteUtils.commitBatchEvent(event, "write", null, fileCount);
+    }
+
+    public synchronized void flush(File dir) throws IOException {
+        File normalizedDir = normalize(dir);
+        FileBatchEvent event = new FileBatchEvent();
+        event.begin();
+        int fileCount = 0;
+        for (Iterator<Map.Entry<File, byte[]>> iterator = this.stagedFiles.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<File, byte[]> entry = iterator.next();
+            if (normalizedDir.equals(entry.getKey().getParentFile())) {
+                this.write(entry.getKey(), entry.getValue());
+                iterator.remove();
+                fileCount++;
+            }
+        }
+        SiteUtils.commitBatchEvent(event, "write", dir, fileCount);
+    }
+
+    // A staged file whose current content was already read, it is not read again to compare
+    public synchronized void flush(File file, byte[] content, byte[] writtenContent) throws IOException {
+        this.stagedFiles.remove(normalize(file));
+        if (SiteUtils.writeIfChanged(file, content, writtenContent)) {
+            logger.debug("Written {}", file.getPath());
+            this.writtenCount++;
+        } else {
+            this.unchangedCount++;
+        }
+    }
+
+    public synchronized int getWrittenCount() {
+        return this.writtenCount;
+    }
+
+    public synchronized int getUnchangedCount() {
+        return this.unchangedCount;
+    }
+
+    private void write(File file, byte[] content) throws IOException {
+        if (SiteUtils.writeIfChanged(file, content)) {
+            logger.debug("Written {}", file.getPath());
+            this.writtenCount++;
+        } else {
+            this.unchangedCount++;
+        }
+    }
+
+    private static File normalize(File file) {
+        return file.toPath().toAbsolutePath().normalize().toFile();
+    }
+}
@@ -0,0 +1,20 @@
+package com.onevizion.maven.plugin.dbschema.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.onevizion.dbschema.FileBatch")
+@Label("File Batch")
+@Category({"DB Schema", "File I/O"})
+public class FileBatchEvent extends Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("Directory")
+    public String directory;
+
+    @Label("File Count")
+    public int fileCount;
+}
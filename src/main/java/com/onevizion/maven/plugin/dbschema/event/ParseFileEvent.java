@@ -0,0 +1,25 @@
+package com.onevizion.maven.plugin.dbschema.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.onevizion.dbschema.ParseFile")
+@Label("Parse DDL Script")
+@Category({"DB Schema", "Parse"})
+public class ParseFileEvent extends Event {
+    @Label("Path")
+    public String path;
+
+    @Label("File Size")
+    @DataAmount
+    public long fileSize;
+
+    @Label("Statement Count")
+    public int statementCount;
+
+    @Label("Parsed")
+    public boolean parsed;
+}
@@ -0,0 +1,17 @@
+package com.onevizion.maven.plugin.dbschema.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.onevizion.dbschema.RenderPage")
+@Label("Render Page")
+@Category({"DB Schema", "Render"})
+public class RenderPageEvent extends Event {
+    @Label("Page Type")
+    public String pageType;
+
+    @Label("Object Name")
+    public String objectName;
+}
@@ -0,0 +1,62 @@
+package com.onevizion.maven.plugin.dbschema.mojo;
+
+import com.google.common.collect.Maps;
+import com.onevizion.maven.plugin.dbschema.SchemaHashDiff;
+import com.onevizion.maven.plugin.dbschema.SchemaHashes;
+import com.onevizion.maven.plugin.dbschema.vo.DbObjectType;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+// Compares the schema hashes of the site with the hashes of an earlier site, e.g. of the previous release
+@Mojo(name = "diffSite", threadSafe = true)
+public class DiffSiteMojo extends GenerateSiteMojo {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Parameter(property = "baseSitePath", required = true)
+    String baseSitePath;
+
+    @Parameter(property = "diffReportFile")
+    File diffReportFile;
+
+    @Override
+    public void execute() throws MojoFailureException {
+        File reportFile = diffReportFile != null ? diffReportFile : new File(sitePath, "changes.html");
+        SchemaHashDiff diff = new SchemaHashDiff(getHashesDir(baseSitePath), getHashesDir(sitePath));
+
+        createGenerator();
+        try {
+            List<SchemaHashDiff.Change> changes = diff.diff();
+
+            Map<DbObjectType, String> objectDirs = Maps.newEnumMap(DbObjectType.class);
+            objectDirs.put(DbObjectType.TABLE, tablesDir);
+            objectDirs.put(DbObjectType.VIEW, viewsDir);
+            for (DbObjectType objectType : DEFINITION_OBJECT_TYPES) {
+                objectDirs.put(objectType, getObjectsDir(objectType));
+            }
+
+            siteGenerator.loadSiteTemplateAssets(sitePath);
+            String title = (projectName != null && !projectName.isEmpty() ? projectName : "Program Scope") + " changes";
+            siteGenerator.generateChangeReport(reportFile, title, changes, objectDirs);
+            siteGenerator.flushFiles();
+
+            logger.info("{} changed objects found in {} hash files, see {}", changes.size(), diff.getFilesRead(), reportFile);
+        } catch (Exception e) {
+            logger.error(e.getLocalizedMessage());
+            throw new MojoFailureException(e.getLocalizedMessage(), e);
+        }
+    }
+
+    // Either a site or its hashes directory, so the hashes of a release can be kept without the site
+    private static File getHashesDir(String path) {
+        File hashesDir = new File(path, SchemaHashes.HASHES_DIR);
+        return hashesDir.isDirectory() ? hashesDir : new File(path);
+    }
+}
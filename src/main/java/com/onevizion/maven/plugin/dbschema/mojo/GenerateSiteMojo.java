@@ -1,12 +1,23 @@
 package com.onevizion.maven.plugin.dbschema.mojo;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.onevizion.maven.plugin.dbschema.DdlArchive;
 import com.onevizion.maven.plugin.dbschema.DdlParser;
 import com.onevizion.maven.plugin.dbschema.DdlParserImpl;
+import com.onevizion.maven.plugin.dbschema.NdjsonSchemaWriter;
+import com.onevizion.maven.plugin.dbschema.ParseCosts;
+import com.onevizion.maven.plugin.dbschema.ParseDiagnostics;
+import com.onevizion.maven.plugin.dbschema.SchemaHashes;
 import com.onevizion.maven.plugin.dbschema.SiteGenerator;
 import com.onevizion.maven.plugin.dbschema.vo.*;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -16,19 +27,36 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-@Mojo(name = "generateSite", defaultPhase = LifecyclePhase.GENERATE_SOURCES)
+@Mojo(name = "generateSite", defaultPhase = LifecyclePhase.GENERATE_SOURCES, threadSafe = true)
 public class GenerateSiteMojo extends AbstractMojo implements DdlParser.ParseFileCompleteCallback {
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
-    private final String ddlTablesPathSuf = "/tables";
-    private final String ddlViewsPathSuf = "/views";
+    final String ddlTablesPathSuf = "/tables";
+    final String ddlViewsPathSuf = "/views";
+    final String ddlPackagesPathSuf = "/packages";
+
+    static final DbObjectType[] DEFINITION_OBJECT_TYPES = {DbObjectType.INDEX, DbObjectType.SEQUENCE, DbObjectType.TRIGGER};
+
+    // The layout of outputDirectory, at the root of the archive or in one folder
+    static final String[] DEFAULT_ARCHIVE_INCLUDES = {"tables/*.sql", "views/*.sql", "*/tables/*.sql", "*/views/*.sql"};
 
     @Parameter(property = "sitePath", required = true)
     String sitePath;
@@ -58,36 +86,128 @@ public class GenerateSiteMojo extends AbstractMojo implements DdlParser.ParseFil
     DeleteFilesConfig[] deleteFilesConfigs;
 
     @Parameter(property = "addTablesCommentsConfigs", required = false)
-    private AddTablesCommentsConfig[] addTablesCommentsConfigs;
+    AddTablesCommentsConfig[] addTablesCommentsConfigs;
 
     @Parameter(property = "addTableOfContentsConfigs", required = true)
-    private AddTableOfContentsConfig[] addTableOfContentsConfigs;
+    AddTableOfContentsConfig[] addTableOfContentsConfigs;
 
     @Parameter(property = "dbSiteObjects", required = false)
-    private String[] dbSiteObjects;
+    String[] dbSiteObjects;
 
     @Parameter(property = "outputDirectory", required = true)
-    private String outputDirectory;
+    String outputDirectory;
+
+    @Parameter(property = "scriptArchives", required = false)
+    ScriptArchiveConfig[] scriptArchives;
 
     @Parameter(property = "filterTables", required = false)
-    private FilterConfig filterTables;
+    FilterConfig filterTables;
 
     @Parameter(property = "filterViews", required = false)
-    private FilterConfig filterViews;
+    FilterConfig filterViews;
+
+    @Parameter(property = "erdDir", required = false)
+    String erdDir;
+
+    @Parameter(property = "maxErdClusterSize", defaultValue = "40")
+    int maxErdClusterSize;
+
+    @Parameter(property = "streamingThreshold", defaultValue = "33554432")
+    long streamingThreshold;
+
+    @Parameter(property = "globalLinking", defaultValue = "false")
+    boolean globalLinking;
+
+    @Parameter(property = "viewLineage", defaultValue = "true")
+    boolean viewLineage;
+
+    @Parameter(property = "nativePackages", defaultValue = "false")
+    boolean nativePackages;
+
+    @Parameter(property = "exportFile", required = false)
+    File exportFile;
+
+    @Parameter(property = "shardIndex", defaultValue = "0")
+    int shardIndex;
+
+    @Parameter(property = "shardCount", defaultValue = "1")
+    int shardCount;
+
+    @Parameter(property = "parseTimeLimit", defaultValue = "0")
+    long parseTimeLimit;
+
+    @Parameter(property = "parseReportFile", defaultValue = "${project.build.directory}/dbschema/parse-report.txt")
+    File parseReportFile;
+
+    @Parameter(property = "diagnosticsFile", defaultValue = "${project.build.directory}/dbschema/diagnostics.txt")
+    File diagnosticsFile;
+
+    @Parameter(property = "parseCostsFile", defaultValue = "${project.build.directory}/dbschema/parse-costs.txt")
+    File parseCostsFile;
+
+    @Parameter(property = "schemas", required = false)
+    SchemaConfig[] schemas;
+
+    @Parameter(property = "schemaThreads", defaultValue = "0")
+    int schemaThreads;
+
+    @Parameter(property = "force", defaultValue = "false")
+    boolean force;
 
-    private SiteGenerator siteGenerator;
+    @Parameter(defaultValue = "${project.build.directory}", readonly = true)
+    File buildDirectory;
+
+    @Parameter(defaultValue = "${plugin}", readonly = true)
+    PluginDescriptor pluginDescriptor;
+
+    DdlParser ddlParser;
+    SiteGenerator siteGenerator;
+    FilenameFilter scriptFilter;
+    NdjsonSchemaWriter schemaWriter;
+    SchemaHashes schemaHashes;
+    final List<DdlArchive> archives = Lists.newArrayList();
+
+    // Scripts parsed and rendered by this shard, null without sharding
+    Set<File> shardScripts;
+
+    // Threads of the time limited parses of all schemas, null for a single schema
+    ExecutorService parseExecutor;
 
     @Override
     public void parseFileCompelete(File file) {
+        schemaHashes.addSchema(ddlParser);
+
         logger.debug("Post processing {}...", file.getAbsolutePath());
+        generatePages();
+    }
 
+    @Override
+    public void parseFilesComplete(Collection<File> files) {
+        logger.debug("Post processing {} files...", files.size());
+        schemaHashes.addSchema(ddlParser);
+        generatePages();
+    }
+
+    void generatePages() {
         try {
             siteGenerator.generateTablesHtml(tablesDir);
             siteGenerator.generateViewsHtml(viewsDir);
+            for (DbObjectType objectType : DEFINITION_OBJECT_TYPES) {
+                siteGenerator.generateObjectDefinitionsHtml(getObjectsDir(objectType), objectType, tablesDir);
+            }
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
 
+        // Written per script, so the export never holds more than the model of one script
+        if (schemaWriter != null) {
+            try {
+                schemaWriter.writeSchema(ddlParser);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
         if (addTablesCommentsConfigs != null && addTablesCommentsConfigs.length > 0) {
             try {
                 for (AddTablesCommentsConfig config : addTablesCommentsConfigs) {
@@ -103,12 +223,94 @@ public class GenerateSiteMojo extends AbstractMojo implements DdlParser.ParseFil
                 throw new RuntimeException(e);
             }
         }
+
+        // The pages are reformatted and written per script. The lineage sections are filled after the last script,
+        // from the indexes built while parsing
+        try {
+            ReformatFilesConfig[] pageReformatConfigs = getReformatFilesConfigs(true);
+            if (pageReformatConfigs.length > 0) {
+                siteGenerator.reformatStagedFiles(pageReformatConfigs);
+            }
+            for (String dir : new String[]{tablesDir, viewsDir}) {
+                if (viewLineage) {
+                    siteGenerator.flushPagesKeepingDependencies(dir);
+                } else {
+                    siteGenerator.flushFiles(dir);
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
     }
 
-    @Override
-    public void execute() throws MojoFailureException {
-        DdlParser ddlParser = new DdlParserImpl();
+    // Native package pages are already in the final format, the pldoc output is neither copied nor reformatted
+    CopyFilesConfig[] getCopyFilesConfigs() {
+        if (copyFilesConfigs == null) {
+            return new CopyFilesConfig[0];
+        }
+        return Arrays.stream(copyFilesConfigs)
+                     .filter(config -> !nativePackages || !new File(pldocDir).equals(new File(config.getSrcDir())))
+                     .toArray(CopyFilesConfig[]::new);
+    }
+
+    ReformatFilesConfig[] getReformatFilesConfigs() {
+        if (reformatFilesConfigs == null) {
+            return new ReformatFilesConfig[0];
+        }
+        return Arrays.stream(reformatFilesConfigs)
+                     .filter(config -> !nativePackages || !new File(packagesDir).equals(new File(config.getInputDirectory())))
+                     .toArray(ReformatFilesConfig[]::new);
+    }
+
+    // Table and view pages are reformatted per script, the other folders once all their files are there. The pages
+    // of the selected dbSiteObjects are not reformatted
+    ReformatFilesConfig[] getReformatFilesConfigs(boolean pages) {
+        if (pages && dbSiteObjects != null && dbSiteObjects.length > 0) {
+            return new ReformatFilesConfig[0];
+        }
+        return Arrays.stream(getReformatFilesConfigs())
+                     .filter(config -> isPageDir(config.getInputDirectory()) == pages)
+                     .toArray(ReformatFilesConfig[]::new);
+    }
+
+    boolean isMainShard() {
+        return shardScripts == null || shardIndex == 0;
+    }
+
+    // Size balanced, largest scripts first, each to the least loaded shard. Ties are broken by the script name,
+    // so all nodes get the same partition whatever the checkout directory is
+    static List<List<File>> getShards(List<File> scripts, int shardCount) {
+        List<File> sortedScripts = new ArrayList<>(scripts);
+        sortedScripts.sort(Comparator.comparingLong(File::length).reversed()
+                                     .thenComparing(file -> file.getParentFile().getName() + "/" + file.getName()));
+
+        List<List<File>> shards = Lists.newArrayList();
+        long[] shardSizes = new long[shardCount];
+        for (int index = 0; index < shardCount; index++) {
+            shards.add(Lists.newArrayList());
+        }
+        for (File script : sortedScripts) {
+            int smallest = 0;
+            for (int index = 1; index < shardCount; index++) {
+                if (shardSizes[index] < shardSizes[smallest]) {
+                    smallest = index;
+                }
+            }
+            shards.get(smallest).add(script);
+            shardSizes[smallest] += script.length();
+        }
+        return shards;
+    }
+
+    // Everything a run collects is created here, so a mojo executed again starts from a clean state
+    void createGenerator() {
+        ddlParser = new DdlParserImpl();
         siteGenerator = new SiteGenerator(ddlParser);
+        scriptFilter = null;
+        schemaWriter = null;
+        schemaHashes = new SchemaHashes();
+        archives.clear();
+        shardScripts = null;
 
         if (filterTables != null) {
             ddlParser.setFilterTables(filterTables);
@@ -117,15 +319,203 @@ public class GenerateSiteMojo extends AbstractMojo implements DdlParser.ParseFil
             ddlParser.setFilterViews(filterViews);
         }
 
+        ddlParser.setStreamingThreshold(streamingThreshold);
+        ddlParser.setGlobalLinking(globalLinking);
+        ddlParser.setParseTimeLimit(parseTimeLimit);
+        if (parseExecutor != null) {
+            ddlParser.setParseExecutor(parseExecutor);
+        }
+        ddlParser.setParseCosts(loadParseCosts());
         ddlParser.setParseFileCompleteCallback(this);
+    }
+
+    // Without earlier parse times the scripts are scheduled by their size
+    private ParseCosts loadParseCosts() {
+        try {
+            return ParseCosts.load(parseCostsFile);
+        } catch (IOException e) {
+            logger.warn("Can not read the parse costs: {}", e.getLocalizedMessage());
+            return new ParseCosts();
+        }
+    }
+
+    void writeParseCosts() {
+        if (parseCostsFile == null) {
+            return;
+        }
+        try {
+            ddlParser.getParseCosts().save(parseCostsFile);
+        } catch (IOException e) {
+            logger.warn("Can not write the parse costs: {}", e.getLocalizedMessage());
+        }
+    }
+
+    FilenameFilter getScriptFilter() throws Exception {
+        if (dbSiteObjects == null || dbSiteObjects.length == 0) {
+            return (dir, name) -> name.endsWith(".sql");
+        }
+
+        final List<String> whitelistedScriptNames = Lists.newArrayList();
+        for (String[] parseObject : parseArgs(dbSiteObjects)) {
+            if (DbObjectType.TABLE.toString().equalsIgnoreCase(parseObject[1]) ||
+                    DbObjectType.VIEW.toString().equalsIgnoreCase(parseObject[1])) {
+                whitelistedScriptNames.add(parseObject[0]);
+            }
+        }
+        return (dir, name) -> name.endsWith(".sql") && whitelistedScriptNames.contains(name);
+    }
+
+    List<File> listScripts(FilenameFilter filenameFilter) throws MojoFailureException {
+        return listScripts(filenameFilter, false);
+    }
+
+    // Listed archives only know the names and sizes of their scripts, they can not be parsed
+    List<File> listScripts(FilenameFilter filenameFilter, boolean listOnly) throws MojoFailureException {
+        List<File> scripts = new ArrayList<File>();
+        for (String pathSuf : new String[]{ddlTablesPathSuf, ddlViewsPathSuf}) {
+            File[] files = new File(outputDirectory, pathSuf).listFiles(filenameFilter);
+            if (files != null) {
+                scripts.addAll(Arrays.asList(files));
+            } else if (scriptArchives == null || scriptArchives.length == 0) {
+                logger.warn("Directory {} with scripts not found", new File(outputDirectory, pathSuf));
+            }
+        }
+
+        // Archive entries are parsed straight from the archive, they are closed when the parsing is done
+        if (scriptArchives != null) {
+            for (ScriptArchiveConfig config : scriptArchives) {
+                if (config.getFile() == null || config.getFile().isEmpty()) {
+                    String error = "file param must not be empty in scriptArchives";
+                    logger.error(error);
+                    throw new MojoFailureException(error);
+                }
+                try {
+                    String[] includes = config.getIncludes() != null ? config.getIncludes() : DEFAULT_ARCHIVE_INCLUDES;
+                    DdlArchive archive = listOnly
+                            ? DdlArchive.list(new File(config.getFile()), includes, config.getExcludes(), filenameFilter)
+                            : DdlArchive.open(new File(config.getFile()), includes, config.getExcludes(), filenameFilter);
+                    archives.add(archive);
+
+                    scripts.addAll(archive.getScripts());
+                    logger.info("{} scripts selected from {}", archive.getScripts().size(), config.getFile());
+                } catch (IOException e) {
+                    logger.error(e.getLocalizedMessage());
+                    throw new MojoFailureException(e.getLocalizedMessage(), e);
+                }
+            }
+        }
+        return scripts;
+    }
+
+    void closeArchives() {
+        for (DdlArchive archive : archives) {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                logger.warn("Can not close {}: {}", archive.getFile(), e.getLocalizedMessage());
+            }
+        }
+        archives.clear();
+    }
+
+    void closeSchemaWriter() throws MojoFailureException {
+        if (schemaWriter == null) {
+            return;
+        }
+        try {
+            schemaWriter.close();
+            logger.info("{} objects exported to {}", schemaWriter.getObjectCount(), exportFile);
+        } catch (IOException e) {
+            logger.error(e.getLocalizedMessage());
+            throw new MojoFailureException(e.getLocalizedMessage(), e);
+        } finally {
+            schemaWriter = null;
+        }
+    }
+
+    String getObjectsDir(DbObjectType objectType) {
+        return sitePath + "/" + objectType.name().toLowerCase();
+    }
+
+    String getErdDir() {
+        return erdDir != null ? erdDir : sitePath + "/erd";
+    }
+
+    boolean isPageDir(String dir) {
+        return new File(tablesDir).equals(new File(dir)) || new File(viewsDir).equals(new File(dir));
+    }
+
+    // Files nothing rewrites after they are rendered are written at once, the pages are flushed per script
+    List<String> getRewrittenDirs() {
+        List<String> dirs = Lists.newArrayList(tablesDir, viewsDir);
+        if (addTablesCommentsConfigs != null) {
+            for (AddTablesCommentsConfig config : addTablesCommentsConfigs) {
+                dirs.add(config.getTablesDir());
+            }
+        }
+        for (ReformatFilesConfig config : getReformatFilesConfigs()) {
+            dirs.add(config.getInputDirectory());
+        }
+        return dirs;
+    }
+
+    // Wrong values fail the build before anything is read, with the name of the parameter
+    void checkParameters() throws MojoExecutionException {
+        if (maxErdClusterSize <= 0) {
+            String error = String.format("maxErdClusterSize must be greater than 0, got %d", maxErdClusterSize);
+            logger.error(error);
+            throw new MojoExecutionException(error);
+        }
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        checkParameters();
+        if (schemas != null && schemas.length > 0) {
+            executeSchemas();
+            return;
+        }
+
+        // Checked before the template is extracted and the parser classes are loaded
+        File fingerprintFile = getFingerprintFile();
+        String fingerprint;
+        try {
+            fingerprint = getFingerprint();
+            if (isUpToDate(fingerprintFile, fingerprint)) {
+                logger.info("Site {} is up to date, nothing to generate", sitePath);
+                return;
+            }
+        } catch (IOException e) {
+            logger.error(e.getLocalizedMessage());
+            throw new MojoFailureException(e.getLocalizedMessage(), e);
+        }
+
+        long startTime = System.nanoTime();
+        createGenerator();
+        try {
+            generateSite(fingerprintFile, fingerprint, startTime);
+        } finally {
+            // A failed run reports the problems found until then as well
+            writeDiagnostics();
+        }
+    }
+
+    private void generateSite(File fingerprintFile, String fingerprint, long startTime) throws MojoFailureException {
 // test
+        siteGenerator.setRewrittenDirs(getRewrittenDirs());
+
+        // Template files of the other shards would overwrite the lists of the main shard in mergeSite
         try {
-            siteGenerator.copySiteTemplate(sitePath);
+            if (shardCount <= 1 || shardIndex == 0) {
+                siteGenerator.copySiteTemplate(sitePath);
 
-            if (projectName != null && !projectName.isEmpty()) {
-                siteGenerator.addProjectName(sitePath, projectName);
+                if (projectName != null && !projectName.isEmpty()) {
+                    siteGenerator.addProjectName(sitePath, projectName);
+                } else {
+                    siteGenerator.addProjectName(sitePath, "Program Scope");
+                }
             } else {
-                siteGenerator.addProjectName(sitePath, "Program Scope");
+                siteGenerator.loadSiteTemplateAssets(sitePath);
             }
         } catch (IOException e) {
             logger.error(e.getLocalizedMessage());
@@ -135,36 +525,35 @@ public class GenerateSiteMojo extends AbstractMojo implements DdlParser.ParseFil
         // Generating parse filelist
         FilenameFilter filenameFilter;
         List<File> filesToParse = new ArrayList<File>();
+        FilenameFilter packageScriptFilter = (dir, name) -> name.endsWith(".sql");
         boolean checkCopyConfigFiles = false;
 
         if (dbSiteObjects != null && dbSiteObjects.length != 0) {
-            final List<String> whitelistedScriptNames = Lists.newArrayList();
-
-            filenameFilter = (dir, name) -> name.endsWith(".sql") && whitelistedScriptNames.contains(name);
-
             String[][] parseObjects;
             try {
                 parseObjects = parseArgs(dbSiteObjects);
+                filenameFilter = getScriptFilter();
             } catch (Exception e) {
                 logger.error(e.getLocalizedMessage());
                 throw new MojoFailureException(e.getLocalizedMessage(), e);
             }
 
             List<String> packagesList = new ArrayList<String>();
-            List<String> tablesList = new ArrayList<String>();
-            List<String> viewsList = new ArrayList<String>();
             for (String[] parseObject : parseObjects) {
                 if (DbObjectType.PACKAGE_SPEC.toString().equalsIgnoreCase(parseObject[1])) {
                     packagesList.add(parseObject[0] + ".*");
                 }
-                if (DbObjectType.TABLE.toString().equalsIgnoreCase(parseObject[1])) {
-                    tablesList.add(parseObject[0]);
-                }
-                if (DbObjectType.VIEW.toString().equalsIgnoreCase(parseObject[1])) {
-                    viewsList.add(parseObject[0]);
-                }
             }
-            if (packagesList.size() > 0) {
+            if (nativePackages) {
+                final List<String> packageNames = Lists.newArrayList();
+                for (String[] parseObject : parseObjects) {
+                    if (DbObjectType.PACKAGE_SPEC.toString().equalsIgnoreCase(parseObject[1])) {
+                        packageNames.add(parseObject[0]);
+                    }
+                }
+                packageScriptFilter = (dir, name) -> name.endsWith(".sql") &&
+                        packageNames.contains(FilenameUtils.getBaseName(name).toUpperCase());
+            } else if (packagesList.size() > 0) {
                 String[] includes = packagesList.toArray(new String[0]);
 
                 CopyFilesConfig copyFilesConfig = new CopyFilesConfig();
@@ -182,8 +571,9 @@ public class GenerateSiteMojo extends AbstractMojo implements DdlParser.ParseFil
                     List<ReformatFilesConfig> packageReformatConfigsList = new ArrayList<ReformatFilesConfig>();
                     for (ReformatFilesConfig reformatConfig : reformatFilesConfigs) {
                         if (new File(packagesDir).equals(new File(reformatConfig.getInputDirectory()))) {
-                            reformatConfig.setIncludes(includes);
-                            packageReformatConfigsList.add(reformatConfig);
+                            ReformatFilesConfig packageReformatConfig = reformatConfig.copy();
+                            packageReformatConfig.setIncludes(includes);
+                            packageReformatConfigsList.add(packageReformatConfig);
                         }
                     }
 
@@ -199,28 +589,117 @@ public class GenerateSiteMojo extends AbstractMojo implements DdlParser.ParseFil
                 }
             }
 
-            whitelistedScriptNames.addAll(tablesList);
-            whitelistedScriptNames.addAll(viewsList);
-
             checkCopyConfigFiles = true;
         } else {
             filenameFilter = (dir, name) -> name.endsWith(".sql");
         }
 
-        filesToParse.addAll(Arrays.asList(new File(outputDirectory, ddlTablesPathSuf).listFiles(filenameFilter)));
-        filesToParse.addAll(Arrays.asList(new File(outputDirectory, ddlViewsPathSuf).listFiles(filenameFilter)));
+        scriptFilter = filenameFilter;
+        filesToParse.addAll(listScripts(filenameFilter));
+
+        if (shardCount > 1) {
+            if (shardIndex < 0 || shardIndex >= shardCount) {
+                String error = String.format("shardIndex must be from 0 to %d", shardCount - 1);
+                logger.error(error);
+                throw new MojoFailureException(error);
+            }
+            if (globalLinking) {
+                String error = "globalLinking can not be used with shardCount > 1";
+                logger.error(error);
+                throw new MojoFailureException(error);
+            }
+
+            // Every shard parses only its own scripts. The parts that need all of them, the lineage sections, the
+            // ER diagrams, the lists and the hashes, are built by mergeSite from the shard indexes. Views over
+            // objects of the other shards take the columns of these objects from their scripts
+            List<File> shard = getShards(filesToParse, shardCount).get(shardIndex);
+            logger.info("Shard {} of {} parses {} of {} scripts", shardIndex, shardCount, shard.size(),
+                    filesToParse.size());
+            shardScripts = Sets.newHashSet(shard);
+            List<File> otherScripts = Lists.newArrayList(filesToParse);
+            otherScripts.removeAll(shardScripts);
+            ddlParser.setReferenceScripts(otherScripts);
+            filesToParse.retainAll(shardScripts);
+        }
 
-        // Parsing
+        // Parsing. A failure to close the export does not hide the failure of the parsing
+        MojoFailureException failure = null;
         try {
+            if (exportFile != null) {
+                schemaWriter = new NdjsonSchemaWriter(exportFile);
+            }
             ddlParser.doParse(filesToParse);
         } catch (Exception e) {
+            logger.error(e.getLocalizedMessage());
+            failure = new MojoFailureException(e.getLocalizedMessage(), e);
+        } finally {
+            closeArchives();
+            try {
+                closeSchemaWriter();
+            } catch (MojoFailureException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        writeParseReport();
+        writeSchemaHashes();
+
+        try {
+            // A shard site only has the pages of the shard
+            for (DbObjectType objectType : DEFINITION_OBJECT_TYPES) {
+                siteGenerator.deleteDroppedObjectPages(getObjectsDir(objectType), objectType);
+            }
+
+            if (shardScripts != null) {
+                ddlParser.saveShardIndex(new File(sitePath, SiteGenerator.SHARD_INDEX_FILE));
+            } else {
+                if (viewLineage) {
+                    siteGenerator.addDependencies(tablesDir, viewsDir, null, true);
+                }
+                siteGenerator.generateErd(getErdDir(), tablesDir, maxErdClusterSize);
+                for (DbObjectType objectType : DEFINITION_OBJECT_TYPES) {
+                    siteGenerator.generateObjectsList(getObjectsDir(objectType));
+                }
+            }
+        } catch (IOException e) {
             logger.error(e.getLocalizedMessage());
             throw new MojoFailureException(e.getLocalizedMessage(), e);
         }
 
+        if (nativePackages && isMainShard()) {
+            File[] packageScripts = new File(outputDirectory, ddlPackagesPathSuf).listFiles(packageScriptFilter);
+            if (packageScripts == null) {
+                logger.warn("Directory {} with package scripts not found", new File(outputDirectory, ddlPackagesPathSuf));
+            } else {
+                try {
+                    siteGenerator.generatePackagesHtml(packagesDir, ddlParser.parsePackageSpecs(Arrays.asList(packageScripts)));
+                } catch (IOException e) {
+                    logger.error(e.getLocalizedMessage());
+                    throw new MojoFailureException(e.getLocalizedMessage(), e);
+                }
+            }
+        }
+
         //
         try {
-            if (checkCopyConfigFiles) {
+            if (shardScripts != null) {
+                // Only the pages of this shard are staged, the other shards reformat their own pages
+                CopyFilesConfig[] copyConfigs = getCopyFilesConfigs();
+                if (isMainShard() && !checkCopyConfigFiles && copyConfigs.length > 0) {
+                    siteGenerator.copyFiles(copyConfigs);
+                }
+
+                ReformatFilesConfig[] reformatConfigs = getReformatFilesConfigs(false);
+                if (reformatConfigs.length > 0) {
+                    siteGenerator.reformatStagedFiles(reformatConfigs);
+                }
+            } else if (checkCopyConfigFiles) {
                 if (copyFilesConfigs != null && copyFilesConfigs.length > 0) {
                     List<CopyFilesConfig> newConfigsList = new ArrayList<CopyFilesConfig>();
 
@@ -241,12 +720,14 @@ public class GenerateSiteMojo extends AbstractMojo implements DdlParser.ParseFil
                     }
                 }
             } else {
-                if (copyFilesConfigs != null && copyFilesConfigs.length > 0) {
-                    siteGenerator.copyFiles(copyFilesConfigs);
+                CopyFilesConfig[] copyConfigs = getCopyFilesConfigs();
+                if (copyConfigs.length > 0) {
+                    siteGenerator.copyFiles(copyConfigs);
                 }
 
-                if (reformatFilesConfigs != null && reformatFilesConfigs.length > 0) {
-                    siteGenerator.reformatFiles(reformatFilesConfigs);
+                ReformatFilesConfig[] reformatConfigs = getReformatFilesConfigs(false);
+                if (reformatConfigs.length > 0) {
+                    siteGenerator.reformatFiles(reformatConfigs);
                 }
             }
         } catch (Exception e) {
@@ -255,7 +736,8 @@ public class GenerateSiteMojo extends AbstractMojo implements DdlParser.ParseFil
         }
         //
 
-        if (addTableOfContentsConfigs != null && addTableOfContentsConfigs.length > 0) {
+        // The table of contents of a sharded site is built by the mergeSite goal
+        if (shardScripts == null && addTableOfContentsConfigs != null && addTableOfContentsConfigs.length > 0) {
             try {
                 logger.info("Generating table of contents...");
                 siteGenerator.generateTableOfContents(addTableOfContentsConfigs);
@@ -265,41 +747,434 @@ public class GenerateSiteMojo extends AbstractMojo implements DdlParser.ParseFil
             }
         }
 
-        if (deleteFilesConfigs != null && deleteFilesConfigs.length > 0) {
+        try {
+            siteGenerator.flushFiles();
+        } catch (IOException e) {
+            logger.error(e.getLocalizedMessage());
+            throw new MojoFailureException(e.getLocalizedMessage(), e);
+        }
+
+        if (shardScripts == null && deleteFilesConfigs != null && deleteFilesConfigs.length > 0) {
             try {
                 siteGenerator.deleteFiles(deleteFilesConfigs);
             } catch (Exception e) {
                 logger.info(e.getLocalizedMessage());
             }
         }
+        // The skipped scripts are parsed again by the next run
+        try {
+            if (ddlParser.getParseTimeouts().isEmpty()) {
+                SiteFingerprint.save(fingerprintFile, fingerprint);
+            }
+        } catch (IOException e) {
+            logger.warn("Can not save site fingerprint: {}", e.getLocalizedMessage());
+        }
+        if (isMainShard()) {
+            ddlParser.getParseCosts().recordRun(System.nanoTime() - startTime,
+                    filesToParse.stream().mapToLong(File::length).sum());
+            writeParseCosts();
+        }
         logger.info("done");
     }
 
+    File getFingerprintFile() {
+        return new File(buildDirectory, "dbschema/generateSite-" +
+                Integer.toHexString(new File(sitePath).getAbsolutePath().hashCode()) + ".fingerprint");
+    }
+
+    boolean isUpToDate(File fingerprintFile, String fingerprint) throws IOException {
+        return !force && new File(sitePath).isDirectory() && (exportFile == null || exportFile.isFile()) &&
+                SiteFingerprint.isUpToDate(fingerprintFile, fingerprint);
+    }
+
+    // Site folders of the schemas by schema name
+    Map<String, String> getSchemaSiteDirs() throws MojoFailureException {
+        if (shardCount > 1) {
+            String error = "schemas can not be used with shardCount > 1";
+            logger.error(error);
+            throw new MojoFailureException(error);
+        }
+
+        Map<String, String> schemaSiteDirs = Maps.newLinkedHashMap();
+        for (SchemaConfig schema : schemas) {
+            if (schema.getName() == null || schema.getName().isEmpty() || schema.getOutputDirectory() == null) {
+                String error = "name and outputDirectory params must not be empty in schemas";
+                logger.error(error);
+                throw new MojoFailureException(error);
+            }
+            String siteDir = schema.getSiteDir() != null && !schema.getSiteDir().isEmpty() ? schema.getSiteDir() : schema.getName();
+            if (schemaSiteDirs.containsValue(siteDir)) {
+                String error = String.format("Schemas can not share the site folder %s", siteDir);
+                logger.error(error);
+                throw new MojoFailureException(error);
+            }
+            schemaSiteDirs.put(schema.getName(), siteDir);
+        }
+        return schemaSiteDirs;
+    }
+
+    // Every schema is generated by its own copy of this mojo into a subfolder of the site. The copies run on one
+    // pool, the parallel parsing and rendering inside them runs on the same pool
+    void executeSchemas() throws MojoFailureException {
+        Map<String, String> schemaSiteDirs = getSchemaSiteDirs();
+        List<GenerateSiteMojo> schemaMojos = Lists.newArrayList();
+        for (SchemaConfig schema : schemas) {
+            schemaMojos.add(forSchema(schema, schemaSiteDirs.get(schema.getName())));
+        }
+
+        // The time limited parses of every schema share one bounded set of parser threads sized for the pool
+        ForkJoinPool pool = new ForkJoinPool(schemaThreads > 0 ? schemaThreads : Runtime.getRuntime().availableProcessors());
+        ExecutorService schemaParseExecutor = DdlParserImpl.newParseExecutor(pool.getParallelism());
+        for (GenerateSiteMojo schemaMojo : schemaMojos) {
+            schemaMojo.parseExecutor = schemaParseExecutor;
+        }
+        List<String> failedSchemas = Lists.newArrayList();
+        try {
+            List<ForkJoinTask<?>> tasks = Lists.newArrayList();
+            for (GenerateSiteMojo schemaMojo : schemaMojos) {
+                tasks.add(pool.submit(() -> {
+                    schemaMojo.execute();
+                    return null;
+                }));
+            }
+            for (int index = 0; index < tasks.size(); index++) {
+                try {
+                    tasks.get(index).get();
+                } catch (ExecutionException e) {
+                    logger.error("Schema {} failed: {}", schemas[index].getName(), e.getCause().getLocalizedMessage());
+                    failedSchemas.add(schemas[index].getName());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoFailureException("Interrupted", e);
+        } finally {
+            pool.shutdown();
+            schemaParseExecutor.shutdown();
+        }
+
+        try {
+            SiteGenerator indexGenerator = new SiteGenerator(null);
+            indexGenerator.generateSchemasIndex(sitePath,
+                    projectName != null && !projectName.isEmpty() ? projectName : "Program Scope", schemaSiteDirs);
+            indexGenerator.flushFiles();
+        } catch (IOException e) {
+            logger.error(e.getLocalizedMessage());
+            throw new MojoFailureException(e.getLocalizedMessage(), e);
+        }
+
+        if (!failedSchemas.isEmpty()) {
+            throw new MojoFailureException("Generation failed for schemas " + failedSchemas);
+        }
+    }
+
+    // Every parameter goes through here, so a new one reaches the schemas without touching forSchema
+    void copyParameters(GenerateSiteMojo mojo) {
+        mojo.sitePath = sitePath;
+        mojo.tablesDir = tablesDir;
+        mojo.viewsDir = viewsDir;
+        mojo.pldocDir = pldocDir;
+        mojo.packagesDir = packagesDir;
+        mojo.projectName = projectName;
+        mojo.reformatFilesConfigs = reformatFilesConfigs;
+        mojo.copyFilesConfigs = copyFilesConfigs;
+        mojo.deleteFilesConfigs = deleteFilesConfigs;
+        mojo.addTablesCommentsConfigs = addTablesCommentsConfigs;
+        mojo.addTableOfContentsConfigs = addTableOfContentsConfigs;
+        mojo.dbSiteObjects = dbSiteObjects;
+        mojo.outputDirectory = outputDirectory;
+        mojo.scriptArchives = scriptArchives;
+        mojo.filterTables = filterTables;
+        mojo.filterViews = filterViews;
+        mojo.erdDir = erdDir;
+        mojo.maxErdClusterSize = maxErdClusterSize;
+        mojo.streamingThreshold = streamingThreshold;
+        mojo.globalLinking = globalLinking;
+        mojo.viewLineage = viewLineage;
+        mojo.nativePackages = nativePackages;
+        mojo.exportFile = exportFile;
+        mojo.shardIndex = shardIndex;
+        mojo.shardCount = shardCount;
+        mojo.parseTimeLimit = parseTimeLimit;
+        mojo.parseReportFile = parseReportFile;
+        mojo.diagnosticsFile = diagnosticsFile;
+        mojo.parseCostsFile = parseCostsFile;
+        mojo.schemas = schemas;
+        mojo.schemaThreads = schemaThreads;
+        mojo.force = force;
+        mojo.buildDirectory = buildDirectory;
+        mojo.pluginDescriptor = pluginDescriptor;
+    }
+
+    GenerateSiteMojo forSchema(SchemaConfig schema, String siteDir) {
+        String schemaSitePath = sitePath + "/" + siteDir;
+
+        GenerateSiteMojo mojo = newSchemaMojo();
+        copyParameters(mojo);
+        mojo.schemas = null;
+        mojo.sitePath = schemaSitePath;
+        mojo.tablesDir = rebase(tablesDir, schemaSitePath);
+        mojo.viewsDir = rebase(viewsDir, schemaSitePath);
+        mojo.pldocDir = schema.getPldocDir() != null ? schema.getPldocDir() : rebase(pldocDir, schemaSitePath);
+        mojo.packagesDir = rebase(packagesDir, schemaSitePath);
+        mojo.erdDir = rebase(erdDir, schemaSitePath);
+        mojo.projectName = schema.getProjectName() != null ? schema.getProjectName() : schema.getName();
+        mojo.outputDirectory = schema.getOutputDirectory();
+        mojo.scriptArchives = schema.getScriptArchives() != null ? schema.getScriptArchives() : scriptArchives;
+        mojo.filterTables = schema.getFilterTables() != null ? schema.getFilterTables() : filterTables;
+        mojo.filterViews = schema.getFilterViews() != null ? schema.getFilterViews() : filterViews;
+        mojo.shardIndex = 0;
+        mojo.shardCount = 1;
+
+        if (exportFile != null) {
+            mojo.exportFile = new File(exportFile.getParentFile(), FilenameUtils.getBaseName(exportFile.getName()) + "-"
+                    + siteDir + "." + FilenameUtils.getExtension(exportFile.getName()));
+        }
+        if (diagnosticsFile != null) {
+            mojo.diagnosticsFile = new File(diagnosticsFile.getParentFile(), FilenameUtils.getBaseName(diagnosticsFile.getName())
+                    + "-" + siteDir + "." + FilenameUtils.getExtension(diagnosticsFile.getName()));
+        }
+        if (parseCostsFile != null) {
+            mojo.parseCostsFile = new File(parseCostsFile.getParentFile(), FilenameUtils.getBaseName(parseCostsFile.getName())
+                    + "-" + siteDir + "." + FilenameUtils.getExtension(parseCostsFile.getName()));
+        }
+        if (parseReportFile != null) {
+            mojo.parseReportFile = new File(parseReportFile.getParentFile(), FilenameUtils.getBaseName(parseReportFile.getName())
+                    + "-" + siteDir + "." + FilenameUtils.getExtension(parseReportFile.getName()));
+        }
+
+        // The file configs point into the site, they are moved into the subfolder of the schema
+        if (reformatFilesConfigs != null) {
+            mojo.reformatFilesConfigs = Arrays.stream(reformatFilesConfigs).map(config -> {
+                ReformatFilesConfig schemaConfig = config.copy();
+                schemaConfig.setInputDirectory(rebase(config.getInputDirectory(), schemaSitePath));
+                return schemaConfig;
+            }).toArray(ReformatFilesConfig[]::new);
+        }
+        if (copyFilesConfigs != null) {
+            mojo.copyFilesConfigs = Arrays.stream(copyFilesConfigs).map(config -> {
+                CopyFilesConfig schemaConfig = new CopyFilesConfig();
+                schemaConfig.setSrcDir(new File(config.getSrcDir()).equals(new File(pldocDir)) ? mojo.pldocDir
+                        : rebase(config.getSrcDir(), schemaSitePath));
+                schemaConfig.setDestDir(rebase(config.getDestDir(), schemaSitePath));
+                schemaConfig.setIncludes(config.getIncludes());
+                return schemaConfig;
+            }).toArray(CopyFilesConfig[]::new);
+        }
+        if (deleteFilesConfigs != null) {
+            mojo.deleteFilesConfigs = Arrays.stream(deleteFilesConfigs).map(config -> {
+                DeleteFilesConfig schemaConfig = new DeleteFilesConfig();
+                schemaConfig.setInputDirectory(rebase(config.getInputDirectory(), schemaSitePath));
+                schemaConfig.setIncludes(config.getIncludes());
+                return schemaConfig;
+            }).toArray(DeleteFilesConfig[]::new);
+        }
+        if (addTablesCommentsConfigs != null) {
+            mojo.addTablesCommentsConfigs = Arrays.stream(addTablesCommentsConfigs).map(config -> {
+                AddTablesCommentsConfig schemaConfig = new AddTablesCommentsConfig();
+                schemaConfig.setLineNum(config.getLineNum());
+                schemaConfig.setTablesDir(rebase(config.getTablesDir(), schemaSitePath));
+                schemaConfig.setTableType(config.getTableType());
+                return schemaConfig;
+            }).toArray(AddTablesCommentsConfig[]::new);
+        }
+        if (addTableOfContentsConfigs != null) {
+            mojo.addTableOfContentsConfigs = Arrays.stream(addTableOfContentsConfigs).map(config -> {
+                AddTableOfContentsConfig schemaConfig = new AddTableOfContentsConfig();
+                schemaConfig.setLineNum(config.getLineNum());
+                schemaConfig.setInputDir(rebase(config.getInputDir(), schemaSitePath));
+                return schemaConfig;
+            }).toArray(AddTableOfContentsConfig[]::new);
+        }
+        return mojo;
+    }
+
+    GenerateSiteMojo newSchemaMojo() {
+        return new GenerateSiteMojo();
+    }
+
+    // Paths under the site are moved under the site of the schema, other paths are kept
+    private String rebase(String path, String schemaSitePath) {
+        if (path == null) {
+            return null;
+        }
+        Path sitePathRoot = new File(sitePath).toPath().toAbsolutePath().normalize();
+        Path filePath = new File(path).toPath().toAbsolutePath().normalize();
+        if (!filePath.startsWith(sitePathRoot)) {
+            return path;
+        }
+        return new File(schemaSitePath, sitePathRoot.relativize(filePath).toString()).getPath();
+    }
+
+    // Hashes of a partly parsed schema would report the skipped objects as removed
+    void writeSchemaHashes() {
+        File hashesDir = new File(sitePath, SchemaHashes.HASHES_DIR);
+        try {
+            if (ddlParser.getParseTimeouts().isEmpty()) {
+                schemaHashes.addKeys(ddlParser);
+                schemaHashes.write(hashesDir);
+            } else {
+                FileUtils.deleteDirectory(hashesDir);
+                logger.warn("Schema hashes are not written, some scripts were skipped by the parse time limit");
+            }
+        } catch (IOException e) {
+            logger.warn("Can not write schema hashes: {}", e.getLocalizedMessage());
+        }
+    }
+
+    // One summary line per kind of problem, the problems themselves go to the diagnostics file
+    void writeDiagnostics() {
+        ParseDiagnostics diagnostics = ddlParser.getDiagnostics();
+        if (diagnostics.getCount() == 0) {
+            FileUtils.deleteQuietly(diagnosticsFile);
+            return;
+        }
+
+        StringBuilder report = new StringBuilder();
+        for (ParseDiagnostics.Kind kind : ParseDiagnostics.Kind.values()) {
+            long count = diagnostics.getCount(kind);
+            if (count == 0) {
+                continue;
+            }
+
+            List<Map.Entry<File, Long>> fileCounts = diagnostics.getFileCounts(kind);
+            if (fileCounts.isEmpty()) {
+                logger.warn("{} {}", count, kind.getDescription());
+            } else {
+                logger.warn("{} {} in {} scripts, most in {} ({})", count, kind.getDescription(), fileCounts.size(),
+                        fileCounts.get(0).getKey().getAbsolutePath(), fileCounts.get(0).getValue());
+            }
+
+            report.append(kind.name()).append(": ").append(count).append(' ').append(kind.getDescription()).append('\n');
+            Map<File, List<ParseDiagnostics.Diagnostic>> details = diagnostics.getDetails(kind);
+            for (Map.Entry<File, Long> fileCount : fileCounts) {
+                report.append("  ").append(fileCount.getKey().getAbsolutePath())
+                      .append(" (").append(fileCount.getValue()).append(")\n");
+                appendDiagnostics(report, details.get(fileCount.getKey()));
+            }
+            appendDiagnostics(report, details.get(null));
+            report.append('\n');
+        }
+        if (diagnostics.getDroppedCount() > 0) {
+            report.append(diagnostics.getDroppedCount()).append(" more problems are counted only\n");
+        }
+        long count = diagnostics.getCount();
+        diagnostics.clear();
+        if (diagnosticsFile == null) {
+            return;
+        }
+
+        try {
+            FileUtils.writeStringToFile(diagnosticsFile, report.toString(), StandardCharsets.UTF_8);
+            logger.warn("{} problems found while parsing, see {}", count, diagnosticsFile);
+        } catch (IOException e) {
+            logger.warn("Can not write the diagnostics: {}", e.getLocalizedMessage());
+        }
+    }
+
+    private static void appendDiagnostics(StringBuilder report, List<ParseDiagnostics.Diagnostic> details) {
+        if (details == null) {
+            return;
+        }
+        for (ParseDiagnostics.Diagnostic diagnostic : details) {
+            report.append("    ");
+            if (diagnostic.getLine() > 0) {
+                report.append("line ").append(diagnostic.getLine()).append(", column ").append(diagnostic.getColumn()).append(": ");
+            }
+            report.append(diagnostic.getMessage()).append('\n');
+        }
+    }
+
+    void writeParseReport() {
+        List<DdlParser.ParseTimeoutInfo> timeouts = ddlParser.getParseTimeouts();
+        if (timeouts.isEmpty()) {
+            FileUtils.deleteQuietly(parseReportFile);
+            return;
+        }
+
+        StringBuilder report = new StringBuilder();
+        for (DdlParser.ParseTimeoutInfo timeout : timeouts) {
+            report.append(timeout.getFile().getAbsolutePath())
+                  .append(", ").append(timeout.getFileSize()).append(" bytes");
+            // Scripts that found no parser thread, all of them being stuck, were not started
+            if (timeout.getStatementLine() == 0) {
+                report.append(", not parsed, no parser thread was left\n\n");
+                continue;
+            }
+            report.append(", stopped after ").append(timeout.getElapsedTime()).append(" ms")
+                  .append(" at the statement on line ").append(timeout.getStatementLine()).append(":\n")
+                  .append(timeout.getStatement() != null ? timeout.getStatement().trim() : "").append("\n\n");
+        }
+
+        try {
+            FileUtils.writeStringToFile(parseReportFile, report.toString(), StandardCharsets.UTF_8);
+            logger.warn("{} scripts exceeded the parse time limit or found no parser thread and were skipped, see {}",
+                    timeouts.size(), parseReportFile);
+        } catch (IOException e) {
+            logger.warn("Can not write the parse report: {}", e.getLocalizedMessage());
+        }
+    }
+
+    String getFingerprint() throws IOException {
+        SiteFingerprint siteFingerprint = new SiteFingerprint();
+
+        siteFingerprint.putValue(pluginDescriptor != null ? pluginDescriptor.getVersion() : null);
+        try {
+            siteFingerprint.putFile(new File(getClass().getProtectionDomain().getCodeSource().getLocation().toURI()));
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+
+        siteFingerprint.putValue(new Object[]{sitePath, tablesDir, viewsDir, pldocDir, packagesDir, projectName,
+                reformatFilesConfigs, copyFilesConfigs, deleteFilesConfigs, addTablesCommentsConfigs,
+                addTableOfContentsConfigs, dbSiteObjects, outputDirectory, filterTables, filterViews, erdDir,
+                maxErdClusterSize, streamingThreshold, globalLinking, viewLineage, nativePackages, exportFile, shardIndex, shardCount,
+                parseTimeLimit, scriptArchives});
+
+        siteFingerprint.putDirectory(new File(outputDirectory, ddlTablesPathSuf));
+        siteFingerprint.putDirectory(new File(outputDirectory, ddlViewsPathSuf));
+        siteFingerprint.putDirectory(new File(outputDirectory, ddlPackagesPathSuf));
+        if (scriptArchives != null) {
+            for (ScriptArchiveConfig config : scriptArchives) {
+                siteFingerprint.putFile(new File(String.valueOf(config.getFile())));
+            }
+        }
+        siteFingerprint.putDirectory(new File(pldocDir));
+        if (copyFilesConfigs != null) {
+            for (CopyFilesConfig config : copyFilesConfigs) {
+                siteFingerprint.putDirectory(new File(config.getSrcDir()));
+            }
+        }
+
+        return siteFingerprint.getHash();
+    }
+
     private String[][] parseArgs(String[] dbObjects) throws Exception {
         String[][] parsingObjects = new String[dbObjects.length][2];
         Pattern pattern = Pattern.compile("\\W");
         for (int i = 0; i < dbObjects.length; i++) {
-            dbObjects[i] = dbObjects[i].toUpperCase();
-            Matcher matcher = pattern.matcher(dbObjects[i]);
+            // The parameter is shared with the copies of this mojo for the schemas, it stays as configured
+            String dbObject = dbObjects[i].toUpperCase();
+            Matcher matcher = pattern.matcher(dbObject);
             if (!matcher.find()) {
                 String error = String.format("Can not find separator in this arg: %s" +
-                        " Separator can be symbol by regexp: '\\W'", dbObjects[i]);
+                        " Separator can be symbol by regexp: '\\W'", dbObject);
                 logger.error(error);
                 throw new Exception(error);
             }
             String separator = matcher.group(0);
-            int sepIndex = dbObjects[i].indexOf(separator);
+            int sepIndex = dbObject.indexOf(separator);
 
-            String name = dbObjects[i].substring(0, sepIndex);
+            String name = dbObject.substring(0, sepIndex);
             if (name.isEmpty()) {
-                String error = String.format("Incorrect arg: %s. Name of db object can not be empty", dbObjects[i]);
+                String error = String.format("Incorrect arg: %s. Name of db object can not be empty", dbObject);
                 logger.error(error);
                 throw new Exception(error);
             }
 
-            String type = dbObjects[i].substring(sepIndex + 1);
+            String type = dbObject.substring(sepIndex + 1);
             if (type.isEmpty()) {
-                String error = String.format("Incorrect db type in this arg: %s", dbObjects[i]);
+                String error = String.format("Incorrect db type in this arg: %s", dbObject);
                 logger.error(error);
                 throw new Exception(error);
             }
@@ -0,0 +1,95 @@
+package com.onevizion.maven.plugin.dbschema.mojo;
+
+import com.onevizion.maven.plugin.dbschema.SchemaHashes;
+import com.onevizion.maven.plugin.dbschema.SiteGenerator;
+import com.onevizion.maven.plugin.dbschema.vo.DbObjectType;
+import com.onevizion.maven.plugin.dbschema.vo.ReformatFilesConfig;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+
+@Mojo(name = "mergeSite", threadSafe = true)
+public class MergeSiteMojo extends GenerateSiteMojo {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Parameter(property = "shardSitePaths", required = true)
+    String[] shardSitePaths;
+
+    // Shard sites have the layout of the merged site. Every shard parsed only its own scripts, so everything that
+    // needs all of them is built here once, from the merged files and the keys and lineage of the shard indexes:
+    // the lineage sections, the ER diagrams, the lists the search box filters and the keys in the schema hashes
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        checkParameters();
+        createGenerator();
+
+        try {
+            siteGenerator.copySiteTemplate(sitePath);
+            siteGenerator.addProjectName(sitePath, projectName != null && !projectName.isEmpty() ? projectName : "Program Scope");
+
+            boolean hashesComplete = true;
+            for (String shardSitePath : shardSitePaths) {
+                siteGenerator.mergeSite(shardSitePath, sitePath);
+
+                File shardIndexFile = new File(shardSitePath, SiteGenerator.SHARD_INDEX_FILE);
+                if (shardIndexFile.isFile()) {
+                    ddlParser.loadShardIndex(shardIndexFile);
+                } else {
+                    logger.warn("{} not found, the keys and the lineage of {} are missing", shardIndexFile, shardSitePath);
+                }
+                hashesComplete &= schemaHashes.addHashes(new File(shardSitePath, SchemaHashes.HASHES_DIR));
+            }
+
+            if (viewLineage) {
+                siteGenerator.addDependencies(tablesDir, viewsDir, null, true);
+            }
+            siteGenerator.generateErd(getErdDir(), tablesDir, maxErdClusterSize);
+
+            // The shards already reformatted their table and view pages
+            ReformatFilesConfig[] reformatConfigs = getReformatFilesConfigs(false);
+            if (reformatConfigs.length > 0) {
+                siteGenerator.reformatStagedFiles(reformatConfigs);
+            }
+
+            for (DbObjectType objectType : DEFINITION_OBJECT_TYPES) {
+                siteGenerator.deleteUnmergedObjectPages(getObjectsDir(objectType), sitePath, shardSitePaths);
+                siteGenerator.generateObjectsList(getObjectsDir(objectType));
+            }
+            if (addTableOfContentsConfigs != null && addTableOfContentsConfigs.length > 0) {
+                logger.info("Generating table of contents...");
+                siteGenerator.generateTableOfContents(addTableOfContentsConfigs);
+            }
+
+            siteGenerator.flushFiles();
+
+            // A shard without hashes had scripts over the parse time limit
+            File hashesDir = new File(sitePath, SchemaHashes.HASHES_DIR);
+            if (hashesComplete) {
+                schemaHashes.addKeys(ddlParser);
+                schemaHashes.write(hashesDir);
+            } else {
+                FileUtils.deleteDirectory(hashesDir);
+                logger.warn("Schema hashes are not written, some shards have none");
+            }
+        } catch (Exception e) {
+            logger.error(e.getLocalizedMessage());
+            throw new MojoFailureException(e.getLocalizedMessage(), e);
+        }
+
+        if (deleteFilesConfigs != null && deleteFilesConfigs.length > 0) {
+            try {
+                siteGenerator.deleteFiles(deleteFilesConfigs);
+            } catch (Exception e) {
+                logger.info(e.getLocalizedMessage());
+            }
+        }
+        logger.info("{} shards merged", shardSitePaths.length);
+    }
+}
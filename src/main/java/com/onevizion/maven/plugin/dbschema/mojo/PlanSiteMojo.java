@@ -0,0 +1,278 @@
+package com.onevizion.maven.plugin.dbschema.mojo;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.onevizion.maven.plugin.dbschema.ParseCosts;
+import com.onevizion.maven.plugin.dbschema.SiteGenerator;
+import com.onevizion.maven.plugin.dbschema.vo.*;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOCase;
+import org.apache.commons.io.filefilter.WildcardFileFilter;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+// Tells what generateSite would do without parsing or writing anything. Only the cheap steps run: the fingerprint
+// check, the script listing with the filters and dbSiteObjects, and the listing of the copied, reformatted and
+// deleted folders. The time is estimated from the parse times and the throughput recorded by earlier runs
+@Mojo(name = "planSite", threadSafe = true)
+public class PlanSiteMojo extends GenerateSiteMojo {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private static final int[] PLANNED_THREADS = {1, 2, 4, 8, 16};
+
+    private static class Plan {
+        private int scriptCount;
+        private long inputBytes;
+        private long estimatedNanos;
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        checkParameters();
+        if (schemas == null || schemas.length == 0) {
+            plan();
+            return;
+        }
+
+        Map<String, String> schemaSiteDirs = getSchemaSiteDirs();
+        Plan total = new Plan();
+        for (SchemaConfig schema : schemas) {
+            logger.info("Schema {}:", schema.getName());
+            Plan plan = ((PlanSiteMojo) forSchema(schema, schemaSiteDirs.get(schema.getName()))).plan();
+            total.scriptCount += plan.scriptCount;
+            total.inputBytes += plan.inputBytes;
+            total.estimatedNanos += plan.estimatedNanos;
+        }
+        logger.info("{} schemas: {} scripts, {} bytes to parse, about {} s one schema after the other", schemas.length,
+                total.scriptCount, total.inputBytes, toSeconds(total.estimatedNanos));
+    }
+
+    @Override
+    GenerateSiteMojo newSchemaMojo() {
+        return new PlanSiteMojo();
+    }
+
+    private Plan plan() throws MojoFailureException {
+        Plan plan = new Plan();
+        try {
+            if (isUpToDate(getFingerprintFile(), getFingerprint())) {
+                logger.info("Site {} is up to date, generateSite would do nothing", sitePath);
+                return plan;
+            }
+        } catch (IOException e) {
+            logger.error(e.getLocalizedMessage());
+            throw new MojoFailureException(e.getLocalizedMessage(), e);
+        }
+
+        createGenerator();
+        List<File> scripts;
+        try {
+            scriptFilter = getScriptFilter();
+            scripts = listScripts(scriptFilter, true);
+        } catch (MojoFailureException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error(e.getLocalizedMessage());
+            throw new MojoFailureException(e.getLocalizedMessage(), e);
+        } finally {
+            closeArchives();
+        }
+
+        List<File> renderedScripts = scripts;
+        if (shardCount > 1 && shardIndex >= 0 && shardIndex < shardCount) {
+            renderedScripts = getShards(scripts, shardCount).get(shardIndex);
+        }
+
+        List<File> packageScripts = Lists.newArrayList();
+        if (nativePackages && (shardCount <= 1 || shardIndex == 0)) {
+            File[] files = new File(outputDirectory, ddlPackagesPathSuf).listFiles((dir, name) -> name.endsWith(".sql"));
+            if (files != null) {
+                packageScripts.addAll(Arrays.asList(files));
+            }
+        }
+
+        // Names of the files every folder of the site will have, the reformatting and deleting run on them
+        Map<File, Set<String>> plannedFiles = Maps.newHashMap();
+        int pageCount = 0;
+        for (File script : renderedScripts) {
+            String scriptsDir = script.getParentFile().getName();
+            String pageName = FilenameUtils.getBaseName(script.getName()).toUpperCase() + ".html";
+            if (ddlTablesPathSuf.equals("/" + scriptsDir)) {
+                pageCount += addPlannedFile(plannedFiles, tablesDir, pageName);
+            } else if (ddlViewsPathSuf.equals("/" + scriptsDir)) {
+                pageCount += addPlannedFile(plannedFiles, viewsDir, pageName);
+            }
+        }
+        int definitionPageCount = 0;
+        for (DbObjectType objectType : DEFINITION_OBJECT_TYPES) {
+            for (String fileName : listFileNames(new File(getObjectsDir(objectType)), SiteGenerator.DEFINITION_PAGE_PREFIX + "*.html")) {
+                definitionPageCount += addPlannedFile(plannedFiles, getObjectsDir(objectType), fileName);
+            }
+        }
+
+        int copyCount = 0;
+        for (CopyFilesConfig config : getCopyFilesConfigs()) {
+            if (dbSiteObjects != null && dbSiteObjects.length > 0 && new File(pldocDir).equals(new File(config.getSrcDir()))) {
+                continue;
+            }
+            for (String include : getIncludes(config.getIncludes())) {
+                List<String> fileNames = listFileNames(new File(config.getSrcDir()), include);
+                if (fileNames.isEmpty()) {
+                    logger.warn("{} files not found in {}, generateSite would fail", include, config.getSrcDir());
+                }
+                for (String fileName : fileNames) {
+                    addPlannedFile(plannedFiles, config.getDestDir(), fileName);
+                }
+                copyCount += fileNames.size();
+            }
+        }
+
+        int reformatCount = 0;
+        for (ReformatFilesConfig config : getReformatFilesConfigs()) {
+            reformatCount += countMatching(getPlannedFiles(plannedFiles, config.getInputDirectory()), config.getIncludes());
+        }
+
+        int deleteCount = 0;
+        if (shardCount <= 1 && deleteFilesConfigs != null) {
+            for (DeleteFilesConfig config : deleteFilesConfigs) {
+                File inputDirectory = new File(config.getInputDirectory());
+                if (config.getIncludes() == null) {
+                    deleteCount += inputDirectory.isDirectory() ? FileUtils.listFiles(inputDirectory, null, true).size() : 0;
+                    continue;
+                }
+                deleteCount += countMatching(getPlannedFiles(plannedFiles, config.getInputDirectory()), config.getIncludes());
+            }
+        }
+
+        List<File> parsedScripts = Lists.newArrayList(renderedScripts);
+        parsedScripts.addAll(packageScripts);
+        plan.scriptCount = parsedScripts.size();
+        plan.inputBytes = parsedScripts.stream().mapToLong(File::length).sum();
+
+        logger.info("Scripts to parse: {} ({} bytes){}", plan.scriptCount, plan.inputBytes,
+                packageScripts.isEmpty() ? "" : ", " + packageScripts.size() + " of them package specs");
+        if (renderedScripts != scripts) {
+            logger.info("Shard {} of {} parses {} of {} scripts", shardIndex, shardCount, renderedScripts.size(), scripts.size());
+        }
+        logger.info("Pages to write: {} table and view pages, one per script, {} index, sequence and trigger pages "
+                + "as in the current site", pageCount, definitionPageCount);
+        logger.info("Files to copy: {}, to reformat: {}, to delete: {}", copyCount, reformatCount, deleteCount);
+
+        plan.estimatedNanos = estimate(parsedScripts, plan.inputBytes);
+        return plan;
+    }
+
+    // The parse times are scheduled like the parser does, largest first to the least loaded thread. The whole run
+    // is scaled from the throughput of the last run
+    private long estimate(List<File> scripts, long inputBytes) {
+        ParseCosts parseCosts = ddlParser.getParseCosts();
+        if (parseCosts.getNanosPerByte() == 0) {
+            logger.info("No parse times recorded in {}, run generateSite once for a time estimate", parseCostsFile);
+            return 0;
+        }
+
+        ToLongFunction<File> estimator = parseCosts.estimator();
+        long[] estimates = scripts.stream().mapToLong(estimator).sorted().toArray();
+        long parseNanos = getMakespan(estimates, 1);
+        if (globalLinking) {
+            for (int threads : PLANNED_THREADS) {
+                logger.info("Parsing, {} threads: about {} s", threads, toSeconds(getMakespan(estimates, threads)));
+            }
+        } else {
+            logger.info("Parsing: about {} s, scripts are streamed one after the other", toSeconds(parseNanos));
+        }
+
+        double runNanosPerByte = parseCosts.getRunNanosPerByte();
+        if (runNanosPerByte == 0) {
+            return parseNanos;
+        }
+        long runNanos = Math.max((long) (inputBytes * runNanosPerByte), parseNanos);
+        logger.info("Whole run: about {} s at the throughput of the last run ({} parse times recorded)",
+                toSeconds(runNanos), parseCosts.getRecordedCount());
+        return runNanos;
+    }
+
+    // Estimates sorted ascending
+    private static long getMakespan(long[] estimates, int threads) {
+        PriorityQueue<Long> loads = new PriorityQueue<>();
+        for (int thread = 0; thread < threads; thread++) {
+            loads.add(0L);
+        }
+        for (int index = estimates.length - 1; index >= 0; index--) {
+            loads.add(loads.poll() + estimates[index]);
+        }
+        long makespan = 0;
+        for (long load : loads) {
+            makespan = Math.max(makespan, load);
+        }
+        return makespan;
+    }
+
+    private static int addPlannedFile(Map<File, Set<String>> plannedFiles, String dir, String fileName) {
+        return plannedFiles.computeIfAbsent(normalize(dir), key -> Sets.newHashSet()).add(fileName) ? 1 : 0;
+    }
+
+    // The files a folder has now and the files the run adds to it
+    private static Set<String> getPlannedFiles(Map<File, Set<String>> plannedFiles, String dir) {
+        Set<String> fileNames = Sets.newHashSet(listFileNames(new File(dir), "*"));
+        fileNames.addAll(plannedFiles.getOrDefault(normalize(dir), Collections.emptySet()));
+        return fileNames;
+    }
+
+    private static int countMatching(Set<String> fileNames, String[] includes) {
+        List<String> patterns = getIncludes(includes);
+        return (int) fileNames.stream()
+                              .filter(fileName -> patterns.stream()
+                                                          .anyMatch(include -> FilenameUtils.wildcardMatch(fileName, include, IOCase.INSENSITIVE)))
+                              .count();
+    }
+
+    private static List<String> listFileNames(File dir, String include) {
+        FileFilter filter = new WildcardFileFilter(include, IOCase.INSENSITIVE);
+        File[] files = dir.listFiles(filter);
+        List<String> fileNames = Lists.newArrayList();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isFile()) {
+                    fileNames.add(file.getName());
+                }
+            }
+        }
+        return fileNames;
+    }
+
+    private static List<String> getIncludes(String[] includes) {
+        List<String> result = Lists.newArrayList();
+        if (includes != null) {
+            for (String include : includes) {
+                result.add(include == null || include.isEmpty() ? "*" : include);
+            }
+        }
+        return result;
+    }
+
+    private static File normalize(String dir) {
+        return new File(dir).toPath().toAbsolutePath().normalize().toFile();
+    }
+
+    private static String toSeconds(long nanos) {
+        return String.format("%.1f", nanos / 1e9);
+    }
+}
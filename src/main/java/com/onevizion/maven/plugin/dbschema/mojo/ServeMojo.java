@@ -0,0 +1,283 @@
+package com.onevizion.maven.plugin.dbschema.mojo;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.onevizion.maven.plugin.dbschema.DdlParser;
+import com.onevizion.maven.plugin.dbschema.SiteAssets;
+import com.onevizion.maven.plugin.dbschema.SiteGenerator;
+import com.onevizion.maven.plugin.dbschema.vo.AddTablesCommentsConfig;
+import com.onevizion.maven.plugin.dbschema.vo.DbObjectType;
+import com.onevizion.maven.plugin.dbschema.vo.ReformatFilesConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLConnection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Mojo(name = "serve", requiresDirectInvocation = true)
+public class ServeMojo extends GenerateSiteMojo {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Parameter(property = "servePort", defaultValue = "8080")
+    private int servePort;
+
+    // The site is only reachable from this machine unless another address is given
+    @Parameter(property = "serveHost", defaultValue = "127.0.0.1")
+    private String serveHost;
+
+    @Parameter(property = "serveCacheSize", defaultValue = "67108864")
+    private long serveCacheSize;
+
+    private static class PageSource {
+        private final DbObjectType objectType;
+        private final String objectName;
+
+        private PageSource(DbObjectType objectType, String objectName) {
+            this.objectType = objectType;
+            this.objectName = objectName;
+        }
+    }
+
+    // Every page of the model, they are rendered on the first request only
+    private final Map<File, PageSource> pages = Maps.newHashMap();
+
+    private LoadingCache<File, byte[]> pageCache;
+
+    @Override
+    public void parseFilesComplete(Collection<File> files) {
+        logger.info("{} scripts parsed, pages are rendered on request", files.size());
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        checkParameters();
+        if (schemas != null && schemas.length > 0) {
+            String error = "schemas are only supported by generateSite";
+            logger.error(error);
+            throw new MojoFailureException(error);
+        }
+
+        // The whole model has to stay in memory to render any page
+        globalLinking = true;
+        createGenerator();
+
+        try {
+            siteGenerator.copySiteTemplate(sitePath);
+            siteGenerator.addProjectName(sitePath, projectName != null && !projectName.isEmpty() ? projectName : "Program Scope");
+
+            scriptFilter = getScriptFilter();
+            try {
+                ddlParser.doParse(listScripts(scriptFilter));
+                writeParseCosts();
+            } finally {
+                closeArchives();
+                writeDiagnostics();
+            }
+
+            registerPages();
+            siteGenerator.generateErd(getErdDir(), tablesDir, maxErdClusterSize);
+
+            if (nativePackages) {
+                File[] packageScripts = new File(outputDirectory, ddlPackagesPathSuf).listFiles((dir, name) -> name.endsWith(".sql"));
+                if (packageScripts != null) {
+                    siteGenerator.generatePackagesHtml(packagesDir, ddlParser.parsePackageSpecs(Arrays.asList(packageScripts)));
+                }
+            }
+            addObjectsList(packagesDir, null);
+        } catch (Exception e) {
+            logger.error(e.getLocalizedMessage());
+            throw new MojoFailureException(e.getLocalizedMessage(), e);
+        }
+
+        pageCache = CacheBuilder.newBuilder()
+                                .maximumWeight(serveCacheSize)
+                                .weigher((File page, byte[] content) -> content.length)
+                                .build(new CacheLoader<File, byte[]>() {
+                                    @Override
+                                    public byte[] load(File page) throws Exception {
+                                        return renderPage(page, pages.get(page));
+                                    }
+                                });
+
+        HttpServer server;
+        try {
+            server = HttpServer.create(new InetSocketAddress(serveHost, servePort), 0);
+        } catch (IOException e) {
+            logger.error(e.getLocalizedMessage());
+            throw new MojoFailureException(e.getLocalizedMessage(), e);
+        }
+        server.createContext("/", this::handle);
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        server.setExecutor(executor);
+        server.start();
+        logger.info("Serving {} pages at http://{}:{}/", pages.size(), serveHost, servePort);
+
+        try {
+            Thread.currentThread().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            server.stop(0);
+            executor.shutdown();
+        }
+    }
+
+    private void registerPages() {
+        Set<String> tableNames = Sets.newTreeSet();
+        ddlParser.getTablesColumnsInfos().forEach(info -> tableNames.add(info.getObjectName()));
+        for (String tableName : tableNames) {
+            pages.put(getPageFile(tablesDir, tableName), new PageSource(DbObjectType.TABLE, tableName));
+        }
+        addObjectsList(tablesDir, tableNames);
+
+        Set<String> viewNames = Sets.newTreeSet();
+        ddlParser.getViewsColumnsInfos().forEach(info -> viewNames.add(info.getObjectName()));
+        for (String viewName : viewNames) {
+            pages.put(getPageFile(viewsDir, viewName), new PageSource(DbObjectType.VIEW, viewName));
+        }
+        addObjectsList(viewsDir, viewNames);
+
+        for (DbObjectType objectType : DEFINITION_OBJECT_TYPES) {
+            for (DdlParser.ObjectDefinitionInfo info : ddlParser.getObjectDefinitions(objectType)) {
+                pages.put(normalize(new File(getObjectsDir(objectType), SiteGenerator.getDefinitionPageName(info.getObjectName()))),
+                        new PageSource(objectType, info.getObjectName()));
+            }
+            try {
+                siteGenerator.generateObjectDefinitionsList(getObjectsDir(objectType), objectType);
+            } catch (IOException e) {
+                logger.warn("Can not add the list of objects to {}: {}", getObjectsDir(objectType), e.getLocalizedMessage());
+            }
+        }
+    }
+
+    private void addObjectsList(String dir, Collection<String> objectNames) {
+        try {
+            if (objectNames != null) {
+                siteGenerator.generateObjectsList(dir, objectNames);
+            } else {
+                siteGenerator.generateObjectsList(dir);
+            }
+        } catch (IOException e) {
+            logger.warn("Can not add the list of objects to {}: {}", dir, e.getLocalizedMessage());
+        }
+    }
+
+    private byte[] renderPage(File page, PageSource source) throws Exception {
+        logger.debug("Rendering {}...", page);
+
+        // A separate generator keeps only this page, so the reformat passes do not touch anything else
+        SiteGenerator pageGenerator = new SiteGenerator(ddlParser);
+        pageGenerator.setPageExists(file -> pages.containsKey(normalize(file)));
+        pageGenerator.setAssetNames(siteGenerator.getAssetNames());
+
+        if (source.objectType == DbObjectType.TABLE) {
+            pageGenerator.generateTablesHtml(tablesDir, source.objectName);
+        } else if (source.objectType == DbObjectType.VIEW) {
+            pageGenerator.generateViewsHtml(viewsDir, source.objectName);
+        } else {
+            pageGenerator.generateObjectDefinitionsHtml(getObjectsDir(source.objectType), source.objectType, tablesDir,
+                    source.objectName);
+        }
+
+        if (addTablesCommentsConfigs != null) {
+            for (AddTablesCommentsConfig config : addTablesCommentsConfigs) {
+                if (source.objectType == DbObjectType.TABLE && DbObjectType.TABLE.toString().equalsIgnoreCase(config.getTableType())
+                        && ddlParser.getTableComment(source.objectName) != null) {
+                    pageGenerator.addTableComments(config, source.objectName);
+                } else if (source.objectType == DbObjectType.VIEW && DbObjectType.VIEW.toString().equalsIgnoreCase(config.getTableType())
+                        && ddlParser.getViewComment(source.objectName) != null) {
+                    pageGenerator.addViewComments(config, source.objectName);
+                }
+            }
+        }
+
+        if (viewLineage && (source.objectType == DbObjectType.TABLE || source.objectType == DbObjectType.VIEW)) {
+            pageGenerator.addDependencies(tablesDir, viewsDir, Collections.singleton(source.objectName));
+        }
+
+        ReformatFilesConfig[] reformatConfigs = getReformatFilesConfigs();
+        if (reformatConfigs.length > 0) {
+            pageGenerator.reformatStagedFiles(reformatConfigs);
+        }
+
+        return pageGenerator.readSiteFile(page);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            if (path.endsWith("/")) {
+                path += "index.html";
+            }
+
+            File file = normalize(new File(sitePath, path));
+            if (!file.toPath().startsWith(normalize(new File(sitePath)).toPath())) {
+                exchange.sendResponseHeaders(403, -1);
+                return;
+            }
+
+            byte[] content;
+            try {
+                content = pages.containsKey(file) ? pageCache.get(file) : siteGenerator.readSiteFile(file);
+            } catch (FileNotFoundException e) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            } catch (ExecutionException | IOException e) {
+                logger.error("Can not render {}: {}", file, e.getLocalizedMessage());
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+
+            String contentType = URLConnection.guessContentTypeFromName(file.getName());
+            if (file.getName().endsWith(".css")) {
+                contentType = "text/css";
+            } else if (file.getName().endsWith(".js")) {
+                contentType = "application/javascript";
+            }
+            if (contentType != null) {
+                exchange.getResponseHeaders().set("Content-Type", contentType);
+            }
+            // Fingerprinted assets never change under the same name
+            if (SiteAssets.FINGERPRINTED_NAME_PATTERN.matcher(file.getName()).matches()) {
+                exchange.getResponseHeaders().set("Cache-Control", "public, max-age=31536000, immutable");
+            }
+
+            exchange.sendResponseHeaders(200, content.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(content);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static File getPageFile(String dir, String objectName) {
+        return normalize(new File(dir, objectName.toUpperCase() + ".html"));
+    }
+
+    private static File normalize(File file) {
+        return file.toPath().toAbsolutePath().normalize().toFile();
+    }
+}
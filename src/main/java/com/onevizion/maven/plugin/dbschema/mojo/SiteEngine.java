@@ -0,0 +1,341 @@
+package com.onevizion.maven.plugin.dbschema.mojo;
+
+import com.onevizion.maven.plugin.dbschema.vo.*;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+
+import java.io.File;
+
+// Runs the goals of the plugin without Maven. The engine is immutable, every run gets its own mojo, so one engine
+// can be kept warm and run any number of times, also from several threads for different sites
+public class SiteEngine {
+
+    private final Builder config;
+
+    private SiteEngine(Builder config) {
+        this.config = config;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public void generate() throws Exception {
+        run(configure(new GenerateSiteMojo()));
+    }
+
+    // Logs what generate would do and how long it would take, nothing is parsed or written
+    public void plan() throws Exception {
+        run(configure(new PlanSiteMojo()));
+    }
+
+    public void merge(String... shardSitePaths) throws Exception {
+        MergeSiteMojo mojo = configure(new MergeSiteMojo());
+        mojo.shardSitePaths = shardSitePaths;
+        run(mojo);
+    }
+
+    public void diff(String baseSitePath, File diffReportFile) throws Exception {
+        DiffSiteMojo mojo = configure(new DiffSiteMojo());
+        mojo.baseSitePath = baseSitePath;
+        mojo.diffReportFile = diffReportFile;
+        run(mojo);
+    }
+
+    private static void run(GenerateSiteMojo mojo) throws Exception {
+        try {
+            mojo.execute();
+        } catch (MojoExecutionException | MojoFailureException e) {
+            throw new Exception(e.getLocalizedMessage(), e);
+        }
+    }
+
+    private <T extends GenerateSiteMojo> T configure(T mojo) {
+        mojo.sitePath = config.sitePath;
+        mojo.tablesDir = config.tablesDir;
+        mojo.viewsDir = config.viewsDir;
+        mojo.pldocDir = config.pldocDir;
+        mojo.packagesDir = config.packagesDir;
+        mojo.projectName = config.projectName;
+        mojo.reformatFilesConfigs = config.reformatFilesConfigs;
+        mojo.copyFilesConfigs = config.copyFilesConfigs;
+        mojo.deleteFilesConfigs = config.deleteFilesConfigs;
+        mojo.addTablesCommentsConfigs = config.addTablesCommentsConfigs;
+        mojo.addTableOfContentsConfigs = config.addTableOfContentsConfigs;
+        mojo.dbSiteObjects = config.dbSiteObjects;
+        mojo.outputDirectory = config.outputDirectory;
+        mojo.scriptArchives = config.scriptArchives;
+        mojo.filterTables = config.filterTables;
+        mojo.filterViews = config.filterViews;
+        mojo.erdDir = config.erdDir;
+        mojo.maxErdClusterSize = config.maxErdClusterSize;
+        mojo.streamingThreshold = config.streamingThreshold;
+        mojo.globalLinking = config.globalLinking;
+        mojo.viewLineage = config.viewLineage;
+        mojo.nativePackages = config.nativePackages;
+        mojo.exportFile = config.exportFile;
+        mojo.shardIndex = config.shardIndex;
+        mojo.shardCount = config.shardCount;
+        mojo.parseTimeLimit = config.parseTimeLimit;
+        mojo.parseReportFile = config.parseReportFile;
+        mojo.diagnosticsFile = config.diagnosticsFile;
+        mojo.parseCostsFile = config.parseCostsFile;
+        mojo.schemas = config.schemas;
+        mojo.schemaThreads = config.schemaThreads;
+        mojo.force = config.force;
+        mojo.buildDirectory = config.buildDirectory;
+        return mojo;
+    }
+
+    // Same parameters and defaults as the generateSite goal. The page folders default to the folders of the site
+    // template, the build directory to ./target
+    public static class Builder {
+        private String sitePath;
+        private String tablesDir;
+        private String viewsDir;
+        private String pldocDir;
+        private String packagesDir;
+        private String projectName;
+        private ReformatFilesConfig[] reformatFilesConfigs;
+        private CopyFilesConfig[] copyFilesConfigs;
+        private DeleteFilesConfig[] deleteFilesConfigs;
+        private AddTablesCommentsConfig[] addTablesCommentsConfigs;
+        private AddTableOfContentsConfig[] addTableOfContentsConfigs;
+        private String[] dbSiteObjects;
+        private String outputDirectory;
+        private ScriptArchiveConfig[] scriptArchives;
+        private FilterConfig filterTables;
+        private FilterConfig filterViews;
+        private String erdDir;
+        private int maxErdClusterSize = 40;
+        private long streamingThreshold = 33554432;
+        private boolean globalLinking = false;
+        private boolean viewLineage = true;
+        private boolean nativePackages = false;
+        private File exportFile;
+        private int shardIndex = 0;
+        private int shardCount = 1;
+        private long parseTimeLimit = 0;
+        private File parseReportFile;
+        private File diagnosticsFile;
+        private File parseCostsFile;
+        private SchemaConfig[] schemas;
+        private int schemaThreads = 0;
+        private boolean force = false;
+        private File buildDirectory;
+
+        private Builder() {
+        }
+
+        public Builder sitePath(String sitePath) {
+            this.sitePath = sitePath;
+            return this;
+        }
+
+        public Builder tablesDir(String tablesDir) {
+            this.tablesDir = tablesDir;
+            return this;
+        }
+
+        public Builder viewsDir(String viewsDir) {
+            this.viewsDir = viewsDir;
+            return this;
+        }
+
+        public Builder pldocDir(String pldocDir) {
+            this.pldocDir = pldocDir;
+            return this;
+        }
+
+        public Builder packagesDir(String packagesDir) {
+            this.packagesDir = packagesDir;
+            return this;
+        }
+
+        public Builder projectName(String projectName) {
+            this.projectName = projectName;
+            return this;
+        }
+
+        public Builder reformatFilesConfigs(ReformatFilesConfig... reformatFilesConfigs) {
+            this.reformatFilesConfigs = reformatFilesConfigs;
+            return this;
+        }
+
+        public Builder copyFilesConfigs(CopyFilesConfig... copyFilesConfigs) {
+            this.copyFilesConfigs = copyFilesConfigs;
+            return this;
+        }
+
+        public Builder deleteFilesConfigs(DeleteFilesConfig... deleteFilesConfigs) {
+            this.deleteFilesConfigs = deleteFilesConfigs;
+            return this;
+        }
+
+        public Builder addTablesCommentsConfigs(AddTablesCommentsConfig... addTablesCommentsConfigs) {
+            this.addTablesCommentsConfigs = addTablesCommentsConfigs;
+            return this;
+        }
+
+        public Builder addTableOfContentsConfigs(AddTableOfContentsConfig... addTableOfContentsConfigs) {
+            this.addTableOfContentsConfigs = addTableOfContentsConfigs;
+            return this;
+        }
+
+        public Builder dbSiteObjects(String... dbSiteObjects) {
+            this.dbSiteObjects = dbSiteObjects;
+            return this;
+        }
+
+        public Builder outputDirectory(String outputDirectory) {
+            this.outputDirectory = outputDirectory;
+            return this;
+        }
+
+        public Builder scriptArchives(ScriptArchiveConfig... scriptArchives) {
+            this.scriptArchives = scriptArchives;
+            return this;
+        }
+
+        public Builder filterTables(FilterConfig filterTables) {
+            this.filterTables = filterTables;
+            return this;
+        }
+
+        public Builder filterViews(FilterConfig filterViews) {
+            this.filterViews = filterViews;
+            return this;
+        }
+
+        public Builder erdDir(String erdDir) {
+            this.erdDir = erdDir;
+            return this;
+        }
+
+        public Builder maxErdClusterSize(int maxErdClusterSize) {
+            this.maxErdClusterSize = maxErdClusterSize;
+            return this;
+        }
+
+        public Builder streamingThreshold(long streamingThreshold) {
+            this.streamingThreshold = streamingThreshold;
+            return this;
+        }
+
+        public Builder globalLinking(boolean globalLinking) {
+            this.globalLinking = globalLinking;
+            return this;
+        }
+
+        public Builder viewLineage(boolean viewLineage) {
+            this.viewLineage = viewLineage;
+            return this;
+        }
+
+        public Builder nativePackages(boolean nativePackages) {
+            this.nativePackages = nativePackages;
+            return this;
+        }
+
+        public Builder exportFile(File exportFile) {
+            this.exportFile = exportFile;
+            return this;
+        }
+
+        public Builder shardIndex(int shardIndex) {
+            this.shardIndex = shardIndex;
+            return this;
+        }
+
+        public Builder shardCount(int shardCount) {
+            this.shardCount = shardCount;
+            return this;
+        }
+
+        public Builder parseTimeLimit(long parseTimeLimit) {
+            this.parseTimeLimit = parseTimeLimit;
+            return this;
+        }
+
+        public Builder parseReportFile(File parseReportFile) {
+            this.parseReportFile = parseReportFile;
+            return this;
+        }
+
+        public Builder diagnosticsFile(File diagnosticsFile) {
+            this.diagnosticsFile = diagnosticsFile;
+            return this;
+        }
+
+        public Builder parseCostsFile(File parseCostsFile) {
+            this.parseCostsFile = parseCostsFile;
+            return this;
+        }
+
+        public Builder schemas(SchemaConfig... schemas) {
+            this.schemas = schemas;
+            return this;
+        }
+
+        public Builder schemaThreads(int schemaThreads) {
+            this.schemaThreads = schemaThreads;
+            return this;
+        }
+
+        public Builder force(boolean force) {
+            this.force = force;
+            return this;
+        }
+
+        public Builder buildDirectory(File buildDirectory) {
+            this.buildDirectory = buildDirectory;
+            return this;
+        }
+
+        // The builder is copied, so changing it later does not change the engine
+        public SiteEngine build() {
+            if (sitePath == null || sitePath.isEmpty()) {
+                throw new IllegalStateException("sitePath must not be empty");
+            }
+
+            Builder config = new Builder();
+            config.sitePath = sitePath;
+            config.tablesDir = tablesDir != null ? tablesDir : sitePath + "/table";
+            config.viewsDir = viewsDir != null ? viewsDir : sitePath + "/view";
+            config.pldocDir = pldocDir != null ? pldocDir : sitePath + "/pldoc";
+            config.packagesDir = packagesDir != null ? packagesDir : sitePath + "/package";
+            config.projectName = projectName;
+            config.reformatFilesConfigs = reformatFilesConfigs;
+            config.copyFilesConfigs = copyFilesConfigs;
+            config.deleteFilesConfigs = deleteFilesConfigs;
+            config.addTablesCommentsConfigs = addTablesCommentsConfigs;
+            config.addTableOfContentsConfigs = addTableOfContentsConfigs;
+            config.dbSiteObjects = dbSiteObjects;
+            config.outputDirectory = outputDirectory;
+            config.scriptArchives = scriptArchives;
+            config.filterTables = filterTables;
+            config.filterViews = filterViews;
+            config.erdDir = erdDir;
+            config.maxErdClusterSize = maxErdClusterSize;
+            config.streamingThreshold = streamingThreshold;
+            config.globalLinking = globalLinking;
+            config.viewLineage = viewLineage;
+            config.nativePackages = nativePackages;
+            config.exportFile = exportFile;
+            config.shardIndex = shardIndex;
+            config.shardCount = shardCount;
+            config.parseTimeLimit = parseTimeLimit;
+            config.schemas = schemas;
+            config.schemaThreads = schemaThreads;
+            config.force = force;
+            config.buildDirectory = buildDirectory != null ? buildDirectory : new File("target");
+            config.parseReportFile = parseReportFile != null ? parseReportFile
+                    : new File(config.buildDirectory, "dbschema/parse-report.txt");
+            config.diagnosticsFile = diagnosticsFile != null ? diagnosticsFile
+                    : new File(config.buildDirectory, "dbschema/diagnostics.txt");
+            config.parseCostsFile = parseCostsFile != null ? parseCostsFile
+                    : new File(config.buildDirectory, "dbschema/parse-costs.txt");
+            return new SiteEngine(config);
+        }
+    }
+}
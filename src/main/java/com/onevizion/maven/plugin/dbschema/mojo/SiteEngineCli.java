@@ -0,0 +1,183 @@
+package com.onevizion.maven.plugin.dbschema.mojo;
+
+import com.google.common.collect.Maps;
+import com.onevizion.maven.plugin.dbschema.vo.ScriptArchiveConfig;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
+
+// Main class of the cli jar: java -jar maven-plugin-dbschema-cli.jar [generate|plan|merge|diff] --sitePath=... [--name=value]
+// The file configs of the goals (reformat, copy, delete, comments, table of contents, schemas) are available
+// through SiteEngine only
+public class SiteEngineCli {
+
+    private static final String USAGE = String.join("\n",
+            "Usage: java -jar maven-plugin-dbschema-cli.jar [generate|plan|merge|diff] --sitePath=<dir> [--name=value ...]",
+            "  generate  --outputDirectory=<dir> [--scriptArchives=<list> --tablesDir --viewsDir --pldocDir",
+            "            --packagesDir --projectName --dbSiteObjects=<list> --erdDir --maxErdClusterSize --streamingThreshold --globalLinking",
+            "            --viewLineage --nativePackages --exportFile --shardIndex --shardCount --parseTimeLimit",
+            "            --parseReportFile --diagnosticsFile --parseCostsFile --force --buildDirectory]",
+            "  plan      same options as generate, only tells what generate would do",
+            "  merge     --shardSitePaths=<list>",
+            "  diff      --baseSitePath=<dir> [--diffReportFile=<file>]",
+            "Lists are comma separated");
+
+    public static void main(String[] args) {
+        try {
+            System.exit(run(args));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+    }
+
+    static int run(String[] args) {
+        String command = "generate";
+        int first = 0;
+        if (args.length > 0 && !args[0].startsWith("--")) {
+            command = args[0];
+            first = 1;
+        }
+
+        Map<String, String> options = Maps.newLinkedHashMap();
+        for (int index = first; index < args.length; index++) {
+            String arg = args[index];
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument " + arg);
+            }
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            } else if (index + 1 < args.length && !args[index + 1].startsWith("--")) {
+                options.put(arg.substring(2), args[++index]);
+            } else {
+                options.put(arg.substring(2), "true");
+            }
+        }
+
+        String baseSitePath = options.remove("baseSitePath");
+        String diffReportFile = options.remove("diffReportFile");
+        String shardSitePaths = options.remove("shardSitePaths");
+        SiteEngine engine = configure(SiteEngine.builder(), options).build();
+
+        try {
+            switch (command) {
+                case "generate":
+                    engine.generate();
+                    break;
+                case "plan":
+                    engine.plan();
+                    break;
+                case "merge":
+                    if (shardSitePaths == null) {
+                        throw new IllegalArgumentException("shardSitePaths must not be empty");
+                    }
+                    engine.merge(shardSitePaths.split(","));
+                    break;
+                case "diff":
+                    if (baseSitePath == null) {
+                        throw new IllegalArgumentException("baseSitePath must not be empty");
+                    }
+                    engine.diff(baseSitePath, diffReportFile != null ? new File(diffReportFile) : null);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown command " + command);
+            }
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            System.err.println(e.getLocalizedMessage());
+            return 1;
+        }
+        return 0;
+    }
+
+    private static SiteEngine.Builder configure(SiteEngine.Builder builder, Map<String, String> options) {
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            String value = option.getValue();
+            switch (option.getKey()) {
+                case "sitePath":
+                    builder.sitePath(value);
+                    break;
+                case "tablesDir":
+                    builder.tablesDir(value);
+                    break;
+                case "viewsDir":
+                    builder.viewsDir(value);
+                    break;
+                case "pldocDir":
+                    builder.pldocDir(value);
+                    break;
+                case "packagesDir":
+                    builder.packagesDir(value);
+                    break;
+                case "projectName":
+                    builder.projectName(value);
+                    break;
+                case "outputDirectory":
+                    builder.outputDirectory(value);
+                    break;
+                case "scriptArchives":
+                    builder.scriptArchives(Arrays.stream(value.split(",")).map(file -> {
+                        ScriptArchiveConfig config = new ScriptArchiveConfig();
+                        config.setFile(file);
+                        return config;
+                    }).toArray(ScriptArchiveConfig[]::new));
+                    break;
+                case "dbSiteObjects":
+                    builder.dbSiteObjects(value.split(","));
+                    break;
+                case "erdDir":
+                    builder.erdDir(value);
+                    break;
+                case "maxErdClusterSize":
+                    builder.maxErdClusterSize(Integer.parseInt(value));
+                    break;
+                case "streamingThreshold":
+                    builder.streamingThreshold(Long.parseLong(value));
+                    break;
+                case "globalLinking":
+                    builder.globalLinking(Boolean.parseBoolean(value));
+                    break;
+                case "viewLineage":
+                    builder.viewLineage(Boolean.parseBoolean(value));
+                    break;
+                case "nativePackages":
+                    builder.nativePackages(Boolean.parseBoolean(value));
+                    break;
+                case "exportFile":
+                    builder.exportFile(new File(value));
+                    break;
+                case "shardIndex":
+                    builder.shardIndex(Integer.parseInt(value));
+                    break;
+                case "shardCount":
+                    builder.shardCount(Integer.parseInt(value));
+                    break;
+                case "parseTimeLimit":
+                    builder.parseTimeLimit(Long.parseLong(value));
+                    break;
+                case "parseReportFile":
+                    builder.parseReportFile(new File(value));
+                    break;
+                case "diagnosticsFile":
+                    builder.diagnosticsFile(new File(value));
+                    break;
+                case "parseCostsFile":
+                    builder.parseCostsFile(new File(value));
+                    break;
+                case "force":
+                    builder.force(Boolean.parseBoolean(value));
+                    break;
+                case "buildDirectory":
+                    builder.buildDirectory(new File(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option --" + option.getKey());
+            }
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,69 @@
+package com.onevizion.maven.plugin.dbschema.mojo;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+
+public class SiteFingerprint {
+    private final Hasher hasher = Hashing.sha256().newHasher();
+
+    public SiteFingerprint putValue(Object value) {
+        if (value == null) {
+            this.hasher.putString("null", StandardCharsets.UTF_8);
+        } else if (value instanceof Object[]) {
+            Object[] values = (Object[]) value;
+            this.hasher.putInt(values.length);
+            for (Object element : values) {
+                this.putValue(element);
+            }
+        } else if (value instanceof String || value instanceof Number || value instanceof Boolean) {
+            this.hasher.putString(value.toString(), StandardCharsets.UTF_8);
+        } else {
+            this.hasher.putString(ReflectionToStringBuilder.toString(value, ToStringStyle.SHORT_PREFIX_STYLE),
+                    StandardCharsets.UTF_8);
+        }
+        this.hasher.putByte((byte) 0);
+        return this;
+    }
+
+    public SiteFingerprint putFile(File file) {
+        this.hasher.putString(file.getAbsolutePath(), StandardCharsets.UTF_8)
+                   .putLong(file.length())
+                   .putLong(file.lastModified());
+        return this;
+    }
+
+    public SiteFingerprint putDirectory(File dir) {
+        File[] files = dir.listFiles(File::isFile);
+        if (files == null) {
+            this.putValue(dir.getAbsolutePath());
+            return this;
+        }
+
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        for (File file : files) {
+            this.putFile(file);
+        }
+        return this;
+    }
+
+    public String getHash() {
+        return this.hasher.hash().toString();
+    }
+
+    public static boolean isUpToDate(File fingerprintFile, String hash) throws IOException {
+        return fingerprintFile.isFile() && hash.equals(FileUtils.readFileToString(fingerprintFile, StandardCharsets.UTF_8));
+    }
+
+    public static void save(File fingerprintFile, String hash) throws IOException {
+        FileUtils.writeStringToFile(fingerprintFile, hash, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,200 @@
+package com.onevizion.maven.plugin.dbschema.mojo;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.onevizion.maven.plugin.dbschema.DdlParser;
+import com.onevizion.maven.plugin.dbschema.SiteGenerator;
+import com.onevizion.maven.plugin.dbschema.vo.DbObjectType;
+import com.onevizion.maven.plugin.dbschema.vo.ReformatFilesConfig;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+@Mojo(name = "watch", requiresDirectInvocation = true)
+public class WatchMojo extends GenerateSiteMojo {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Parameter(property = "watchDelay", defaultValue = "100")
+    private long watchDelay;
+
+    // Pages of the objects the parser knows from a script
+    private List<File> getScriptPages(File file) {
+        List<File> pages = Lists.newArrayList();
+        for (String tableName : ddlParser.getScriptTables(file)) {
+            pages.add(new File(tablesDir, tableName.toUpperCase() + ".html"));
+        }
+        for (String viewName : ddlParser.getScriptViews(file)) {
+            pages.add(new File(viewsDir, viewName.toUpperCase() + ".html"));
+        }
+        for (DdlParser.ObjectDefinitionInfo info : ddlParser.getScriptDefinitions(file)) {
+            pages.add(new File(getObjectsDir(info.getObjectType()), SiteGenerator.getDefinitionPageName(info.getObjectName())));
+        }
+        return pages;
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (schemas != null && schemas.length > 0) {
+            String error = "schemas are only supported by generateSite";
+            logger.error(error);
+            throw new MojoFailureException(error);
+        }
+
+        // The parsed model is needed for the incremental updates, even if the site is up to date
+        force = true;
+        super.execute();
+
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            Path tablesPath = new File(outputDirectory, ddlTablesPathSuf).toPath();
+            Path viewsPath = new File(outputDirectory, ddlViewsPathSuf).toPath();
+            tablesPath.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            viewsPath.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+
+            logger.info("Watching {} and {} for changes...", tablesPath, viewsPath);
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                Set<File> changedFiles = Sets.newLinkedHashSet();
+                boolean filesAddedOrDeleted = false;
+
+                // Editors usually save a file in several steps, collect them into one batch
+                while (key != null) {
+                    Path dir = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == OVERFLOW) {
+                            continue;
+                        }
+                        File file = dir.resolve((Path) event.context()).toFile();
+                        if (scriptFilter.accept(file.getParentFile(), file.getName())) {
+                            changedFiles.add(file);
+                            filesAddedOrDeleted |= event.kind() != ENTRY_MODIFY;
+                        }
+                    }
+                    key.reset();
+                    key = watchService.poll(watchDelay, TimeUnit.MILLISECONDS);
+                }
+
+                if (!changedFiles.isEmpty()) {
+                    regenerate(changedFiles, filesAddedOrDeleted);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.error(e.getLocalizedMessage());
+            throw new MojoFailureException(e.getLocalizedMessage(), e);
+        }
+    }
+
+    private void regenerate(Set<File> changedFiles, boolean filesAddedOrDeleted) {
+        long start = System.currentTimeMillis();
+        List<File> filesToParse = Lists.newArrayList();
+        Set<File> deletedFiles = Sets.newLinkedHashSet();
+        Set<String> objectNames = Sets.newHashSet();
+
+        try {
+            for (File file : changedFiles) {
+                if (file.isFile()) {
+                    filesToParse.add(file);
+                } else {
+                    deletedFiles.add(file);
+                }
+            }
+
+            // Views on the objects of a deleted script show them in their lineage and take their column types
+            // from them, so their scripts are parsed again
+            for (File file : deletedFiles) {
+                for (String objectName : Iterables.concat(ddlParser.getScriptTables(file), ddlParser.getScriptViews(file))) {
+                    objectNames.addAll(ddlParser.getViewBaseObjects(objectName));
+                    for (String viewName : ddlParser.getDependentViews(objectName)) {
+                        objectNames.add(viewName);
+                        File viewScript = ddlParser.getObjectScript(viewName);
+                        if (viewScript != null && viewScript.isFile() && !filesToParse.contains(viewScript)) {
+                            filesToParse.add(viewScript);
+                        }
+                    }
+                }
+                for (File page : getScriptPages(file)) {
+                    siteGenerator.deleteFile(page);
+                }
+                ddlParser.removeScript(file);
+            }
+
+            // Objects a changed script no longer defines lose their pages
+            Map<File, List<File>> previousPages = Maps.newHashMap();
+            for (File file : filesToParse) {
+                previousPages.put(file, getScriptPages(file));
+            }
+
+            // The timeouts are those of this regeneration, a script fixed since is no longer reported
+            try {
+                ddlParser.doParse(filesToParse);
+                writeParseReport();
+                writeParseCosts();
+            } finally {
+                writeDiagnostics();
+            }
+
+            for (File file : filesToParse) {
+                List<File> pages = getScriptPages(file);
+                for (File page : previousPages.get(file)) {
+                    if (!pages.contains(page)) {
+                        siteGenerator.deleteFile(page);
+                        filesAddedOrDeleted = true;
+                    }
+                }
+            }
+
+            if (viewLineage) {
+                for (File file : filesToParse) {
+                    for (String objectName : Iterables.concat(ddlParser.getScriptTables(file), ddlParser.getScriptViews(file))) {
+                        objectNames.add(objectName);
+                        objectNames.addAll(ddlParser.getViewBaseObjects(objectName));
+                        objectNames.addAll(ddlParser.getDependentViews(objectName));
+                    }
+                }
+                siteGenerator.addDependencies(tablesDir, viewsDir, objectNames);
+            }
+
+            // The pages were reformatted when they were rendered
+            ReformatFilesConfig[] reformatConfigs = getReformatFilesConfigs(false);
+            if (reformatConfigs.length > 0) {
+                siteGenerator.reformatStagedFiles(reformatConfigs);
+            }
+
+            if (filesAddedOrDeleted) {
+                siteGenerator.copySiteTemplate(sitePath);
+                siteGenerator.addProjectName(sitePath, projectName != null && !projectName.isEmpty() ? projectName : "Program Scope");
+                siteGenerator.generateErd(getErdDir(), tablesDir, maxErdClusterSize);
+                for (DbObjectType objectType : DEFINITION_OBJECT_TYPES) {
+                    siteGenerator.generateObjectsList(getObjectsDir(objectType));
+                }
+                if (addTableOfContentsConfigs != null && addTableOfContentsConfigs.length > 0) {
+                    siteGenerator.generateTableOfContents(addTableOfContentsConfigs);
+                }
+            }
+
+            siteGenerator.flushFiles();
+        } catch (Exception e) {
+            logger.error(e.getLocalizedMessage(), e);
+            return;
+        }
+
+        logger.info("Regenerated {} in {} ms", changedFiles, System.currentTimeMillis() - start);
+    }
+}
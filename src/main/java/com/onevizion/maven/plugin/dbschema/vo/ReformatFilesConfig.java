@@ -9,6 +9,10 @@ public class ReformatFilesConfig {
 
     private String[] includes;
 
+    private String regexpEngine;
+
+    private long timeLimit;
+
     public String getRegexp() {
         return regexp;
     }
@@ -40,4 +44,32 @@ public class ReformatFilesConfig {
     public void setIncludes(String[] includes) {
         this.includes = includes;
     }
+
+    public String getRegexpEngine() {
+        return regexpEngine;
+    }
+
+    public void setRegexpEngine(String regexpEngine) {
+        this.regexpEngine = regexpEngine;
+    }
+
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+
+    public void setTimeLimit(long timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    // Goals work on copies, the injected configuration is never changed
+    public ReformatFilesConfig copy() {
+        ReformatFilesConfig config = new ReformatFilesConfig();
+        config.setRegexp(regexp);
+        config.setReplacement(replacement);
+        config.setInputDirectory(inputDirectory);
+        config.setIncludes(includes);
+        config.setRegexpEngine(regexpEngine);
+        config.setTimeLimit(timeLimit);
+        return config;
+    }
 }
@@ -0,0 +1,83 @@
+package com.onevizion.maven.plugin.dbschema.vo;
+
+public class SchemaConfig {
+    private String name;
+
+    private String outputDirectory;
+
+    private String siteDir;
+
+    private String pldocDir;
+
+    private String projectName;
+
+    private FilterConfig filterTables;
+
+    private FilterConfig filterViews;
+
+    private ScriptArchiveConfig[] scriptArchives;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    public void setOutputDirectory(String outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    public String getSiteDir() {
+        return siteDir;
+    }
+
+    public void setSiteDir(String siteDir) {
+        this.siteDir = siteDir;
+    }
+
+    public String getPldocDir() {
+        return pldocDir;
+    }
+
+    public void setPldocDir(String pldocDir) {
+        this.pldocDir = pldocDir;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public void setProjectName(String projectName) {
+        this.projectName = projectName;
+    }
+
+    public FilterConfig getFilterTables() {
+        return filterTables;
+    }
+
+    public void setFilterTables(FilterConfig filterTables) {
+        this.filterTables = filterTables;
+    }
+
+    public FilterConfig getFilterViews() {
+        return filterViews;
+    }
+
+    public void setFilterViews(FilterConfig filterViews) {
+        this.filterViews = filterViews;
+    }
+
+    public ScriptArchiveConfig[] getScriptArchives() {
+        return scriptArchives;
+    }
+
+    public void setScriptArchives(ScriptArchiveConfig[] scriptArchives) {
+        this.scriptArchives = scriptArchives;
+    }
+}
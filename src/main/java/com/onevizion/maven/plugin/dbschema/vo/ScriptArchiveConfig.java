@@ -0,0 +1,31 @@
+package com.onevizion.maven.plugin.dbschema.vo;
+
+public class ScriptArchiveConfig {
+    private String file;
+    private String[] includes;
+    private String[] excludes;
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public String[] getIncludes() {
+        return includes;
+    }
+
+    public void setIncludes(String[] includes) {
+        this.includes = includes;
+    }
+
+    public String[] getExcludes() {
+        return excludes;
+    }
+
+    public void setExcludes(String[] excludes) {
+        this.excludes = excludes;
+    }
+}
@@ -0,0 +1,126 @@
+package com.onevizion.maven.plugin.dbschema;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+public class DdlStatementReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<String> readStatements(DdlStatementReader reader) throws IOException {
+        List<String> statements = Lists.newArrayList();
+        try (DdlStatementReader statementReader = reader) {
+            String statement;
+            while ((statement = statementReader.nextStatement()) != null) {
+                statements.add(statement.trim());
+            }
+        }
+        return statements;
+    }
+
+    // Mapped from a file and decoded from a stream, both have to split the script the same way
+    private List<String> readStatements(String script) throws IOException {
+        File file = folder.newFile();
+        FileUtils.writeStringToFile(file, script, Charset.defaultCharset());
+        List<String> statements = readStatements(new DdlStatementReader(file));
+        assertEquals(statements, readStatements(new DdlStatementReader(
+                new ByteArrayInputStream(script.getBytes(Charset.defaultCharset())))));
+        return statements;
+    }
+
+    @Test
+    public void splitsStatementsBySemicolons() throws IOException {
+        assertEquals(Arrays.asList("create table a (id number);", "create table b (id number);"),
+                readStatements("create table a (id number);\ncreate table b (id number);\n"));
+    }
+
+    @Test
+    public void keepsSemicolonsInStringsAndIdentifiers() throws IOException {
+        assertEquals(Arrays.asList("comment on table a is 'one; two';", "create table \"x;y\" (id number);"),
+                readStatements("comment on table a is 'one; two';\ncreate table \"x;y\" (id number);\n"));
+        assertEquals(Arrays.asList("comment on table a is 'it''s; done';", "select 1 from dual;"),
+                readStatements("comment on table a is 'it''s; done';\nselect 1 from dual;\n"));
+    }
+
+    @Test
+    public void keepsSemicolonsInAlternativeQuoting() throws IOException {
+        assertEquals(Arrays.asList("comment on table a is q'[it's; done]';", "select 1 from dual;"),
+                readStatements("comment on table a is q'[it's; done]';\nselect 1 from dual;\n"));
+        assertEquals(Arrays.asList("comment on table a is Q'{a ']' b; c}';", "select 1 from dual;"),
+                readStatements("comment on table a is Q'{a ']' b; c}';\nselect 1 from dual;\n"));
+        assertEquals(Arrays.asList("comment on table a is nq'!don't;!';", "select 1 from dual;"),
+                readStatements("comment on table a is nq'!don't;!';\nselect 1 from dual;\n"));
+        assertEquals(Arrays.asList("select 1 from a where x = q'<a>' and y = ';';"),
+                readStatements("select 1 from a where x = q'<a>' and y = ';';\n"));
+    }
+
+    @Test
+    public void keepsSemicolonsInComments() throws IOException {
+        assertEquals(Arrays.asList("-- one; two\ncreate table a (id number);", "/* three;\nfour; */ create table b (id number);"),
+                readStatements("-- one; two\ncreate table a (id number);\n/* three;\nfour; */ create table b (id number);\n"));
+    }
+
+    @Test
+    public void endsPlsqlBlocksBySlash() throws IOException {
+        String trigger = "create or replace trigger t before insert on a for each row\n"
+                + "begin\n"
+                + "  :new.id := 1;\n"
+                + "  :new.name := 'x/y';\n"
+                + "end;";
+        assertEquals(Arrays.asList(trigger, "create table a (id number);"),
+                readStatements(trigger + "\n/\ncreate table a (id number);\n"));
+        assertEquals(Arrays.asList("begin\n  null;\nend;"), readStatements("begin\n  null;\nend;\n/"));
+    }
+
+    @Test
+    public void skipsSqlPlusLines() throws IOException {
+        assertEquals(Arrays.asList("create table a (id number);", "create table b (id number);"),
+                readStatements("set define off\nprompt Creating a;\ncreate table a (id number);\n"
+                        + "@other.sql\nREM done;\ncreate table b (id number);\n"));
+        assertEquals(Arrays.asList("create table a (id number);"),
+                readStatements("prompt Creating a's table\ncreate table a (id number);\nprompt it's done"));
+    }
+
+    @Test
+    public void reportsTheLineOfEachStatement() throws IOException {
+        File file = folder.newFile();
+        FileUtils.writeStringToFile(file, "set define off\n\ncreate table a (id number);\n\ncreate table b\n(id number);\n",
+                Charset.defaultCharset());
+        try (DdlStatementReader reader = new DdlStatementReader(file)) {
+            reader.nextStatement();
+            assertEquals(2, reader.getStatementLine());
+            reader.nextStatement();
+            assertEquals(3, reader.getStatementLine());
+        }
+    }
+
+    @Test
+    public void decodesCharactersSplitByTheMappedRegion() throws IOException {
+        assumeTrue(StandardCharsets.UTF_8.equals(Charset.defaultCharset()));
+
+        String script = "comment on table a is 'caf\u00e9 \u20ac';\ncomment on table b is 'na\u00efve';\n";
+        File file = folder.newFile();
+        FileUtils.writeStringToFile(file, script, StandardCharsets.UTF_8);
+
+        List<String> expected = Arrays.asList("comment on table a is 'caf\u00e9 \u20ac';", "comment on table b is 'na\u00efve';");
+        // Every region size from the longest character up puts a boundary into each of the multibyte characters
+        for (int mapSize = 4; mapSize < script.getBytes(StandardCharsets.UTF_8).length; mapSize++) {
+            assertEquals("map size " + mapSize, expected, readStatements(new DdlStatementReader(file, mapSize)));
+        }
+    }
+}
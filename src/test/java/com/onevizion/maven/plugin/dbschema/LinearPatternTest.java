@@ -0,0 +1,141 @@
+package com.onevizion.maven.plugin.dbschema;
+
+import org.junit.Test;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.Assert.assertEquals;
+
+public class LinearPatternTest {
+
+    private static void assertSameReplaceAll(String regex, int flags, String input, String replacement) {
+        String expected = Pattern.compile(regex, flags).matcher(input).replaceAll(replacement);
+        String actual = LinearPattern.compile(regex, flags).replaceAll(input, replacement);
+        assertEquals("/" + regex + "/ on \"" + input + "\"", expected, actual);
+    }
+
+    private static void assertSameReplaceAll(String regex, String input, String replacement) {
+        assertSameReplaceAll(regex, 0, input, replacement);
+    }
+
+    // Every match is bracketed with its groups, so the positions and the captures are compared
+    private static void assertSameMatches(String regex, int flags, String input, int groupCount) {
+        StringBuilder replacement = new StringBuilder("<$0");
+        for (int group = 1; group <= groupCount; group++) {
+            replacement.append('|').append('$').append(group);
+        }
+        assertSameReplaceAll(regex, flags, input, replacement.append('>').toString());
+    }
+
+    private static void assertSameMatches(String regex, String input, int groupCount) {
+        assertSameMatches(regex, 0, input, groupCount);
+    }
+
+    @Test
+    public void alternation() {
+        assertSameMatches("cat|dog", "cat dog bird catdog", 0);
+        assertSameMatches("a|ab|abc", "abcabab", 0);
+        assertSameMatches("abc|ab|a", "abcabab", 0);
+        assertSameMatches("(a|b)(c|d)", "acbdadbc", 2);
+        assertSameMatches("x(|y)z", "xz xyz", 1);
+        assertSameMatches("(?:foo|foobar)bar", "foobarbar foobar", 0);
+    }
+
+    @Test
+    public void characterClasses() {
+        assertSameMatches("[a-c]+", "abcdcba xyz", 0);
+        assertSameMatches("[^a-c ]+", "abcdcba xyz", 0);
+        assertSameMatches("[\\d.]+", "v1.2.3 and 10", 0);
+        assertSameMatches("\\w+", "foo_bar, baz-42", 0);
+        assertSameMatches("\\W+", "foo_bar, baz-42", 0);
+        assertSameMatches("\\s+", "a \t b\n\nc", 0);
+        assertSameMatches("[]a]+", "]a]b", 0);
+        assertSameMatches("[a-]+", "a-a-b", 0);
+        assertSameMatches("[a[bc]]+", "abcd", 0);
+        assertSameMatches("[\\x41-\\u0043]+", "ABCD", 0);
+        assertSameMatches("[a-z]+", Pattern.CASE_INSENSITIVE, "Hello WORLD 42", 0);
+        assertSameMatches("(?i)select", "SELECT Select select", 0);
+        assertSameMatches(".", "a\nb\rc", 0);
+        assertSameMatches(".+", Pattern.DOTALL, "a\nb", 0);
+    }
+
+    @Test
+    public void anchors() {
+        assertSameMatches("^a", "aaa", 0);
+        assertSameMatches("a$", "aaa\n", 0);
+        assertSameMatches("^\\w+$", Pattern.MULTILINE, "one\ntwo\nthree", 0);
+        assertSameMatches("^", Pattern.MULTILINE, "one\ntwo\n", 0);
+        assertSameMatches("$", Pattern.MULTILINE, "one\ntwo\n", 0);
+        assertSameMatches("\\bis\\b", "this is his island", 0);
+        assertSameMatches("\\Bis\\B", "this is his island", 0);
+        assertSameMatches("\\Aa|b\\z", "aab\nb", 0);
+        assertSameMatches("b\\Z", "ab\n", 0);
+    }
+
+    @Test
+    public void greedyAndLazyQuantifiers() {
+        assertSameMatches("<.+>", "<a><b>", 0);
+        assertSameMatches("<.+?>", "<a><b>", 0);
+        assertSameMatches("a*", "baaac", 0);
+        assertSameMatches("a*?", "baaac", 0);
+        assertSameMatches("a??b", "ab b", 0);
+        assertSameMatches("a{2,3}", "aaaaaaa", 0);
+        assertSameMatches("a{2,3}?", "aaaaaaa", 0);
+        assertSameMatches("a{2,}", "a aa aaaaa", 0);
+        assertSameMatches("(a+)(a*)", "aaaa", 2);
+        assertSameMatches("(a+?)(a*)", "aaaa", 2);
+        // The group of an empty last iteration differs from the backtracking engine, as in RE2
+        assertSameMatches("(a*)+b", "aaab", 0);
+    }
+
+    @Test
+    public void groupCaptures() {
+        assertSameMatches("(\\w+)@(\\w+)\\.com", "joe@example.com, ann@test.com", 2);
+        assertSameMatches("(a)|(b)", "ab", 2);
+        assertSameMatches("(a(b)?)+", "aba", 2);
+        assertSameMatches("((a)|b)+", "ab", 2);
+        assertSameMatches("(?<year>\\d{4})-(?<month>\\d\\d)", "2024-01 and 1999-12", 2);
+        assertSameReplaceAll("(?<year>\\d{4})-(?<month>\\d\\d)", "2024-01 and 1999-12", "${month}/${year}");
+        assertSameReplaceAll("(a)(b)(c)(d)(e)(f)(g)(h)(i)(j)(k)", "abcdefghijk", "$11-$10-$1");
+        assertSameReplaceAll("(x)", "x", "$11");
+    }
+
+    @Test
+    public void replaceAll() {
+        assertSameReplaceAll("\\s+", "  a  b   c  ", " ");
+        assertSameReplaceAll("x*", "abc", "-");
+        assertSameReplaceAll("", "abc", "-");
+        assertSameReplaceAll("b", "abc", "\\$");
+        assertSameReplaceAll("(b)", "abc", "[$1\\\\]");
+        assertSameReplaceAll("\\Q.*\\E", "a.*b.*", "!");
+        assertSameReplaceAll("\\t|\\n", "a\tb\nc", " ");
+        assertSameReplaceAll("(?i)<\\/?b>", "<B>bold</b>", "");
+        assertSameReplaceAll("z", "abc", "-");
+    }
+
+    @Test
+    public void longInputs() {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            input.append("ab ");
+        }
+        assertSameReplaceAll("a", input.toString(), "x");
+        assertSameReplaceAll("(a)(b)", input.toString(), "$2$1");
+
+        // Exponential for a backtracking matcher, linear here
+        String as = "a".repeat(100000);
+        assertEquals(as, LinearPattern.compile("(a*)*b", 0).replaceAll(as, "x"));
+        assertEquals("x", LinearPattern.compile("(a|aa)+$", 0).replaceAll(as, "x"));
+    }
+
+    @Test(expected = PatternSyntaxException.class)
+    public void backreferencesAreRejected() {
+        LinearPattern.compile("(a)\\1", 0);
+    }
+
+    @Test(expected = PatternSyntaxException.class)
+    public void lookaroundIsRejected() {
+        LinearPattern.compile("a(?=b)", 0);
+    }
+}
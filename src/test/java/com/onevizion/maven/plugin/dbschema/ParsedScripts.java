@@ -0,0 +1,49 @@
+package com.onevizion.maven.plugin.dbschema;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
+import com.onevizion.maven.plugin.dbschema.DdlParser.ObjectDefinitionInfo;
+import com.onevizion.maven.plugin.dbschema.DdlParser.TableColumnInfo;
+import com.onevizion.maven.plugin.dbschema.vo.DbObjectType;
+
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Parsers that hold one script as if it was current, for the code that reads the parsed schema
+public final class ParsedScripts {
+
+    private ParsedScripts() {
+    }
+
+    public static TableColumnInfo column(String tableName, String columnName, String dataType, int columnIndex) {
+        return new TableColumnInfo(tableName, columnName, dataType, "Yes", "null", columnIndex);
+    }
+
+    public static ObjectDefinitionInfo sequence(String sequenceName, String definition) {
+        return new ObjectDefinitionInfo(sequenceName, DbObjectType.SEQUENCE, null, Collections.emptyMap(), definition);
+    }
+
+    public static DdlParser script(List<TableColumnInfo> columns, List<ObjectDefinitionInfo> definitions) {
+        Multimap<String, TableColumnInfo> tableColumns = ArrayListMultimap.create();
+        columns.forEach(column -> tableColumns.put(column.getObjectName(), column));
+
+        return (DdlParser) Proxy.newProxyInstance(DdlParser.class.getClassLoader(), new Class<?>[]{DdlParser.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getTablesColumnsInfos":
+                            return tableColumns.values();
+                        case "getTableColumnsInfos":
+                            return tableColumns.get((String) args[0]);
+                        case "getObjectDefinitions":
+                            return definitions.stream()
+                                              .filter(definition -> definition.getObjectType() == args[0])
+                                              .collect(Collectors.toList());
+                        default:
+                            return Collection.class.isAssignableFrom(method.getReturnType()) ? Collections.emptyList() : null;
+                    }
+                });
+    }
+}
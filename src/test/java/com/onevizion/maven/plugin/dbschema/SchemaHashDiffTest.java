@@ -0,0 +1,66 @@
+package com.onevizion.maven.plugin.dbschema;
+
+import com.google.common.collect.Lists;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.onevizion.maven.plugin.dbschema.ParsedScripts.column;
+import static com.onevizion.maven.plugin.dbschema.ParsedScripts.script;
+import static com.onevizion.maven.plugin.dbschema.ParsedScripts.sequence;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SchemaHashDiffTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File writeHashes(String changedType, String... sequenceNames) throws IOException {
+        List<DdlParser> scripts = Lists.newArrayList();
+        for (int index = 0; index < 20; index++) {
+            String tableName = "TABLE_" + index;
+            scripts.add(script(Arrays.asList(column(tableName, "ID", "NUMBER", 1),
+                    column(tableName, "NAME", index == 7 ? changedType : "VARCHAR2(100)", 2)), Collections.emptyList()));
+        }
+        for (String sequenceName : sequenceNames) {
+            scripts.add(script(Collections.emptyList(), Collections.singletonList(
+                    sequence(sequenceName, "create sequence " + sequenceName))));
+        }
+
+        SchemaHashes schemaHashes = new SchemaHashes();
+        scripts.forEach(schemaHashes::addSchema);
+        schemaHashes.addKeys(scripts.get(0));
+        File hashesDir = folder.newFolder();
+        schemaHashes.write(hashesDir);
+        return hashesDir;
+    }
+
+    @Test
+    public void equalTreesAreComparedByTheirRoots() throws IOException {
+        SchemaHashDiff diff = new SchemaHashDiff(writeHashes("VARCHAR2(100)", "SEQ_A"), writeHashes("VARCHAR2(100)", "SEQ_A"));
+
+        assertTrue(diff.diff().isEmpty());
+        assertEquals(2, diff.getFilesRead());
+    }
+
+    @Test
+    public void changedColumnIsFoundThroughItsBranchOnly() throws IOException {
+        SchemaHashDiff diff = new SchemaHashDiff(writeHashes("VARCHAR2(100)", "SEQ_A"), writeHashes("VARCHAR2(200)", "SEQ_A"));
+        List<SchemaHashDiff.Change> changes = diff.diff();
+
+        assertEquals(1, changes.size());
+        assertEquals("TABLE", changes.get(0).getObjectType());
+        assertEquals("TABLE_7", changes.get(0).getObjectName());
+        assertEquals(SchemaHashDiff.CHANGED, changes.get(0).getChange());
+        assertEquals(Collections.singletonList("COLUMN NAME changed"), changes.get(0).getDetails());
+        // The roots, the bucket lists of the tables and the bucket of the table
+        assertEquals(6, diff.getFilesRead());
+    }
+}
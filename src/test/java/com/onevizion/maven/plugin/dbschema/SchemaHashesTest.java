@@ -0,0 +1,102 @@
+package com.onevizion.maven.plugin.dbschema;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.onevizion.maven.plugin.dbschema.ParsedScripts.column;
+import static com.onevizion.maven.plugin.dbschema.ParsedScripts.script;
+import static com.onevizion.maven.plugin.dbschema.ParsedScripts.sequence;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SchemaHashesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<DdlParser> newScripts(String changedType) {
+        List<DdlParser> scripts = Lists.newArrayList();
+        for (int index = 0; index < 20; index++) {
+            String tableName = "TABLE_" + index;
+            scripts.add(script(Arrays.asList(column(tableName, "ID", "NUMBER", 1),
+                    column(tableName, "NAME", index == 7 ? changedType : "VARCHAR2(100)", 2)), Collections.emptyList()));
+        }
+        scripts.add(script(Collections.emptyList(), Arrays.asList(sequence("SEQ_A", "create sequence seq_a"),
+                sequence("SEQ_B", "create sequence seq_b"))));
+        return scripts;
+    }
+
+    private File writeHashes(List<DdlParser> scripts) throws IOException {
+        SchemaHashes schemaHashes = new SchemaHashes();
+        for (DdlParser script : scripts) {
+            schemaHashes.addSchema(script);
+        }
+        schemaHashes.addKeys(scripts.get(0));
+
+        File hashesDir = folder.newFolder();
+        schemaHashes.write(hashesDir);
+        return hashesDir;
+    }
+
+    private static Map<String, List<String>> readTree(File hashesDir) throws IOException {
+        Map<String, List<String>> files = Maps.newTreeMap();
+        for (File file : FileUtils.listFiles(hashesDir, null, true)) {
+            files.put(hashesDir.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/'),
+                    FileUtils.readLines(file, StandardCharsets.UTF_8));
+        }
+        return files;
+    }
+
+    private static Set<String> changedLines(List<String> baseLines, List<String> lines) {
+        Set<String> changed = Sets.newLinkedHashSet(lines);
+        changed.removeAll(baseLines);
+        return changed;
+    }
+
+    @Test
+    public void hashesDoNotDependOnTheParseOrder() throws IOException {
+        List<DdlParser> scripts = newScripts("VARCHAR2(100)");
+        List<DdlParser> reversedScripts = Lists.reverse(scripts);
+
+        assertEquals(readTree(writeHashes(scripts)), readTree(writeHashes(reversedScripts)));
+    }
+
+    @Test
+    public void oneChangedColumnChangesOneLineOnEveryLevel() throws IOException {
+        Map<String, List<String>> baseTree = readTree(writeHashes(newScripts("VARCHAR2(100)")));
+        Map<String, List<String>> tree = readTree(writeHashes(newScripts("VARCHAR2(200)")));
+        assertEquals(baseTree.keySet(), tree.keySet());
+
+        String bucketFile = "table/" + SchemaHashes.getBucket("TABLE_7") + ".txt";
+        for (String file : tree.keySet()) {
+            Set<String> changed = changedLines(baseTree.get(file), tree.get(file));
+            if (file.equals(SchemaHashes.ROOT_FILE)) {
+                assertEquals(2, changed.size());
+                assertTrue(changed.stream().anyMatch(line -> line.startsWith(SchemaHashes.ROOT_KEY + "\t")));
+                assertTrue(changed.stream().anyMatch(line -> line.startsWith("TABLE\t")));
+            } else if (file.equals("table.txt")) {
+                assertEquals(1, changed.size());
+                assertTrue(changed.iterator().next().startsWith(SchemaHashes.getBucket("TABLE_7") + "\t"));
+            } else if (file.equals(bucketFile)) {
+                assertEquals(1, changed.size());
+                assertTrue(changed.iterator().next().startsWith("TABLE_7\t"));
+            } else {
+                assertEquals(file, baseTree.get(file), tree.get(file));
+            }
+        }
+    }
+}
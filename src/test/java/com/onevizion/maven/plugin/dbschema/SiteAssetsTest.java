@@ -0,0 +1,65 @@
+package com.onevizion.maven.plugin.dbschema;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SiteAssetsTest {
+
+    @Test
+    public void minifyJsRemovesCommentsAndIndentation() {
+        String js = "// header\n"
+                + "function f(a) {\n"
+                + "    /* block\n"
+                + "       comment */\n"
+                + "    return a / 2; // half\n"
+                + "\n"
+                + "}\n";
+        assertEquals("function f(a) {\nreturn a / 2;\n}", SiteAssets.minifyJs(js));
+    }
+
+    @Test
+    public void minifyJsKeepsRegexLiterals() {
+        String js = "var comment = /\\/\\*.*?\\*\\//g;\n"
+                + "var slashes = s.replace(/[//]+/g, '/');\n"
+                + "var quote = /'/.test(s);\n"
+                + "if (x) return /\"//* not a comment */.source;\n";
+        assertEquals("var comment = /\\/\\*.*?\\*\\//g;\n"
+                + "var slashes = s.replace(/[//]+/g, '/');\n"
+                + "var quote = /'/.test(s);\n"
+                + "if (x) return /\"/ .source;", SiteAssets.minifyJs(js));
+    }
+
+    @Test
+    public void minifyJsKeepsDivisions() {
+        String js = "var half = total / 2 / count; // per item\n"
+                + "var next = i++ / 2;\n"
+                + "var ratio = (a) / (b); /* ratio */\n";
+        assertEquals("var half = total / 2 / count;\n"
+                + "var next = i++ / 2;\n"
+                + "var ratio = (a) / (b);", SiteAssets.minifyJs(js));
+    }
+
+    @Test
+    public void minifyJsKeepsTemplateLiterals() {
+        String js = "var html = `<div>\n"
+                + "    // not a comment\n"
+                + "\n"
+                + "    ${items.map(item => `<span>${item /* comment */}</span>`).join('')}\n"
+                + "</div>`;\n"
+                + "    var url = `${base}//${path}`; // link\n";
+        assertEquals("var html = `<div>\n"
+                + "    // not a comment\n"
+                + "\n"
+                + "    ${items.map(item => `<span>${item  }</span>`).join('')}\n"
+                + "</div>`;\n"
+                + "var url = `${base}//${path}`;", SiteAssets.minifyJs(js));
+    }
+
+    @Test
+    public void minifyJsKeepsStrings() {
+        String js = "var a = 'it\\'s // not a comment';\n"
+                + "var b = \"/* nor this */\";\n";
+        assertEquals(js.trim(), SiteAssets.minifyJs(js));
+    }
+}
@@ -0,0 +1,78 @@
+package com.onevizion.maven.plugin.dbschema.mojo;
+
+import com.onevizion.maven.plugin.dbschema.DdlParser;
+import com.onevizion.maven.plugin.dbschema.SchemaHashes;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.onevizion.maven.plugin.dbschema.ParsedScripts.column;
+import static com.onevizion.maven.plugin.dbschema.ParsedScripts.script;
+import static com.onevizion.maven.plugin.dbschema.ParsedScripts.sequence;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DiffSiteMojoTest {
+
+    private static final Pattern ROW_PATTERN = Pattern.compile(
+            "<td>(\\w+)</td>\\s*<td>(?:<a href=\"([^\"]*)\">)?(\\w+)(?:</a>)?</td>\\s*<td>(\\w+)</td>");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File newSite(List<DdlParser> scripts) throws IOException {
+        SchemaHashes schemaHashes = new SchemaHashes();
+        scripts.forEach(schemaHashes::addSchema);
+        schemaHashes.addKeys(scripts.get(0));
+
+        File siteDir = folder.newFolder();
+        schemaHashes.write(new File(siteDir, SchemaHashes.HASHES_DIR));
+        return siteDir;
+    }
+
+    @Test
+    public void reportsAddedRemovedAndChangedObjects() throws IOException, MojoFailureException {
+        File baseSite = newSite(Arrays.asList(
+                script(Arrays.asList(column("ORDERS", "ID", "NUMBER", 1), column("ORDERS", "STATUS", "VARCHAR2(10)", 2)),
+                        Collections.emptyList()),
+                script(Collections.singletonList(column("CUSTOMERS", "ID", "NUMBER", 1)), Collections.emptyList()),
+                script(Collections.emptyList(), Collections.singletonList(sequence("ORDERS_SEQ", "create sequence orders_seq")))));
+        File site = newSite(Arrays.asList(
+                script(Arrays.asList(column("ORDERS", "ID", "NUMBER", 1), column("ORDERS", "STATUS", "VARCHAR2(20)", 2)),
+                        Collections.emptyList()),
+                script(Collections.singletonList(column("CUSTOMERS", "ID", "NUMBER", 1)), Collections.emptyList()),
+                script(Collections.singletonList(column("INVOICES", "ID", "NUMBER", 1)), Collections.emptyList())));
+
+        DiffSiteMojo mojo = new DiffSiteMojo();
+        mojo.sitePath = site.getPath();
+        mojo.tablesDir = site.getPath() + "/tables";
+        mojo.viewsDir = site.getPath() + "/views";
+        mojo.baseSitePath = baseSite.getPath();
+        mojo.diffReportFile = new File(site, "changes.html");
+        mojo.execute();
+
+        String report = FileUtils.readFileToString(mojo.diffReportFile, StandardCharsets.UTF_8);
+        Matcher matcher = ROW_PATTERN.matcher(report);
+        StringBuilder rows = new StringBuilder();
+        while (matcher.find()) {
+            rows.append(matcher.group(1)).append(' ').append(matcher.group(3)).append(' ').append(matcher.group(4))
+                .append(' ').append(matcher.group(2)).append('\n');
+        }
+        // Removed objects have no page to link to
+        assertEquals("SEQUENCE ORDERS_SEQ REMOVED null\n"
+                + "TABLE INVOICES ADDED tables/INVOICES.html\n"
+                + "TABLE ORDERS CHANGED tables/ORDERS.html\n", rows.toString());
+        assertTrue(report.contains("COLUMN STATUS changed"));
+    }
+}
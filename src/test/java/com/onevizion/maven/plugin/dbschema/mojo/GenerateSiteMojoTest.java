@@ -0,0 +1,107 @@
+package com.onevizion.maven.plugin.dbschema.mojo;
+
+import com.google.common.collect.ImmutableSet;
+import com.onevizion.maven.plugin.dbschema.vo.SchemaConfig;
+import com.onevizion.maven.plugin.dbschema.vo.ScriptArchiveConfig;
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class GenerateSiteMojoTest {
+
+    private static final Set<String> RUN_STATE_FIELDS = ImmutableSet.of("ddlParser", "siteGenerator", "scriptFilter",
+            "schemaWriter", "schemaHashes", "shardScripts", "parseExecutor");
+
+    private static List<Field> getParameterFields() {
+        return Stream.of(GenerateSiteMojo.class.getDeclaredFields())
+                     .filter(field -> !Modifier.isStatic(field.getModifiers()) && !Modifier.isFinal(field.getModifiers()))
+                     .filter(field -> !RUN_STATE_FIELDS.contains(field.getName()))
+                     .peek(field -> field.setAccessible(true))
+                     .collect(Collectors.toList());
+    }
+
+    private static Object newValue(Field field, int index) throws ReflectiveOperationException {
+        Class<?> type = field.getType();
+        if (type == String.class) {
+            return field.getName() + index;
+        } else if (type == int.class) {
+            return index + 1;
+        } else if (type == long.class) {
+            return index + 1L;
+        } else if (type == boolean.class) {
+            return true;
+        } else if (type == File.class) {
+            return new File(field.getName());
+        } else if (type.isArray()) {
+            return Array.newInstance(type.getComponentType(), 0);
+        }
+        return type.getDeclaredConstructor().newInstance();
+    }
+
+    private static GenerateSiteMojo newMojo() throws ReflectiveOperationException {
+        GenerateSiteMojo mojo = new GenerateSiteMojo();
+        List<Field> fields = getParameterFields();
+        for (int index = 0; index < fields.size(); index++) {
+            fields.get(index).set(mojo, newValue(fields.get(index), index));
+        }
+        mojo.sitePath = "site";
+        return mojo;
+    }
+
+    @Test
+    public void copyParametersCopiesEveryParameter() throws ReflectiveOperationException {
+        GenerateSiteMojo mojo = newMojo();
+        GenerateSiteMojo copy = new GenerateSiteMojo();
+        mojo.copyParameters(copy);
+
+        List<Field> fields = getParameterFields();
+        assertFalse(fields.isEmpty());
+        for (Field field : fields) {
+            assertEquals(field.getName(), field.get(mojo), field.get(copy));
+        }
+    }
+
+    @Test
+    public void forSchemaKeepsTheSharedParameters() throws ReflectiveOperationException {
+        GenerateSiteMojo mojo = newMojo();
+        SchemaConfig schema = new SchemaConfig();
+        schema.setName("first");
+        schema.setOutputDirectory("first-ddl");
+
+        GenerateSiteMojo schemaMojo = mojo.forSchema(schema, "first");
+        assertNull(schemaMojo.schemas);
+        assertEquals("site/first", schemaMojo.sitePath);
+        assertEquals("first-ddl", schemaMojo.outputDirectory);
+        assertSame(mojo.scriptArchives, schemaMojo.scriptArchives);
+        assertArrayEquals(mojo.dbSiteObjects, schemaMojo.dbSiteObjects);
+        assertEquals(mojo.parseTimeLimit, schemaMojo.parseTimeLimit);
+        assertEquals(mojo.viewLineage, schemaMojo.viewLineage);
+        assertEquals(0, schemaMojo.shardIndex);
+        assertEquals(1, schemaMojo.shardCount);
+    }
+
+    @Test
+    public void forSchemaTakesTheArchivesOfTheSchema() throws ReflectiveOperationException {
+        GenerateSiteMojo mojo = newMojo();
+        SchemaConfig schema = new SchemaConfig();
+        schema.setName("second");
+        schema.setOutputDirectory("second-ddl");
+        ScriptArchiveConfig[] scriptArchives = {new ScriptArchiveConfig()};
+        schema.setScriptArchives(scriptArchives);
+
+        assertArrayEquals(scriptArchives, mojo.forSchema(schema, "second").scriptArchives);
+    }
+}